@@ -0,0 +1,28 @@
+package jl95.json.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * runs the benchmarks with the GC profiler on - so that allocation rates are reported next to throughput - and
+ * writes the results as JSON, to compare across releases
+ * <p>Arguments are as for JMH's own main, e.g. a regular expression to select benchmarks, {@code -p corpus=...}
+ * to select documents or {@code -rff file} to choose where results are written (by default, jmh-result.json).</p>
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+            .parent(cmd)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+            .result(cmd.getResult().orElse("jmh-result.json"))
+            .build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package jl95.json.bench;
+
+import jl95.json.BinaryReader;
+import jl95.json.BinaryWriter;
+import jl95.json.Node;
+import jl95.json.NodeBuilder;
+import jl95.json.NodeSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of reading and writing {@link Node}s in the binary format - against JSON, with {@link NodeBuilder} and
+ * {@link NodeSerializer}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    private String serial;
+    private Node   node;
+    private byte[] binary;
+    private byte[] binaryWithDictionary;
+
+    @Setup
+    public void setup() {
+        serial               = corpus.generate();
+        node                 = NodeBuilder.build(serial);
+        binary               = BinaryWriter.write(node);
+        binaryWithDictionary = BinaryWriter.write(node, true);
+    }
+
+    @Benchmark
+    public Node readJson() {
+        return NodeBuilder.build(serial);
+    }
+
+    @Benchmark
+    public Node readBinary() {
+        return BinaryReader.read(binary);
+    }
+
+    @Benchmark
+    public Node readBinaryWithDictionary() {
+        return BinaryReader.read(binaryWithDictionary);
+    }
+
+    @Benchmark
+    public String writeJson() {
+        return NodeSerializer.serialize(node);
+    }
+
+    @Benchmark
+    public byte[] writeBinary() {
+        return BinaryWriter.write(node);
+    }
+
+    @Benchmark
+    public byte[] writeBinaryWithDictionary() {
+        return BinaryWriter.write(node, true);
+    }
+}
@@ -0,0 +1,41 @@
+package jl95.json.bench;
+
+import jl95.json.LazyNode;
+import jl95.json.Node;
+import jl95.json.NodeBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of building {@link Node} trees with {@link NodeBuilder} - and of parsing into {@link LazyNode}s,
+ * without reading any value
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuilderBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    private String serial;
+
+    @Setup
+    public void setup() {
+        serial = corpus.generate();
+    }
+
+    @Benchmark
+    public Node build() {
+        return NodeBuilder.build(serial);
+    }
+
+    @Benchmark
+    public LazyNode parseLazy() {
+        return LazyNode.parse(serial);
+    }
+}
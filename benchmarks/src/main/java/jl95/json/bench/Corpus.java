@@ -0,0 +1,138 @@
+package jl95.json.bench;
+
+import java.util.Random;
+
+/**
+ * Representative JSON documents to benchmark with - generated deterministically, such that results are comparable
+ * across runs and releases.
+ */
+public enum Corpus {
+
+    /**
+     * a small API response - a few nested objects and a short array
+     */
+    SMALL_API_RESPONSE {
+        @Override public String generate() {
+            return "{\"status\":\"ok\",\"request\":{\"id\":\"9f1c2ab4\",\"elapsed\":0.0132,\"retries\":0}," +
+                   "\"user\":{\"id\":1234567,\"name\":\"Jane Doe\",\"email\":\"jane.doe@example.com\",\"verified\":true," +
+                   "\"roles\":[\"admin\",\"editor\"],\"manager\":null}," +
+                   "\"links\":[{\"rel\":\"self\",\"href\":\"/users/1234567\"},{\"rel\":\"orders\",\"href\":\"/users/1234567/orders\"}]}";
+        }
+    },
+    /**
+     * a large array of records of the same schema
+     */
+    LARGE_RECORD_ARRAY {
+        @Override public String generate() {
+            Random r = new Random(42);
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < 10000; i++) {
+                if (i > 0) sb.append(',');
+                sb.append("{\"id\":").append(i)
+                  .append(",\"timestamp\":").append(1700000000000L + r.nextInt(1000000))
+                  .append(",\"name\":\"").append(word(r, 6 + r.nextInt(10))).append('"')
+                  .append(",\"status\":\"").append(STATUSES[r.nextInt(STATUSES.length)]).append('"')
+                  .append(",\"score\":").append(r.nextInt(100000) / 100.0)
+                  .append(",\"active\":").append(r.nextBoolean())
+                  .append(",\"tags\":[\"").append(word(r, 4)).append("\",\"").append(word(r, 5)).append("\"]}");
+            }
+            return sb.append(']').toString();
+        }
+    },
+    /**
+     * a deeply nested document - arrays and objects alternating
+     */
+    DEEPLY_NESTED {
+        @Override public String generate() {
+            int depth = 500;
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                sb.append(i % 2 == 0? "{\"level\":": "[").append(i).append(i % 2 == 0? ",\"next\":": ",");
+            }
+            sb.append("null");
+            for (int i = depth - 1; i >= 0; i--) {
+                sb.append(i % 2 == 0? '}': ']');
+            }
+            return sb.toString();
+        }
+    },
+    /**
+     * a document dominated by strings - long ones and some with escapings
+     */
+    STRING_HEAVY {
+        @Override public String generate() {
+            Random r = new Random(43);
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < 2000; i++) {
+                if (i > 0) sb.append(',');
+                sb.append("{\"title\":\"").append(sentence(r, 8)).append('"')
+                  .append(",\"body\":\"").append(sentence(r, 60)).append('"')
+                  .append(",\"quote\":\"she said \\\"").append(sentence(r, 5)).append("\\\"\\n\\tcaf\\u00e9\"}");
+            }
+            return sb.append(']').toString();
+        }
+    },
+    /**
+     * a document pretty-printed with a 4-space indentation - records nested a few levels deep, such that much of it
+     * is runs of whitespace
+     */
+    PRETTY_PRINTED {
+        @Override public String generate() {
+            Random r = new Random(45);
+            StringBuilder sb = new StringBuilder("{\n    \"data\": {\n        \"records\": [");
+            for (int i = 0; i < 5000; i++) {
+                sb.append(i > 0? ",\n": "\n").append("            {\n")
+                  .append("                \"id\": ").append(i).append(",\n")
+                  .append("                \"name\": \"").append(word(r, 6 + r.nextInt(10))).append("\",\n")
+                  .append("                \"status\": \"").append(STATUSES[r.nextInt(STATUSES.length)]).append("\",\n")
+                  .append("                \"score\": ").append(r.nextInt(100000) / 100.0).append(",\n")
+                  .append("                \"tags\": [\n")
+                  .append("                    \"").append(word(r, 4)).append("\",\n")
+                  .append("                    \"").append(word(r, 5)).append("\"\n")
+                  .append("                ]\n")
+                  .append("            }");
+            }
+            return sb.append("\n        ]\n    }\n}\n").toString();
+        }
+    },
+    /**
+     * a document dominated by numbers - integers and decimals
+     */
+    NUMBER_HEAVY {
+        @Override public String generate() {
+            Random r = new Random(44);
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < 5000; i++) {
+                if (i > 0) sb.append(',');
+                sb.append('[').append(r.nextInt()).append(',').append(r.nextLong() >>> 1)
+                  .append(',').append(r.nextInt(1000000) / 1000.0)
+                  .append(',').append(r.nextDouble() * 1000)
+                  .append(',').append(r.nextInt(100)).append(']');
+            }
+            return sb.append(']').toString();
+        }
+    };
+
+    private static final String[] STATUSES = {"NEW", "PENDING", "ACTIVE", "SUSPENDED", "CLOSED"};
+
+    private static String word    (Random r, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + r.nextInt(26)));
+        }
+        return sb.toString();
+    }
+    private static String sentence(Random r, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(word(r, 2 + r.nextInt(9)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the document's JSON serial
+     */
+    public abstract String generate();
+}
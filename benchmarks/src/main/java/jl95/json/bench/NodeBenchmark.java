@@ -0,0 +1,44 @@
+package jl95.json.bench;
+
+import jl95.json.Node;
+import jl95.json.NodeBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of operations over whole {@link Node} trees
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    private Node node;
+    private Node same;
+
+    @Setup
+    public void setup() {
+        node = NodeBuilder.build(corpus.generate());
+        same = node.deepCopy();
+    }
+
+    @Benchmark
+    public Node    deepCopy() {
+        return node.deepCopy();
+    }
+    @Benchmark
+    public boolean equals  () {
+        return node.equals(same);
+    }
+    @Benchmark
+    public int     hashCode() {
+        return node.hashCode();
+    }
+}
@@ -0,0 +1,74 @@
+package jl95.json.bench;
+
+import jl95.json.StreamParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of {@link StreamParser} alone - with handlers that do nothing but feed a blackhole
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param
+    public Corpus corpus;
+
+    private String serial;
+    private byte[] utf8;
+
+    @Setup
+    public void setup() {
+        serial = corpus.generate();
+        utf8   = serial.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static StreamParser.Handlers     handlers    (Blackhole bh) {
+        return new StreamParser.Handlers() {
+            @Override public void handleNull       ()             { bh.consume(0); }
+            @Override public void handleNumber     (String nRepr) { bh.consume(nRepr); }
+            @Override public void handleString     (String s)     { bh.consume(s); }
+            @Override public void handleTrue       ()             { bh.consume(1); }
+            @Override public void handleFalse      ()             { bh.consume(2); }
+            @Override public void handleArrayStart ()             { bh.consume(3); }
+            @Override public void handleArrayEnd   ()             { bh.consume(4); }
+            @Override public void handleObjectStart()             { bh.consume(5); }
+            @Override public void handleObjectEnd  ()             { bh.consume(6); }
+            @Override public void handleObjectKey  (String k)     { bh.consume(k); }
+        };
+    }
+    private static StreamParser.SpanHandlers spanHandlers(Blackhole bh) {
+        return new StreamParser.SpanHandlers() {
+            @Override public void handleNull       () { bh.consume(0); }
+            @Override public void handleNumber     (char[] buf, int offset, int length) { bh.consume(length); }
+            @Override public void handleString     (char[] buf, int offset, int length) { bh.consume(length); }
+            @Override public void handleTrue       () { bh.consume(1); }
+            @Override public void handleFalse      () { bh.consume(2); }
+            @Override public void handleArrayStart () { bh.consume(3); }
+            @Override public void handleArrayEnd   () { bh.consume(4); }
+            @Override public void handleObjectStart() { bh.consume(5); }
+            @Override public void handleObjectEnd  () { bh.consume(6); }
+            @Override public void handleObjectKey  (char[] buf, int offset, int length) { bh.consume(length); }
+        };
+    }
+
+    @Benchmark
+    public void parseString(Blackhole bh) {
+        new StreamParser().parse(serial, handlers(bh));
+    }
+    @Benchmark
+    public void parseStringSpans(Blackhole bh) {
+        new StreamParser().parse(serial, spanHandlers(bh));
+    }
+    @Benchmark
+    public void parseUtf8Spans(Blackhole bh) {
+        new StreamParser().parse(utf8, spanHandlers(bh));
+    }
+}
@@ -0,0 +1,58 @@
+package jl95.json.bench;
+
+import jl95.json.Node;
+import jl95.json.NodeBuilder;
+import jl95.json.NodeSerializer;
+import jl95.json.StreamTransform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of a gateway-like filter of records - dropping, renaming and redacting fields - with a
+ * {@link StreamTransform}, against building the tree, changing it and serializing it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+
+    private static final Node REDACTED = Node.String("***");
+
+    private String          serial;
+    private StreamTransform transform;
+
+    @Setup
+    public void setup() {
+        serial    = Corpus.LARGE_RECORD_ARRAY.generate();
+        transform = StreamTransform.of()
+            .drop   ("$[*].tags")
+            .rename ("$[*].name", "fullName")
+            .replace("$[*].status", REDACTED);
+    }
+
+    @Benchmark
+    public String tree() {
+        List<Node> records = new ArrayList<>();
+        for (Node record: NodeBuilder.build(serial).asList()) {
+            Map<String, Node> fields = new HashMap<>(record.asMap());
+            fields.remove("tags");
+            fields.put("fullName", fields.remove("name"));
+            fields.put("status", REDACTED);
+            records.add(Node.Map(fields));
+        }
+        return NodeSerializer.serialize(Node.List(records));
+    }
+
+    @Benchmark
+    public String stream() {
+        return transform.transform(serial);
+    }
+}
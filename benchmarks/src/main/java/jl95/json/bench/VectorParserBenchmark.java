@@ -0,0 +1,12 @@
+package jl95.json.bench;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * throughput of the stream-parser as in {@link ParserBenchmark} - but with the {@code jdk.incubator.vector} module
+ * added to the JVM, such that strings and whitespace are scanned by vectors
+ * <p>For Java 17 and after. Compare with {@link ParserBenchmark} on the same corpus - e.g. with
+ * {@code "ParserBenchmark.parseStringSpans" -p corpus=STRING_HEAVY,PRETTY_PRINTED}.</p>
+ */
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorParserBenchmark extends ParserBenchmark {}
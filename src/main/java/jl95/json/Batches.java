@@ -0,0 +1,40 @@
+package jl95.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Running of many parses at once, as tasks of an executor.
+ */
+final class Batches {
+
+    private Batches() {}
+
+    /**
+     * @return results of a function of every input, run as a task of the executor each - in the order of the inputs
+     * @throws RuntimeException as thrown by the function for the first input, in order, for which it failed
+     */
+    static <S, T> List<T> map(List<? extends S> inputs, Function<? super S, ? extends T> f, Executor executor) {
+        List<CompletableFuture<? extends T>> tasks = new ArrayList<>(inputs.size());
+        for (S input: inputs) {
+            tasks.add(CompletableFuture.supplyAsync(() -> f.apply(input), executor));
+        }
+        List<T> results = new ArrayList<>(tasks.size());
+        for (CompletableFuture<? extends T> task: tasks) {
+            try {
+                results.add(task.join());
+            }
+            catch (CompletionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error)            throw (Error)            cause;
+                throw ex;
+            }
+        }
+        return results;
+    }
+}
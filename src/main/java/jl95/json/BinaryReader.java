@@ -0,0 +1,318 @@
+package jl95.json;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads {@link Node}s written by the {@link BinaryWriter} - into nodes straight away, or as the stream-parser does,
+ * by calling back handlers.
+ * <p>Handlers may {@link #skipNextValue() skip} values, which - as arrays and objects are prefixed with their
+ * lengths - takes a single step, whatever the size of the value. Keys in a dictionary are decoded once, and shared
+ * by every object of them.</p>
+ * <p>Malformed input - e.g. cut short - is rejected with a {@link StreamParser.ParseException}, at a position in
+ * bytes.</p>
+ */
+public final class BinaryReader {
+
+    private final byte[]      src;
+    private final int         end;
+    private       int         at;
+    private       String[]    keys;       // of the dictionary, if any
+    private       char[][]    keyChars;   // likewise, as characters - for handlers
+    private       char[]      scratch = new char[64];
+    private       Utf8Decoder decoder;
+    private       boolean     skipNext;
+
+    private BinaryReader(byte[] src, int offset, int length) {
+        this.src = src;
+        this.at  = offset;
+        this.end = offset + length;
+        need(4);
+        if (src[at] != 'J' || src[at + 1] != 'B') throw error("not a binary serial", at);
+        if (src[at + 2] != BinaryWriter.VERSION)   throw error("unknown version "+src[at + 2], at + 2);
+        int flags = src[at + 3];
+        at += 4;
+        if ((flags & BinaryWriter.DICTIONARY) != 0) {
+            int count = count();
+            keys = new String[count];
+            for (int k = 0; k < count; k++) {
+                keys[k] = string();
+            }
+        }
+    }
+
+    /**
+     * @return reader of a binary serial, from its start
+     */
+    public static BinaryReader of(byte[] serial) {
+        return new BinaryReader(serial, 0, serial.length);
+    }
+
+    /**
+     * @return reader of a binary serial, given as a range of an array
+     */
+    public static BinaryReader of(byte[] serial, int offset, int length) {
+        return new BinaryReader(serial, offset, length);
+    }
+
+    /**
+     * @return node of a binary serial
+     */
+    public static Node read(byte[] serial) {
+        return of(serial).readNode();
+    }
+
+    /**
+     * @return the node, read whole
+     */
+    public Node readNode() {
+        Node x = node();
+        if (at != end) throw error("unexpected bytes after the node", at);
+        return x;
+    }
+
+    /**
+     * read the node, calling back handlers as the stream-parser does - numbers are given as they would be written in
+     * JSON
+     */
+    public void read(StreamParser.Handlers handlers) {
+        read(StreamParser.spanHandlersOf(handlers));
+    }
+
+    /**
+     * @see #read(StreamParser.Handlers)
+     */
+    public void read(StreamParser.SpanHandlers handlers) {
+        value(handlers);
+        if (at != end) throw error("unexpected bytes after the node", at);
+    }
+
+    /**
+     * to be called from a handler: skip the next value to start, without calling back handlers for it, or anything
+     * in it, but {@link StreamParser.SpanHandlers#handleSkipped()}
+     * @see StreamParser#skipNextValue()
+     */
+    public void skipNextValue() {
+        skipNext = true;
+    }
+
+    private StreamParser.ParseException error(String message, int position) {
+        return new StreamParser.ParseException(message, position);
+    }
+    private void need(int n) {
+        if (n < 0 || end - at < n) throw error("binary serial cut short", end);
+    }
+    private byte tag() {
+        need(1);
+        return src[at++];
+    }
+    private long varint() {
+        long x = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = tag();
+            x |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return x;
+            }
+        }
+        throw error("varint too long", at);
+    }
+    /**
+     * @return a varint that is a count, or length, of what follows - so no more than there is left
+     */
+    private int count() {
+        long x = varint();
+        if (x > end - at) throw error("length "+x+" past the end", at);
+        return (int) x;
+    }
+    private long longValue() {
+        long x = varint();
+        return (x >>> 1) ^ -(x & 1);
+    }
+    private double doubleValue() {
+        need(8);
+        long bits = 0;
+        for (int k = 0; k < 8; k++) {
+            bits |= (long) (src[at++] & 0xFF) << (8 * k);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+    private String string() {
+        int length = chars(count());
+        return new String(scratch, 0, length);
+    }
+    private String key() {
+        if (keys == null) {
+            return string();
+        }
+        long k = varint();
+        if (k >= keys.length) throw error("no key "+k+" in the dictionary", at);
+        return keys[(int) k];
+    }
+    /**
+     * @return end of a string, array or object, given its length - after which its contents are
+     */
+    private int limit() {
+        int size = count();
+        return at + size;
+    }
+    private void endOf(int limit) {
+        if (at != limit) throw error("array or object not of its length", at);
+    }
+
+    private Node node() {
+        byte tag = tag();
+        switch (tag) {
+            case BinaryWriter.NULL  : return Node.Null();
+            case BinaryWriter.FALSE : return Node.Bool(false);
+            case BinaryWriter.TRUE  : return Node.Bool(true);
+            case BinaryWriter.LONG  : return Node.Long(longValue());
+            case BinaryWriter.DOUBLE: return Node.Double(doubleValue());
+            case BinaryWriter.STRING: return Node.String(string());
+            case BinaryWriter.LIST  : {
+                int        limit    = limit();
+                int        count    = count();
+                List<Node> elements = new ArrayList<>(count);
+                for (int k = 0; k < count; k++) {
+                    elements.add(node());
+                }
+                endOf(limit);
+                return Node.List(elements);
+            }
+            case BinaryWriter.MAP   : {
+                int               limit   = limit();
+                int               count   = count();
+                Map<String, Node> entries = new HashMap<>((int) (count / 0.75) + 1);
+                for (int k = 0; k < count; k++) {
+                    String key = key();
+                    entries.put(key, node());
+                }
+                endOf(limit);
+                return Node.Map(entries);
+            }
+            default: throw error("invalid tag "+tag, at - 1);
+        }
+    }
+
+    private char[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new char[Math.max(length, 2 * scratch.length)];
+        }
+        return scratch;
+    }
+    /**
+     * decode a string into the scratch buffer
+     * @return its length in characters
+     */
+    private int    chars(int n) {
+        if (decoder == null) {
+            decoder = new Utf8Decoder();
+        }
+        char[] dst = scratch(n + 2); // UTF-8 is never of fewer bytes than UTF-16 is of characters
+        int    length;
+        try {
+            decoder.feed(src, at, n);
+            length = decoder.decode(dst, 0, dst.length);
+            decoder.decode(dst, length, dst.length - length); // nothing left - but as to be told of malformed input
+        }
+        catch (Utf8Decoder.MalformedException ex) {
+            decoder = null; // as left in the middle of a sequence
+            throw error("malformed UTF-8 string", at);
+        }
+        if (decoder.isPending()) {
+            decoder = null;
+            throw error("malformed UTF-8 string", at + n);
+        }
+        at += n;
+        return length;
+    }
+    private void   skip() {
+        byte tag = tag();
+        switch (tag) {
+            case BinaryWriter.NULL  :
+            case BinaryWriter.FALSE :
+            case BinaryWriter.TRUE  : break;
+            case BinaryWriter.LONG  : varint();  break;
+            case BinaryWriter.DOUBLE: need(8); at += 8; break;
+            case BinaryWriter.STRING:
+            case BinaryWriter.LIST  :
+            case BinaryWriter.MAP   : at = limit(); break;
+            default: throw error("invalid tag "+tag, at - 1);
+        }
+    }
+    private void   value(StreamParser.SpanHandlers handlers) {
+        if (skipNext) {
+            skipNext = false;
+            skip();
+            handlers.handleSkipped();
+            return;
+        }
+        byte tag = tag();
+        switch (tag) {
+            case BinaryWriter.NULL  : handlers.handleNull (); break;
+            case BinaryWriter.FALSE : handlers.handleFalse(); break;
+            case BinaryWriter.TRUE  : handlers.handleTrue (); break;
+            case BinaryWriter.LONG  : {
+                String s = Long.toString(longValue());
+                s.getChars(0, s.length(), scratch(s.length()), 0);
+                handlers.handleNumber(scratch, 0, s.length());
+                break;
+            }
+            case BinaryWriter.DOUBLE: {
+                double x = doubleValue();
+                if (Double.isNaN(x) || Double.isInfinite(x)) throw error("number "+x+" not representable in JSON", at - 8);
+                String s = Double.toString(x);
+                s.getChars(0, s.length(), scratch(s.length()), 0);
+                handlers.handleNumber(scratch, 0, s.length());
+                break;
+            }
+            case BinaryWriter.STRING: {
+                int length = chars(count());
+                handlers.handleString(scratch, 0, length);
+                break;
+            }
+            case BinaryWriter.LIST  : {
+                int limit = limit();
+                int count = count();
+                handlers.handleArrayStart();
+                for (int k = 0; k < count; k++) {
+                    value(handlers);
+                }
+                endOf(limit);
+                skipNext = false;
+                handlers.handleArrayEnd();
+                break;
+            }
+            case BinaryWriter.MAP   : {
+                int limit = limit();
+                int count = count();
+                handlers.handleObjectStart();
+                for (int k = 0; k < count; k++) {
+                    if (keys == null) {
+                        int length = chars(count());
+                        handlers.handleObjectKey(scratch, 0, length);
+                    } else {
+                        long key = varint();
+                        if (key >= keys.length) throw error("no key "+key+" in the dictionary", at);
+                        if (keyChars == null) {
+                            keyChars = new char[keys.length][];
+                        }
+                        char[] chars = keyChars[(int) key];
+                        if (chars == null) {
+                            chars = keyChars[(int) key] = keys[(int) key].toCharArray();
+                        }
+                        handlers.handleObjectKey(chars, 0, chars.length);
+                    }
+                    value(handlers);
+                }
+                endOf(limit);
+                skipNext = false;
+                handlers.handleObjectEnd();
+                break;
+            }
+            default: throw error("invalid tag "+tag, at - 1);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package jl95.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes {@link Node}s in a compact binary format - to be read back by the {@link BinaryReader}, much faster than
+ * JSON is parsed.
+ * <p>The format is a header, then the node:</p>
+ * <ul>
+ *     <li>header: the bytes {@code 'J' 'B'}, the format's version (1), and flags - of which bit 0 is whether the
+ *     keys of objects are in a dictionary, given next: the number of keys, then every key as a string</li>
+ *     <li>node: a tag byte - of {@code NULL}, {@code FALSE}, {@code TRUE}, {@code LONG}, {@code DOUBLE},
+ *     {@code STRING}, {@code LIST} or {@code MAP} - then
+ *     <ul>
+ *         <li>for a LONG, its value as a varint (LEB128), zigzag-encoded - such that small negatives are short</li>
+ *         <li>for a DOUBLE, its 8 bytes, IEEE 754, little-endian</li>
+ *         <li>for a STRING, its length in bytes, as a varint, then its bytes, in UTF-8</li>
+ *         <li>for a LIST or MAP, the length in bytes of the rest of it, as a varint - such that readers may skip it
+ *         whole - then its number of elements / entries, as a varint, then every element / entry: for a MAP, its
+ *         key - the index of the key in the dictionary, as a varint, or else the key as a string, without a tag -
+ *         then its value</li>
+ *     </ul></li>
+ * </ul>
+ */
+public final class BinaryWriter {
+
+    static final byte NULL   = 0;
+    static final byte FALSE  = 1;
+    static final byte TRUE   = 2;
+    static final byte LONG   = 3;
+    static final byte DOUBLE = 4;
+    static final byte STRING = 5;
+    static final byte LIST   = 6;
+    static final byte MAP    = 7;
+
+    static final byte VERSION    = 1;
+    static final int  DICTIONARY = 1;
+
+    private final Map<String, Integer> keys;          // dictionary, if keys are to be in one
+    private       int[]                sizes = new int[16]; // of the arrays and objects, in the order they are met
+    private       int                  sizeCount;
+    private       byte[]               out;
+    private       int                  n;
+
+    private BinaryWriter(boolean dictionary) {
+        keys = dictionary? new LinkedHashMap<>(): null;
+    }
+
+    /**
+     * @return binary serial of a node, with keys as they are
+     */
+    public static byte[] write(Node node) {
+        return write(node, false);
+    }
+
+    /**
+     * @param dictionary whether to write the keys of objects in a dictionary, once each, and refer to them by
+     *                   index - for nodes of many objects of the same keys, e.g. arrays of records
+     * @return binary serial of a node
+     */
+    public static byte[] write(Node node, boolean dictionary) {
+        return new BinaryWriter(dictionary).serialize(node);
+    }
+
+    /**
+     * write the binary serial of a node to an output stream - not flushed, nor closed
+     * @see #write(Node, boolean)
+     */
+    public static void   write(Node node, boolean dictionary, OutputStream stream) {
+        try {
+            stream.write(write(node, dictionary));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * write in two passes: the first to measure the arrays and objects, and collect keys, and the second to write
+     * into a buffer of the exact size
+     */
+    private byte[] serialize(Node node) {
+        int size = measure(node);
+        int header = 4;
+        if (keys != null) {
+            header += varintSize(keys.size());
+            for (String key: keys.keySet()) {
+                header += stringSize(key);
+            }
+        }
+        out = new byte[header + size];
+        out[n++] = 'J';
+        out[n++] = 'B';
+        out[n++] = VERSION;
+        out[n++] = (byte) (keys != null? DICTIONARY: 0);
+        if (keys != null) {
+            varint(keys.size());
+            for (String key: keys.keySet()) {
+                string(key);
+            }
+        }
+        sizeCount = 0;
+        node(node);
+        return out;
+    }
+
+    private static int varintSize(long x) {
+        int size = 1;
+        while ((x & ~0x7FL) != 0) {
+            x >>>= 7;
+            size++;
+        }
+        return size;
+    }
+    private static long zigzag(long x) {
+        return (x << 1) ^ (x >> 63);
+    }
+    private static int utf8Size(String s) {
+        int size = s.length();
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                size += 1;
+            }
+            else if (!Character.isSurrogate(c)) {
+                size += 2;
+            }
+            else if (Character.isHighSurrogate(c) && k + 1 < s.length() && Character.isLowSurrogate(s.charAt(k + 1))) {
+                size += 2; // 4 bytes for the 2 characters of the pair
+                k++;
+            }
+            // else an unpaired surrogate - written as '?', as by String.getBytes, in 1 byte
+        }
+        return size;
+    }
+    private static int stringSize(String s) {
+        int size = utf8Size(s);
+        return varintSize(size) + size;
+    }
+    private int keySize(String key) {
+        if (keys == null) {
+            return stringSize(key);
+        }
+        Integer index = keys.get(key);
+        if (index == null) {
+            keys.put(key, index = keys.size());
+        }
+        return varintSize(index);
+    }
+    /**
+     * @return size of a node, written - having kept the sizes of the arrays and objects in it
+     */
+    private int measure(Node node) {
+        switch (node.type()) {
+            case NULL  :
+            case BOOL  : return 1;
+            case LONG  : return 1 + varintSize(zigzag(node.longValue()));
+            case DOUBLE: return 9;
+            case STRING: return 1 + stringSize(node.asString());
+            case LIST  : {
+                int slot = reserve();
+                int size = varintSize(node.asList().size());
+                for (Node x: node.asList()) {
+                    size += measure(x);
+                }
+                sizes[slot] = size;
+                return 1 + varintSize(size) + size;
+            }
+            case MAP   : {
+                int slot = reserve();
+                int size = varintSize(node.asMap().size());
+                for (Map.Entry<String, Node> e: node.asMap().entrySet()) {
+                    size += keySize(e.getKey()) + measure(e.getValue());
+                }
+                sizes[slot] = size;
+                return 1 + varintSize(size) + size;
+            }
+            default: throw new AssertionError("not switching through all cases of type");
+        }
+    }
+    private int reserve() {
+        if (sizeCount == sizes.length) {
+            sizes = Arrays.copyOf(sizes, 2 * sizeCount);
+        }
+        return sizeCount++;
+    }
+
+    private void varint(long x) {
+        while ((x & ~0x7FL) != 0) {
+            out[n++] = (byte) ((x & 0x7F) | 0x80);
+            x >>>= 7;
+        }
+        out[n++] = (byte) x;
+    }
+    private void string(String s) {
+        varint(utf8Size(s));
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c < 0x80) {
+                out[n++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                out[n++] = (byte) (0xC0 | (c >> 6));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && k + 1 < s.length() && Character.isLowSurrogate(s.charAt(k + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++k));
+                out[n++] = (byte) (0xF0 | (cp >> 18));
+                out[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[n++] = (byte) (0x80 | ((cp >>  6) & 0x3F));
+                out[n++] = (byte) (0x80 | (cp & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                out[n++] = '?';
+            }
+            else {
+                out[n++] = (byte) (0xE0 | (c >> 12));
+                out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+    private void node(Node node) {
+        switch (node.type()) {
+            case NULL  : out[n++] = NULL; break;
+            case BOOL  : out[n++] = node.booleanValue()? TRUE: FALSE; break;
+            case LONG  :
+                out[n++] = LONG;
+                varint(zigzag(node.longValue()));
+                break;
+            case DOUBLE:
+                out[n++] = DOUBLE;
+                long bits = Double.doubleToRawLongBits(node.doubleValue());
+                for (int k = 0; k < 8; k++) {
+                    out[n++] = (byte) (bits >>> (8 * k));
+                }
+                break;
+            case STRING:
+                out[n++] = STRING;
+                string(node.asString());
+                break;
+            case LIST  :
+                out[n++] = LIST;
+                varint(sizes[sizeCount++]);
+                varint(node.asList().size());
+                for (Node x: node.asList()) {
+                    node(x);
+                }
+                break;
+            case MAP   :
+                out[n++] = MAP;
+                varint(sizes[sizeCount++]);
+                varint(node.asMap().size());
+                for (Map.Entry<String, Node> e: node.asMap().entrySet()) {
+                    if (keys != null) {
+                        varint(keys.get(e.getKey()));
+                    } else {
+                        string(e.getKey());
+                    }
+                    node(e.getValue());
+                }
+                break;
+            default: throw new AssertionError("not switching through all cases of type");
+        }
+    }
+}
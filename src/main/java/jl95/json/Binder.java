@@ -0,0 +1,193 @@
+package jl95.json;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * A binder of JSON serials straight into objects of a class - without building nodes first.
+ * <p>Classes are bound by their (non-static, non-transient) fields, by name: set, after construction with the class's
+ * constructor of no parameters or - for classes without one, e.g. records - given to the constructor of the class's
+ * fields, in the order they are declared. Fields may be of primitive types and their boxes, {@link String}, enums,
+ * {@link java.math.BigInteger} and {@link java.math.BigDecimal}, {@link Node} (for values of any type), {@link Object}
+ * (for lists, maps, longs, doubles, strings, booleans or null), lists and maps of strings to any of these, and other
+ * classes bound in the same way.</p>
+ * <p>How to bind a class is worked out once per class, with method handles for its constructor and fields, and
+ * cached. Keys of objects are looked up in a table of the class's fields by their characters, as given by the
+ * stream-parser, and entries by keys of no field are skipped.</p>
+ * @param <T> class to bind to
+ */
+public final class Binder<T> {
+
+    private static final ClassValue<Binder<?>> binders = new ClassValue<Binder<?>>() {
+        @Override protected Binder<?> computeValue(Class<?> type) {
+            return new Binder<>(Bindings.of(type));
+        }
+    };
+
+    private final Bindings.Binding binding;
+
+    private Binder(Bindings.Binding binding) {
+        this.binding = binding;
+    }
+
+    /**
+     * @return binder of a class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Binder<T> of(Class<T> type) {
+        return (Binder<T>) binders.get(type);
+    }
+
+    /**
+     * @param serial JSON serial
+     * @return object bound from the serial
+     */
+    public T bind(String serial) {
+        return run((parser, run) -> parser.parse(serial, run));
+    }
+
+    /**
+     * @see #bind(String)
+     */
+    public T bind(Reader reader) {
+        return run((parser, run) -> parser.parse(reader, run));
+    }
+
+    /**
+     * @param utf8 JSON serial, encoded in UTF-8
+     * @see #bind(String)
+     */
+    public T bind(byte[] utf8) {
+        return run((parser, run) -> parser.parse(utf8, run));
+    }
+
+    /**
+     * @param utf8 JSON serial, encoded in UTF-8
+     * @see #bind(String)
+     */
+    public T bind(ByteBuffer utf8) {
+        return run((parser, run) -> parser.parse(utf8, run));
+    }
+
+    /**
+     * bind many serials at once, each as a task of an executor - e.g. of virtual threads, or a fixed pool
+     * <p>The calling thread waits for all of them. If any fails, the error of the first in order to fail is thrown.</p>
+     * @return the objects, in the order of their serials
+     */
+    public List<T> bindAll(List<String> serials, Executor executor) {
+        return Batches.map(serials, this::bind, executor);
+    }
+
+    private T run(BiConsumer<StreamParser, Run> parse) {
+        Run run = new Run();
+        try {
+            parse.accept(run.parser, run);
+        }
+        finally {
+            run.parser.release();
+        }
+        return run.result();
+    }
+
+    /**
+     * array or object being bound
+     */
+    private static final class Frame {
+
+        Bindings.Binding binding;
+        Object           state;
+        boolean          array;
+        Object           member; // of the entry being bound, if an object
+    }
+
+    private final class Run implements StreamParser.SpanHandlers {
+
+        final StreamParser     parser = StreamParser.acquire();
+        final List<Frame>      frames = new ArrayList<>();
+        int                    depth  = 0;
+        Bindings.Binding       next   = binding; // binding of the next value
+        Object                 result;
+
+        @SuppressWarnings("unchecked")
+        T      result() {
+            return (T) result;
+        }
+
+        private Frame top() {
+            return frames.get(depth - 1);
+        }
+        private void  add(Object x) {
+            if (depth == 0) {
+                result = x;
+                return;
+            }
+            Frame parent = top();
+            if (parent.array) {
+                parent.binding.addElement(parent.state, x);
+            } else {
+                parent.binding.addMember(parent.state, parent.member, x);
+            }
+        }
+        private void  push(Bindings.Binding b, Object state, boolean array) {
+            if (depth == frames.size()) {
+                frames.add(new Frame());
+            }
+            Frame frame = frames.get(depth++);
+            frame.binding = b;
+            frame.state   = state;
+            frame.array   = array;
+            next = array? b.element(state): null;
+        }
+        private void  pop() {
+            Frame frame = top();
+            depth--;
+            Object x = frame.binding.end(frame.state);
+            frame.state = null;
+            add(x);
+            if (depth > 0 && top().array) {
+                next = top().binding.element(top().state);
+            }
+        }
+        private boolean inObject() {
+            return depth > 0 && !top().array;
+        }
+
+        @Override public void handleNull       () { add(next.ofNull()); }
+        @Override public void handleNumber     (char[] buf, int offset, int length) {
+            if (inObject()) {
+                Frame parent = top();
+                parent.binding.addMember(parent.state, parent.member, buf, offset, length);
+            } else {
+                add(next.ofNumber(buf, offset, length));
+            }
+        }
+        @Override public void handleString     (char[] buf, int offset, int length) { add(next.ofString(buf, offset, length)); }
+        @Override public void handleTrue       () { bool(true);  }
+        @Override public void handleFalse      () { bool(false); }
+        private void bool(boolean x) {
+            if (inObject()) {
+                Frame parent = top();
+                parent.binding.addMember(parent.state, parent.member, x);
+            } else {
+                add(next.ofBoolean(x));
+            }
+        }
+        @Override public void handleArrayStart () { push(next, next.startArray(),  true);  }
+        @Override public void handleArrayEnd   () { pop(); }
+        @Override public void handleObjectStart() { push(next, next.startObject(), false); }
+        @Override public void handleObjectEnd  () { pop(); }
+        @Override public void handleObjectKey  (char[] buf, int offset, int length) {
+            Frame object = top();
+            object.member = object.binding.member(buf, offset, length);
+            if (object.member == null) {
+                parser.skipNextValue();
+            } else {
+                next = object.binding.memberBinding(object.member);
+            }
+        }
+    }
+}
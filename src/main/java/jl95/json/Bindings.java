@@ -0,0 +1,579 @@
+package jl95.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bindings of JSON values to Java types - each a set of methods to make an object of the type out of the events of
+ * the stream-parser, as used by {@link Binder}.
+ * <p>Bindings are made once per type, and (for classes) cached. A binding keeps no state of its own - the state of an
+ * array or object being bound is given back to it, as returned when the array or object started - so they are safe to
+ * share across threads.</p>
+ */
+final class Bindings {
+
+    private Bindings() {}
+
+    /**
+     * binding of a type
+     * <p>The methods for scalars return the bound value. The methods for arrays and objects are called in order -
+     * start, then the element or member methods for every element or entry, then end, which returns the bound value.</p>
+     */
+    abstract static class Binding {
+
+        final String name;
+
+        Binding(String name) {
+            this.name = name;
+        }
+
+        RuntimeException mismatch(String what) {
+            return new RuntimeException("cannot bind "+what+" to "+name);
+        }
+
+        Object  ofNull   ()                                   { return null; }
+        Object  ofNumber (char[] buf, int offset, int length) { throw mismatch("a number"); }
+        Object  ofString (char[] buf, int offset, int length) { throw mismatch("a string"); }
+        Object  ofBoolean(boolean x)                          { throw mismatch("a boolean"); }
+        Object  startArray ()                                 { throw mismatch("an array"); }
+        Object  startObject()                                 { throw mismatch("an object"); }
+        /**
+         * @return binding of the elements of an array
+         */
+        Binding element  (Object array)                       { throw new AssertionError(); }
+        void    addElement(Object array, Object x)            { throw new AssertionError(); }
+        /**
+         * @return member of an object by the given key - given back, as is, to the other member methods - or null if
+         * the object has no member by the key, in which case the entry is skipped
+         */
+        Object  member   (char[] buf, int offset, int length) { throw new AssertionError(); }
+        Binding memberBinding(Object member)                  { throw new AssertionError(); }
+        void    addMember(Object object, Object member, Object x) { throw new AssertionError(); }
+        /**
+         * add a number to an object - to be overridden, as to bind numbers to members of primitive types unboxed
+         */
+        void    addMember(Object object, Object member, char[] buf, int offset, int length) {
+            addMember(object, member, memberBinding(member).ofNumber(buf, offset, length));
+        }
+        /**
+         * add a boolean to an object - to be overridden, as to bind booleans to members of primitive types unboxed
+         */
+        void    addMember(Object object, Object member, boolean x) {
+            addMember(object, member, memberBinding(member).ofBoolean(x));
+        }
+        Object  end      (Object arrayOrObject)               { return arrayOrObject; }
+    }
+
+    /**
+     * a table of keys - looked up by their characters, as spans given by the stream-parser, without building strings
+     */
+    static final class KeyTable<V> {
+
+        private final String[] keys;
+        private final Object[] values;
+        private final int      mask;
+
+        KeyTable(Map<String, V> map) {
+            int size = Integer.highestOneBit(Math.max(2, 2 * map.size()) - 1) << 1;
+            keys   = new String[size];
+            values = new Object[size];
+            mask   = size - 1;
+            for (Map.Entry<String, V> entry: map.entrySet()) {
+                int slot = entry.getKey().hashCode() & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys  [slot] = entry.getKey();
+                values[slot] = entry.getValue();
+            }
+        }
+
+        private static boolean matches(String key, int hash, char[] buf, int offset, int length) {
+            if (key.length() != length || key.hashCode() != hash) {
+                return false;
+            }
+            for (int k = 0; k < length; k++) {
+                if (key.charAt(k) != buf[offset + k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(char[] buf, int offset, int length) {
+            int hash = 0; // as String.hashCode
+            for (int k = offset; k < offset + length; k++) {
+                hash = 31 * hash + buf[k];
+            }
+            for (int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (matches(keys[slot], hash, buf, offset, length)) {
+                    return (V) values[slot];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error)            throw  (Error) t;
+        return new RuntimeException(t);
+    }
+
+    private static final ClassValue<Binding> cache = new ClassValue<Binding>() {
+        @Override protected Binding computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    /**
+     * @return binding of a type - a class, or a parameterized list or map
+     */
+    static Binding of(Type type) {
+        if (type instanceof Class) {
+            return cache.get((Class<?>) type);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType p    = (ParameterizedType) type;
+            Class<?>          raw  = (Class<?>) p.getRawType();
+            Type[]            args = p.getActualTypeArguments();
+            if (raw.isAssignableFrom(ArrayList.class)) {
+                return new ListBinding(of(args[0]), type.getTypeName());
+            }
+            if (raw.isAssignableFrom(LinkedHashMap.class) && args[0] == String.class) {
+                return new MapBinding(of(args[1]), type.getTypeName());
+            }
+        }
+        throw new RuntimeException("cannot bind to type "+type.getTypeName());
+    }
+
+    private static Binding create(Class<?> type) {
+        if (type == long.class    || type == Long.class)    return new IntegerBinding(type, Long.MIN_VALUE,    Long.MAX_VALUE);
+        if (type == int.class     || type == Integer.class) return new IntegerBinding(type, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (type == short.class   || type == Short.class)   return new IntegerBinding(type, Short.MIN_VALUE,   Short.MAX_VALUE);
+        if (type == byte.class    || type == Byte.class)    return new IntegerBinding(type, Byte.MIN_VALUE,    Byte.MAX_VALUE);
+        if (type == double.class  || type == Double.class)  return new FloatBinding(type);
+        if (type == float.class   || type == Float.class)   return new FloatBinding(type);
+        if (type == boolean.class || type == Boolean.class) return new BooleanBinding(type);
+        if (type == String.class)                           return new StringBinding();
+        if (type == BigInteger.class || type == BigDecimal.class) return new BigBinding(type);
+        if (type == Node.class)                             return new NodeBinding();
+        if (type == Object.class)                           return new NaturalBinding();
+        if (type.isEnum())                                  return new EnumBinding(type);
+        if (type.isAssignableFrom(ArrayList.class))         return new ListBinding(new NaturalBinding(), type.getName());
+        if (type.isAssignableFrom(LinkedHashMap.class))     return new MapBinding (new NaturalBinding(), type.getName());
+        if (type.isPrimitive() || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            throw new RuntimeException("cannot bind to type "+type.getName());
+        }
+        return new ObjectBinding(type);
+    }
+
+    private abstract static class ScalarBinding extends Binding {
+
+        final boolean primitive;
+
+        ScalarBinding(Class<?> type) {
+            super(type.getName());
+            this.primitive = type.isPrimitive();
+        }
+
+        @Override Object ofNull() {
+            if (primitive) throw mismatch("null");
+            return null;
+        }
+    }
+
+    private static final class IntegerBinding extends ScalarBinding {
+
+        final Class<?> type;
+        final long     min;
+        final long     max;
+
+        IntegerBinding(Class<?> type, long min, long max) {
+            super(type);
+            this.type = type;
+            this.min  = min;
+            this.max  = max;
+        }
+
+        long   parse(char[] buf, int offset, int length) {
+            if (!Numbers.isIntegral(buf, offset, length)) throw mismatch("a non-integer number");
+            if (!Numbers.fitsLong  (buf, offset, length)) throw mismatch("number "+new String(buf, offset, length)+", out of range,");
+            long x = Numbers.parseLong(buf, offset, length);
+            if (x < min || x > max) throw mismatch("number "+x+", out of range,");
+            return x;
+        }
+        @Override Object ofNumber(char[] buf, int offset, int length) {
+            long x = parse(buf, offset, length);
+            if (type == long.class  || type == Long.class)    return x;
+            if (type == int.class   || type == Integer.class) return (int)   x;
+            if (type == short.class || type == Short.class)   return (short) x;
+            return (byte) x;
+        }
+    }
+
+    private static final class FloatBinding extends ScalarBinding {
+
+        final boolean single;
+
+        FloatBinding(Class<?> type) {
+            super(type);
+            this.single = type == float.class || type == Float.class;
+        }
+
+        @Override Object ofNumber(char[] buf, int offset, int length) {
+            double x = Numbers.parseDouble(buf, offset, length);
+            return single? (Object) (float) x: (Object) x;
+        }
+    }
+
+    private static final class BooleanBinding extends ScalarBinding {
+
+        BooleanBinding(Class<?> type) {
+            super(type);
+        }
+
+        @Override Object ofBoolean(boolean x) {
+            return x;
+        }
+    }
+
+    private static final class StringBinding extends Binding {
+
+        StringBinding() {
+            super(String.class.getName());
+        }
+
+        @Override Object ofString(char[] buf, int offset, int length) {
+            return new String(buf, offset, length);
+        }
+    }
+
+    private static final class BigBinding extends Binding {
+
+        final boolean integer;
+
+        BigBinding(Class<?> type) {
+            super(type.getName());
+            this.integer = type == BigInteger.class;
+        }
+
+        @Override Object ofNumber(char[] buf, int offset, int length) {
+            return integer? Numbers.parseBigInteger(buf, offset, length): Numbers.parseBigDecimal(buf, offset, length);
+        }
+    }
+
+    private static final class EnumBinding extends Binding {
+
+        final KeyTable<Object> constants;
+
+        EnumBinding(Class<?> type) {
+            super(type.getName());
+            Map<String, Object> map = new HashMap<>();
+            for (Object constant: type.getEnumConstants()) {
+                map.put(((Enum<?>) constant).name(), constant);
+            }
+            this.constants = new KeyTable<>(map);
+        }
+
+        @Override Object ofString(char[] buf, int offset, int length) {
+            Object constant = constants.get(buf, offset, length);
+            if (constant == null) throw mismatch("string "+new String(buf, offset, length));
+            return constant;
+        }
+    }
+
+    private static final class ListBinding extends Binding {
+
+        final Binding elements;
+
+        ListBinding(Binding elements, String name) {
+            super(name);
+            this.elements = elements;
+        }
+
+        @Override Object  startArray() {
+            return new ArrayList<>();
+        }
+        @Override Binding element   (Object array) {
+            return elements;
+        }
+        @SuppressWarnings("unchecked")
+        @Override void    addElement(Object array, Object x) {
+            ((List<Object>) array).add(x);
+        }
+    }
+
+    private static final class MapBinding extends Binding {
+
+        final Binding values;
+
+        MapBinding(Binding values, String name) {
+            super(name);
+            this.values = values;
+        }
+
+        @Override Object  startObject() {
+            return new LinkedHashMap<>();
+        }
+        @Override Object  member       (char[] buf, int offset, int length) {
+            return new String(buf, offset, length);
+        }
+        @Override Binding memberBinding(Object member) {
+            return values;
+        }
+        @SuppressWarnings("unchecked")
+        @Override void    addMember    (Object object, Object member, Object x) {
+            ((Map<String, Object>) object).put((String) member, x);
+        }
+    }
+
+    /**
+     * binding of {@link Object}, to the "natural" type of every value - e.g. a map for an object
+     */
+    private static final class NaturalBinding extends Binding {
+
+        NaturalBinding() {
+            super(Object.class.getName());
+        }
+
+        @Override Object  ofNumber     (char[] buf, int offset, int length) {
+            return Numbers.fitsLong  (buf, offset, length)? (Object) Numbers.parseLong      (buf, offset, length):
+                   Numbers.isIntegral(buf, offset, length)? (Object) Numbers.parseBigInteger(buf, offset, length):
+                                                            (Object) Numbers.parseDouble    (buf, offset, length);
+        }
+        @Override Object  ofString     (char[] buf, int offset, int length) { return new String(buf, offset, length); }
+        @Override Object  ofBoolean    (boolean x)                           { return x; }
+        @Override Object  startArray   ()                                    { return new ArrayList<>(); }
+        @Override Object  startObject  ()                                    { return new LinkedHashMap<>(); }
+        @Override Binding element      (Object array)                        { return this; }
+        @SuppressWarnings("unchecked")
+        @Override void    addElement   (Object array, Object x)              { ((List<Object>) array).add(x); }
+        @Override Object  member       (char[] buf, int offset, int length)  { return new String(buf, offset, length); }
+        @Override Binding memberBinding(Object member)                       { return this; }
+        @SuppressWarnings("unchecked")
+        @Override void    addMember    (Object object, Object member, Object x) { ((Map<String, Object>) object).put((String) member, x); }
+    }
+
+    private static final class NodeBinding extends Binding {
+
+        NodeBinding() {
+            super(Node.class.getName());
+        }
+
+        @Override Object  ofNull       ()                                    { return Node.Null(); }
+        @Override Object  ofNumber     (char[] buf, int offset, int length)  { return NodeBuilder.number(buf, offset, length); }
+        @Override Object  ofString     (char[] buf, int offset, int length)  { return Node.String(new String(buf, offset, length)); }
+        @Override Object  ofBoolean    (boolean x)                           { return Node.Bool(x); }
+        @Override Object  startArray   ()                                    { return Node.List(); }
+        @Override Object  startObject  ()                                    { return Node.Map(); }
+        @Override Binding element      (Object array)                        { return this; }
+        @Override void    addElement   (Object array, Object x)              { ((Node) array).add((Node) x); }
+        @Override Object  member       (char[] buf, int offset, int length)  { return new String(buf, offset, length); }
+        @Override Binding memberBinding(Object member)                       { return this; }
+        @Override void    addMember    (Object object, Object member, Object x) { ((Node) object).setItem((String) member, (Node) x); }
+    }
+
+    /**
+     * binding of a class by its fields, by name - either set after construction with the class's constructor of no
+     * parameters or, if there is none, given to the constructor of as many parameters as the class has fields and of
+     * the same types, in the same order (as records have)
+     */
+    private static final class ObjectBinding extends Binding {
+
+        private static final class Member {
+
+            final int          index;
+            final Type         type;
+            final Class<?>     raw;
+            final MethodHandle setter;  // (Object, Object) void - or of the primitive type, if a primitive - or null if given to the constructor
+            final Object       absent;  // value if not in the object, if given to the constructor
+            volatile Binding   binding; // resolved as first needed, as types may be recursive
+
+            Member(int index, Field field, MethodHandle setter) {
+                this.index  = index;
+                this.type   = field.getGenericType();
+                this.raw    = field.getType();
+                this.setter = setter;
+                this.absent = raw.isPrimitive()? Array.get(Array.newInstance(raw, 1), 0): null;
+            }
+            Binding binding() {
+                Binding b = binding;
+                if (b == null) {
+                    binding = b = of(type);
+                }
+                return b;
+            }
+        }
+
+        private final MethodHandle     constructor; // () Object, or (Object[]) Object if given the fields
+        private final Member[]         members;
+        private final KeyTable<Member> table;
+
+        ObjectBinding(Class<?> type) {
+            super(type.getName());
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                List<Field> declared = new ArrayList<>();
+                for (Field f: c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers()) && !Modifier.isTransient(f.getModifiers()) && !f.isSynthetic()) {
+                        declared.add(f);
+                    }
+                }
+                fields.addAll(0, declared);
+            }
+            try {
+                Constructor<?> noParameters = null;
+                Constructor<?> ofFields     = null;
+                for (Constructor<?> c: type.getDeclaredConstructors()) {
+                    Class<?>[] parameters = c.getParameterTypes();
+                    if (parameters.length == 0) {
+                        noParameters = c;
+                    }
+                    else if (parameters.length == fields.size()) {
+                        boolean matches = true;
+                        for (int k = 0; k < parameters.length; k++) {
+                            matches &= parameters[k] == fields.get(k).getType();
+                        }
+                        if (matches) {
+                            ofFields = c;
+                        }
+                    }
+                }
+                if (noParameters == null && ofFields == null) throw new RuntimeException("cannot bind to type "+type.getName()+" - without a constructor of no parameters, nor of its fields");
+                Constructor<?> c = noParameters != null? noParameters: ofFields;
+                c.setAccessible(true);
+                MethodHandle mh = lookup.unreflectConstructor(c);
+                this.constructor = noParameters != null? mh.asType(MethodType.methodType(Object.class)):
+                                                         mh.asSpreader(Object[].class, fields.size()).asType(MethodType.methodType(Object.class, Object[].class));
+                this.members     = new Member[fields.size()];
+                Map<String, Member> byName = new HashMap<>();
+                for (int k = 0; k < members.length; k++) {
+                    Field        f      = fields.get(k);
+                    MethodHandle setter = null;
+                    if (noParameters != null) {
+                        f.setAccessible(true);
+                        Class<?> t = f.getType();
+                        setter = lookup.unreflectSetter(f).asType(MethodType.methodType(void.class, Object.class, t.isPrimitive()? t: Object.class));
+                    }
+                    members[k] = new Member(k, f, setter);
+                    byName.put(f.getName(), members[k]);
+                }
+                this.table = new KeyTable<>(byName);
+            }
+            catch (IllegalAccessException ex) {
+                throw new RuntimeException("cannot bind to type "+type.getName(), ex);
+            }
+        }
+
+        private boolean settable() {
+            return constructor.type().parameterCount() == 0;
+        }
+
+        @Override Object  startObject() {
+            if (settable()) {
+                try {
+                    return (Object) constructor.invokeExact();
+                }
+                catch (Throwable t) {
+                    throw rethrow(t);
+                }
+            }
+            Object[] arguments = new Object[members.length];
+            for (Member m: members) {
+                arguments[m.index] = m.absent;
+            }
+            return arguments;
+        }
+        @Override Object  member       (char[] buf, int offset, int length) {
+            return table.get(buf, offset, length);
+        }
+        @Override Binding memberBinding(Object member) {
+            return ((Member) member).binding();
+        }
+        @Override void    addMember    (Object object, Object member, Object x) {
+            Member m = (Member) member;
+            if (m.setter == null) {
+                ((Object[]) object)[m.index] = x;
+                return;
+            }
+            try {
+                if (!m.raw.isPrimitive()) {
+                    m.setter.invokeExact(object, x);
+                }
+                else if (x == null) {
+                    throw mismatch("null");
+                }
+                else if (m.raw == boolean.class) { m.setter.invokeExact(object, (boolean) (Boolean) x); }
+                else if (m.raw == float.class)   { m.setter.invokeExact(object, (float) (Float) x); }
+                else if (m.raw == double.class)  { m.setter.invokeExact(object, (double) (Double) x); }
+                else if (m.raw == long.class)    { m.setter.invokeExact(object, (long) (Long) x); }
+                else if (m.raw == int.class)     { m.setter.invokeExact(object, (int) (Integer) x); }
+                else if (m.raw == short.class)   { m.setter.invokeExact(object, (short) (Short) x); }
+                else                             { m.setter.invokeExact(object, (byte) (Byte) x); }
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+        @Override void    addMember    (Object object, Object member, char[] buf, int offset, int length) {
+            Member m = (Member) member;
+            if (m.setter == null || !m.raw.isPrimitive()) {
+                addMember(object, member, m.binding().ofNumber(buf, offset, length));
+                return;
+            }
+            try /* unboxed */ {
+                if      (m.raw == double.class) { m.setter.invokeExact(object, Numbers.parseDouble(buf, offset, length)); }
+                else if (m.raw == float.class)  { m.setter.invokeExact(object, (float) Numbers.parseDouble(buf, offset, length)); }
+                else if (m.raw == long.class)   { m.setter.invokeExact(object, ((IntegerBinding) m.binding()).parse(buf, offset, length)); }
+                else if (m.raw == int.class)    { m.setter.invokeExact(object, (int)   ((IntegerBinding) m.binding()).parse(buf, offset, length)); }
+                else if (m.raw == short.class)  { m.setter.invokeExact(object, (short) ((IntegerBinding) m.binding()).parse(buf, offset, length)); }
+                else if (m.raw == byte.class)   { m.setter.invokeExact(object, (byte)  ((IntegerBinding) m.binding()).parse(buf, offset, length)); }
+                else throw m.binding().mismatch("a number");
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+        @Override void    addMember    (Object object, Object member, boolean x) {
+            Member m = (Member) member;
+            if (m.setter == null || m.raw != boolean.class) {
+                addMember(object, member, m.binding().ofBoolean(x));
+                return;
+            }
+            try /* unboxed */ {
+                m.setter.invokeExact(object, x);
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+        @Override Object  end          (Object object) {
+            if (settable()) {
+                return object;
+            }
+            try {
+                return (Object) constructor.invokeExact((Object[]) object);
+            }
+            catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+}
@@ -1,82 +1,236 @@
 package jl95.json;
 
-import java.util.LinkedList;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * A helping abstract class to quickly develop "builders" on top of the stream-parser.
  * This is useful if you just want to load the entire JSON serial into an equivalent Java object in memory.
+ * <p>A builder keeps no state of its own between builds, so it may be shared between threads.</p>
  * @param <N> object type to build - expected to be able to represent any JSON element / value
  */
 public abstract class Builder<N> {
 
     private final BuildMethods<N> b;
-    private       String          repr;
-    private       LinkedList<N>   stack;
-    private       N               root;
-    private       String          entryKey;
-
-    private void handleValue(N x, Boolean isArrayOrObject) {
-        if (root == null) {
-            root = x;
-        }
-        else /* if we have a root already, the stack is guaranteed not to be empty */ {
-            N parent = stack.getLast();
-            if (entryKey == null) {
-                b.addToArray(parent, x);
-            } else {
-                b.addToObject(parent, entryKey, x);
-                entryKey = null;
-            }
+    private final StringCache     keyCache;
+    private final StringCache     valueCache;
+    private final ParseLimits     limits;
+
+    protected Builder() {
+        this(null, null);
+    }
+
+    /**
+     * @param keyCache   cache through which to canonicalize the keys of objects - or null, not to
+     * @param valueCache cache through which to canonicalize (short) strings - or null, not to
+     */
+    protected Builder(StringCache keyCache, StringCache valueCache) {
+        this(keyCache, valueCache, ParseLimits.NONE);
+    }
+
+    /**
+     * @param limits limits to what a build takes on - with which, as builds are as deep as parses, the stack of
+     *               arrays and objects being built is bounded as well
+     * @see #Builder(StringCache, StringCache)
+     */
+    protected Builder(StringCache keyCache, StringCache valueCache, ParseLimits limits) {
+        this.b          = getBuildMethods();
+        this.keyCache   = keyCache;
+        this.valueCache = valueCache;
+        this.limits     = limits;
+    }
+
+    /**
+     * build with a parser from the pool - such that a builder may build on any number of threads at once, with
+     * nothing of its own to keep
+     * @param each  consumer of every document built, if parsing multiple documents - or null, for a single one
+     * @param parse parse to run, given the parser and the handlers with which to build
+     * @return what was built, if a single document
+     */
+    private N build(Consumer<N> each, BiConsumer<StreamParser, StreamParser.SpanHandlers> parse) {
+
+        ParseMetrics metrics = ParseMetrics.installed;
+        long         started = metrics != null? System.nanoTime(): 0;
+        Run          run     = new Run(each);
+        StreamParser parser  = StreamParser.acquire().multipleDocuments(each != null).limits(limits);
+        try {
+            parse.accept(parser, run);
         }
-        if (isArrayOrObject) {
-            stack.add(x);
+        finally {
+            parser.release();
+            if (metrics != null) {
+                metrics.built(System.nanoTime() - started);
+            }
         }
+        return run.root;
     }
 
-    protected Builder() {
-        this.b = getBuildMethods();
+    protected N _build(String repr) {
+
+        return build(null, (parser, handlers) -> parser.parse(repr, handlers));
     }
 
-    protected N _build(String repr) {
+    protected N _build(Reader reader) {
 
-        this.repr = repr;
-        stack     = new LinkedList<>();
-        root      = null;
-        entryKey  = null;
-        new StreamParser().parse(repr, new StreamParser.Handlers() {
+        return build(null, (parser, handlers) -> parser.parse(reader, handlers));
+    }
 
-            @Override public void handleNull        () {
-                handleValue(b.getNull(), false);
-            }
-            @Override public void handleNumber      (String nRepr) {
-                handleValue(b.getNumber(nRepr), false);
-            }
-            @Override public void handleString      (String s) {
-                handleValue(b.getString(s), false);
-            }
-            @Override public void handleTrue        () {
-                handleValue(b.getTrue(), false);
-            }
-            @Override public void handleFalse       () {
-                handleValue(b.getFalse(), false);
-            }
-            @Override public void handleArrayStart  () {
-                handleValue(b.getArray(), true);
-            }
-            @Override public void handleArrayEnd    () {
-                stack.removeLast();
-            }
-            @Override public void handleObjectStart () {
-                handleValue(b.getObject(), true);
+    protected N _build(byte[] utf8) {
+
+        return build(null, (parser, handlers) -> parser.parse(utf8, handlers));
+    }
+
+    protected N _build(ByteBuffer utf8) {
+
+        return build(null, (parser, handlers) -> parser.parse(utf8, handlers));
+    }
+
+    /**
+     * build the elements of an array, given as a range of a serial between the array's brackets, into an array
+     */
+    N              _buildElements(String repr, int from, int to) {
+
+        return build(null, (parser, handlers) -> parser.parseElements(repr, from, to, handlers));
+    }
+
+    /**
+     * build every document of a serial of multiple documents, as they are parsed
+     * @see StreamParser#multipleDocuments(boolean)
+     */
+    protected void _buildEach(String repr, Consumer<N> each) {
+
+        build(each, (parser, handlers) -> parser.parse(repr, handlers));
+    }
+
+    /**
+     * @see #_buildEach(String, Consumer)
+     */
+    void           _buildEach(String repr, int from, int to, Consumer<N> each) {
+
+        build(each, (parser, handlers) -> parser.parse(repr, from, to, handlers));
+    }
+
+    /**
+     * @see #_buildEach(String, Consumer)
+     */
+    protected void _buildEach(Reader reader, Consumer<N> each) {
+
+        build(each, (parser, handlers) -> parser.parse(reader, handlers));
+    }
+
+    /**
+     * @see #_buildEach(String, Consumer)
+     */
+    protected void _buildEach(byte[] utf8, Consumer<N> each) {
+
+        build(each, (parser, handlers) -> parser.parse(utf8, handlers));
+    }
+
+    /**
+     * @see #_buildEach(String, Consumer)
+     */
+    protected void _buildEach(ByteBuffer utf8, Consumer<N> each) {
+
+        build(each, (parser, handlers) -> parser.parse(utf8, handlers));
+    }
+
+    /**
+     * @param from position (in characters) of the serial in a larger one, of which it is a part
+     * @see #_buildEach(String, Consumer)
+     */
+    void           _buildEach(ByteBuffer utf8, long from, Consumer<N> each) {
+
+        build(each, (parser, handlers) -> parser.parse(utf8, from, handlers));
+    }
+
+    /**
+     * @param each consumer of every (top-level) value built, at its {@link StreamParser.SpanHandlers#handleDocumentEnd() end}
+     * @return handlers with which to build
+     */
+    StreamParser.SpanHandlers handlers(Consumer<N> each) {
+
+        return new Run(each);
+    }
+
+    /**
+     * handlers with which to build - and the state of a build, of its own, such that builds do not interfere
+     */
+    private final class Run implements StreamParser.SpanHandlers {
+
+        private final Consumer<N> each;
+        private       Object[]    stack = new Object[16]; // arrays and objects being built
+        private       int         depth = 0;
+        private       N           root;
+        private       String      entryKey;
+
+        Run(Consumer<N> each) {
+            this.each = each;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void handleValue(N x, boolean isArrayOrObject) {
+            if (root == null) {
+                root = x;
             }
-            @Override public void handleObjectEnd   () {
-                stack.removeLast();
+            else /* if we have a root already, the stack is guaranteed not to be empty */ {
+                N parent = (N) stack[depth - 1];
+                if (entryKey == null) {
+                    b.addToArray(parent, x);
+                } else {
+                    b.addToObject(parent, entryKey, x);
+                    entryKey = null;
+                }
             }
-            @Override public void handleObjectKey   (String k) {
-                entryKey = k;
+            if (isArrayOrObject) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * depth);
+                }
+                stack[depth++] = x;
             }
-        });
-        return root;
+        }
+        private void close() {
+            stack[--depth] = null;
+        }
+
+        @Override public void handleNull        () {
+            handleValue(b.getNull(), false);
+        }
+        @Override public void handleNumber      (char[] buf, int offset, int length) {
+            handleValue(b.getNumber(buf, offset, length), false);
+        }
+        @Override public void handleString      (char[] buf, int offset, int length) {
+            handleValue(valueCache == null? b.getString(buf, offset, length): b.getString(valueCache.get(buf, offset, length)), false);
+        }
+        @Override public void handleTrue        () {
+            handleValue(b.getTrue(), false);
+        }
+        @Override public void handleFalse       () {
+            handleValue(b.getFalse(), false);
+        }
+        @Override public void handleArrayStart  () {
+            handleValue(b.getArray(), true);
+        }
+        @Override public void handleArrayEnd    () {
+            close();
+        }
+        @Override public void handleObjectStart () {
+            handleValue(b.getObject(), true);
+        }
+        @Override public void handleObjectEnd   () {
+            close();
+        }
+        @Override public void handleObjectKey   (char[] buf, int offset, int length) {
+            entryKey = keyCache == null? b.getKey(buf, offset, length): keyCache.get(buf, offset, length);
+        }
+        @Override public void handleDocumentEnd () {
+            N document = root;
+            root = null;
+            each.accept(document);
+        }
     }
 
     /**
@@ -107,10 +261,53 @@ public abstract class Builder<N> {
          * @return equivalent object of a JSON <b>number</b>
          */
         N getNumber(String numberRepr);
+        /**
+         * as {@link #getNumber(String)}, but given the number's representation as a span of characters - to be
+         * overridden if the representation can be read without building a string
+         * @return equivalent object of a JSON <b>number</b>
+         */
+        default N getNumber(char[] buf, int offset, int length) {
+            return getNumber(new String(buf, offset, length));
+        }
+        /**
+         * @return equivalent object of a JSON <b>number</b> that is an integer within range of a long
+         * @see Numbers#build(char[], int, int, BuildMethods)
+         */
+        default N getLong(long x) {
+            return getNumber(Long.toString(x));
+        }
+        /**
+         * @return equivalent object of a JSON <b>number</b> that is an integer out of range of a long
+         * @see Numbers#build(char[], int, int, BuildMethods)
+         */
+        default N getBigInteger(BigInteger x) {
+            return getNumber(x.toString());
+        }
+        /**
+         * @return equivalent object of a JSON <b>number</b> that is not an integer
+         * @see Numbers#build(char[], int, int, BuildMethods)
+         */
+        default N getDouble(double x) {
+            return getNumber(Double.toString(x));
+        }
         /**
          * @return equivalent object of a JSON <b>string</b>
          */
         N getString(String s);
+        /**
+         * as {@link #getString(String)}, but given the string as a span of characters
+         * @return equivalent object of a JSON <b>string</b>
+         */
+        default N getString(char[] buf, int offset, int length) {
+            return getString(new String(buf, offset, length));
+        }
+        /**
+         * @return key of a JSON object's entry, given as a span of characters, as it is to be passed to
+         * {@link #addToObject(Object, String, Object)}
+         */
+        default String getKey(char[] buf, int offset, int length) {
+            return new String(buf, offset, length);
+        }
         /**
          * @return equivalent object of a JSON <b>array</b> (list)
          */
@@ -0,0 +1,177 @@
+package jl95.json;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A push-parser - as opposed to the {@link StreamParser stream-parser}, which it runs a chunk at a time: rather than
+ * reading a serial whole, it is given the serial in chunks, as they come - e.g. from a non-blocking channel - and
+ * calls back handlers as soon as tokens are complete.
+ * <p>A chunk may end anywhere - in the middle of a string, an escaping, a number or a word, or, of bytes, in the
+ * middle of a multi-byte UTF-8 sequence. What is left of it is kept, and parsing goes on from there with the next
+ * chunk. Feeding never blocks, nor waits for more input: it parses what it is given, and returns.</p>
+ * <p>Memory is as when parsing from a reader - it depends on the nesting depth and on the longest token, rather than
+ * on the size of the serial. A push-parser is for a single serial, and for one thread at a time - e.g. fed by the
+ * thread that reads the channel, whatever that thread is at each chunk.</p>
+ */
+public final class FeedParser {
+
+    private final StreamParser              parser = new StreamParser();
+    private final StreamParser.SpanHandlers handlers;
+    private       Utf8Decoder               decoder;
+    private       byte[]                    chunk;   // of a buffer that is not on the heap, copied bit by bit
+    private       boolean                   begun;
+    private       boolean                   ended;
+    private       boolean                   failed;
+    private       boolean                   feeding;
+
+    private FeedParser(StreamParser.SpanHandlers handlers) {
+        this.handlers = handlers;
+    }
+
+    /**
+     * @return push-parser that calls back the given handlers
+     */
+    public static FeedParser of(StreamParser.Handlers handlers) {
+        return new FeedParser(StreamParser.spanHandlersOf(handlers));
+    }
+    /**
+     * @return push-parser that calls back the given span handlers - spans being valid, as ever, only for the
+     * duration of the call
+     */
+    public static FeedParser of(StreamParser.SpanHandlers handlers) {
+        return new FeedParser(handlers);
+    }
+
+    private void notBegun() {
+        if (begun) throw new IllegalStateException("already fed");
+    }
+    /**
+     * set whether to parse multiple documents - e.g. newline-delimited JSON, as it streams in - before feeding
+     * @return this push-parser
+     * @see StreamParser#multipleDocuments(boolean)
+     */
+    public FeedParser multipleDocuments(boolean multiple) {
+        notBegun();
+        parser.multipleDocuments(multiple);
+        return this;
+    }
+    /**
+     * set limits to what the parse takes on, before feeding - by default, none
+     * @return this push-parser
+     * @see ParseLimits
+     */
+    public FeedParser limits(ParseLimits limits) {
+        notBegun();
+        parser.limits(limits);
+        return this;
+    }
+
+    /**
+     * begin a step of the parse - which, unless it is ended as {@link #succeeded()}, leaves the parse failed
+     */
+    private void enter() {
+        if (feeding) throw new IllegalStateException("fed from a handler of its own");
+        if (failed)  throw new IllegalStateException("failed already");
+        if (ended)   throw new IllegalStateException("input ended already");
+        if (!begun) {
+            parser.beginFeeding(handlers);
+            begun = true;
+        }
+        feeding = true;
+        failed  = true;
+    }
+    private void succeeded() {
+        failed = false;
+    }
+
+    /**
+     * parse on, with a chunk of the serial, encoded in UTF-8 - all the bytes remaining in the buffer, which is left
+     * with none
+     */
+    public void feed(ByteBuffer utf8) {
+        enter();
+        try {
+            if (decoder == null) {
+                decoder = new Utf8Decoder();
+            }
+            if (utf8.hasArray()) {
+                decoder.feed(utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining());
+                parser.feed(decoder);
+                utf8.position(utf8.limit());
+            }
+            else {
+                if (chunk == null) {
+                    chunk = new byte[8192];
+                }
+                while (utf8.hasRemaining()) {
+                    int n = Math.min(chunk.length, utf8.remaining());
+                    utf8.get(chunk, 0, n);
+                    decoder.feed(chunk, 0, n);
+                    parser.feed(decoder);
+                }
+            }
+            succeeded();
+        }
+        finally {
+            feeding = false;
+        }
+    }
+    /**
+     * parse on, with a chunk of the serial, as characters - which are copied, such that the array may be reused as
+     * soon as this returns
+     */
+    public void feed(char[] chars, int offset, int length) {
+        enter();
+        try {
+            if (decoder != null && decoder.isPending()) throw new IllegalStateException("characters fed in the middle of a UTF-8 sequence");
+            parser.feed(chars, offset, length);
+            succeeded();
+        }
+        finally {
+            feeding = false;
+        }
+    }
+    /**
+     * @see #feed(char[], int, int)
+     */
+    public void feed(char[] chars) {
+        feed(chars, 0, chars.length);
+    }
+    /**
+     * end the serial - handling what was left of it, e.g. a number at the end of it, and checking that it is
+     * complete
+     */
+    public void endOfInput() {
+        enter();
+        try {
+            parser.endFeeding(decoder != null && decoder.isPending());
+            ended = true;
+            succeeded();
+        }
+        finally {
+            feeding = false;
+        }
+    }
+
+    /**
+     * to be called from a handler
+     * @see StreamParser#skipNextValue()
+     */
+    public void skipNextValue() {
+        parser.skipNextValue();
+    }
+    /**
+     * to be called from a handler: stop parsing - what else is fed is let go of, unread
+     * @see StreamParser#stop()
+     */
+    public void stop() {
+        parser.stop();
+    }
+    /**
+     * to be called from a handler
+     * @see StreamParser#skipRest()
+     */
+    public void skipRest() {
+        parser.skipRest();
+    }
+}
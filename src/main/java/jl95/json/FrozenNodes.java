@@ -0,0 +1,144 @@
+package jl95.json;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * The payloads of frozen LIST and MAP nodes - unmodifiable, of frozen nodes only, with their hash codes and
+ * digests worked out once, at freezing.
+ * <p>A digest is a 64-bit structural hash, of better spread than {@link Node#hashCode()} - which is bound to the
+ * hash codes of {@link java.util.List} and {@link Map}. Nodes of different digests are surely different; nodes of
+ * equal digests are, but for a collision (at odds of about 1 in 2<sup>64</sup>), equal.</p>
+ */
+final class FrozenNodes {
+
+    private FrozenNodes() {}
+
+    /**
+     * payload of a LIST or MAP node that cannot be modified - frozen or {@link PersistentNodes persistent} - and
+     * so may keep its digest
+     */
+    interface Digested {
+        long digest();
+    }
+
+    /**
+     * @return digest of a node - worked out on the spot, unless kept by its frozen payload
+     */
+    static long digest(Node x) {
+        switch (x.type()) {
+            case NULL  : return mix(0x9e3779b97f4a7c15L);
+            case LONG  : return mix(1 + 31 * mix(x.longValue()));
+            case DOUBLE: return mix(2 + 31 * mix(Double.doubleToLongBits(x.doubleValue())));
+            case BOOL  : return mix(x.booleanValue()? 3: 4);
+            case STRING: return mix(5 + 31 * digest(x.asString()));
+            case LIST  : return x.asList() instanceof Digested? ((Digested) x.asList()).digest(): listDigest(x.asList());
+            case MAP   : return x.asMap () instanceof Digested? ((Digested) x.asMap ()).digest(): mapDigest (x.asMap ());
+            default    : throw new AssertionError("not switching through all cases of type");
+        }
+    }
+    private static long digest(String s) {
+        long h = s.length();
+        for (int k = 0; k < s.length(); k++) {
+            h = 0x100000001b3L * (h ^ s.charAt(k));
+        }
+        return mix(h);
+    }
+    static long listDigest(Iterable<Node> elements) {
+        long h = 6;
+        for (Node x: elements) {
+            h = mix(31 * h + digest(x));
+        }
+        return h;
+    }
+    static long mapDigest(Map<String, Node> entries) {
+        long h = 7;
+        for (Map.Entry<String, Node> e: entries.entrySet()) /* in no particular order - so summed */ {
+            h += mix(digest(e.getKey()) + 31 * digest(e.getValue()));
+        }
+        return mix(h);
+    }
+    /**
+     * the finalizer of MurmurHash3, as to spread every bit of the input over all of the output
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * elements of a frozen LIST node
+     */
+    static final class Elements extends AbstractList<Node> implements RandomAccess, Digested {
+
+        private final Node[] elements;
+        private final int    hash;
+        private final long   digest;
+
+        /**
+         * @param elements frozen nodes - kept, as is
+         */
+        Elements(Node[] elements) {
+            int h = 1;
+            for (Node x: elements) {
+                h = 31 * h + x.hashCode();
+            }
+            this.elements = elements;
+            this.hash     = h;
+            this.digest   = listDigest(this);
+        }
+
+        @Override public Node    get     (int i)    { return elements[i]; }
+        @Override public int     size    ()         { return elements.length; }
+        @Override public int     hashCode()         { return hash; }
+        @Override public long    digest  ()         { return digest; }
+        @Override public boolean equals  (Object o) {
+            if (o instanceof Digested && ((Digested) o).digest() != digest) {
+                return false;
+            }
+            return super.equals(o);
+        }
+    }
+
+    /**
+     * entries of a frozen MAP node
+     */
+    static final class Entries extends AbstractMap<String, Node> implements Digested {
+
+        private final Map<String, Node>             entries;
+        private final Set<Map.Entry<String, Node>>  entrySet;
+        private final int                           hash;
+        private final long                          digest;
+
+        /**
+         * @param entries entries of frozen nodes - kept, as is, so not to be modified
+         */
+        Entries(Map<String, Node> entries) {
+            this.entries  = entries;
+            this.entrySet = Collections.unmodifiableMap(entries).entrySet();
+            this.hash     = entries.hashCode();
+            this.digest   = mapDigest(entries);
+        }
+
+        @Override public Set<Map.Entry<String, Node>> entrySet() { return entrySet; }
+        @Override public Node    get        (Object k) { return entries.get(k); }
+        @Override public boolean containsKey(Object k) { return entries.containsKey(k); }
+        @Override public int     size       ()         { return entries.size(); }
+        @Override public int     hashCode   ()         { return hash; }
+        @Override public long    digest     ()         { return digest; }
+        @Override public boolean equals     (Object o) {
+            if (o instanceof Digested && ((Digested) o).digest() != digest) {
+                return false;
+            }
+            return super.equals(o);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package jl95.json;
+
+/**
+ * A lazy alternative to {@link Node}, for reading few values out of large serials: parsing only records the
+ * structure of the serial, in one pass - see {@link Tape} - and values are decoded only when navigated to, with
+ * {@link #get(Integer)} and {@link #getItem(String)} as with nodes, or materialized as nodes with {@link #toNode()}.
+ * <p>A lazy node is immutable, as far as can be told, and so are the serial and its structure, which all the lazy
+ * nodes of a serial share. A node of a LIST does keep a cursor, of the element last gotten - but only as a cache,
+ * of cursors that are immutable themselves: published to other threads without synchronization, as it is, at worst
+ * a thread gets an older cursor, or none, and walks to an element from further back.</p>
+ */
+public final class LazyNode {
+
+    private final Tape   tape;
+    private final int    index;
+    private       Cursor cursor; // of the element last gotten, if a LIST - racy, as a cache of immutable cursors
+
+    /**
+     * an element of a LIST and its entry - with final fields, such that a cursor may be shared between threads as is
+     */
+    private static final class Cursor {
+
+        final int index;
+        final int entry;
+
+        Cursor(int index, int entry) {
+            this.index = index;
+            this.entry = entry;
+        }
+    }
+
+    private LazyNode(Tape tape, int index) {
+        this.tape  = tape;
+        this.index = index;
+    }
+
+    /**
+     * @param serial JSON serial
+     * @return lazy node of the serial's value
+     */
+    public static LazyNode parse(String serial) {
+        return new LazyNode(Tape.of(serial.toCharArray()), 0);
+    }
+
+    public Node.Type type     () {
+        switch (tape.type(index)) {
+            case Tape.NULL          : return Node.Type.NULL;
+            case Tape.TRUE          :
+            case Tape.FALSE         : return Node.Type.BOOL;
+            case Tape.NUMBER        : return tape.fitsLong(index)? Node.Type.LONG: Node.Type.DOUBLE;
+            case Tape.STRING        :
+            case Tape.STRING_ESCAPED: return Node.Type.STRING;
+            case Tape.ARRAY         : return Node.Type.LIST;
+            default                 : return Node.Type.MAP;
+        }
+    }
+    public Long      asLong   () { return tape.type(index) == Tape.NUMBER? toNode().asLong  (): null; }
+    public Double    asDouble () { return tape.type(index) == Tape.NUMBER? toNode().asDouble(): null; }
+    public Boolean   asBoolean() {
+        switch (tape.type(index)) {
+            case Tape.TRUE : return true;
+            case Tape.FALSE: return false;
+            default        : return null;
+        }
+    }
+    public String    asString () { return type() == Node.Type.STRING? tape.string(index): null; }
+    /**
+     * @return number of elements of a LIST node, or of entries of a MAP node
+     */
+    public int       size     () {
+        if (tape.type(index) != Tape.ARRAY && tape.type(index) != Tape.OBJECT) throw new RuntimeException("not a LIST or MAP node, but a "+type()+" node");
+        return tape.size(index);
+    }
+    /**
+     * @return node of the i-th element of a LIST node - in constant time if after the last gotten, as when getting
+     * every element in order
+     */
+    public LazyNode  get      (Integer i) {
+        check(Tape.ARRAY);
+        Cursor from  = cursor;
+        int    entry = from != null && from.index <= i? tape.element(index, i, from.index, from.entry): tape.element(index, i);
+        cursor = new Cursor(i, entry);
+        return new LazyNode(tape, entry);
+    }
+    public LazyNode  getItem  (String  i) {
+        check(Tape.OBJECT);
+        int k = tape.value(index, i);
+        return k < 0? null: new LazyNode(tape, k);
+    }
+    public LazyNode  getItem  (Integer i) { return getItem(i.toString()); }
+    public LazyNode  getItem  (Long    i) { return getItem(i.toString()); }
+    /**
+     * @return node of this value - and, if a LIST or MAP, of everything in it
+     */
+    public Node      toNode   () { return tape.node(index); }
+
+    private void check(int containerType) {
+
+        if (tape.type(index) != containerType) throw new RuntimeException("not a "+(containerType == Tape.ARRAY? Node.Type.LIST: Node.Type.MAP)+" node, but a "+type()+" node");
+    }
+
+    @Override public String toString() {
+
+        return String.format("LazyNode(%s)", toNode().asObject());
+    }
+}
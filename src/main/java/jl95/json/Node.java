@@ -9,31 +9,36 @@ public class Node {
         NULL, LONG, DOUBLE, BOOL, STRING, LIST, MAP
     }
     
-    // All attributes are public because Drools. (Don't ask.)
-    public Type              _type = Type.NULL;
-    public Long              _int  = null;
-    public Double            _float= null;
-    public Boolean           _bool = null;
-    public String            _str  = null;
-    public List<Node>        _list = null;
-    public Map<String, Node> _map  = null;
+    // Scalars are kept unboxed in _bits - a LONG as is, a DOUBLE as its long bits, a BOOL as 0 / 1 - and anything
+    // else in _payload. (All attributes used to be public because Drools - for that, see NodeBean.)
+    private final Type   _type;
+    private final long   _bits;
+    private final Object _payload;
     
-    private static Node _Node  (Type _t) {
+    private static final Node NULL  = new Node(Type.NULL, 0, null);
+    private static final Node TRUE  = new Node(Type.BOOL, 1, null);
+    private static final Node FALSE = new Node(Type.BOOL, 0, null);
+    
+    private Node(Type _type, long _bits, Object _payload) {
         
-        Node a = new Node();
-        a._type = _t;
-        return a;
+        this._type    = _type;
+        this._bits    = _bits;
+        this._payload = _payload;
     }
             
-    public static Node Null  ()             { return _Node(Type.NULL); }
-    public static Node Long  (Long       x) { Node a = _Node(Type.LONG);  a._int  = x; return a; }
-    public static Node Long  (Integer    x) { return Long(x.longValue()); }
-    public static Node Long  (Short      x) { return Long(x.longValue()); }
-    public static Node Long  (Byte       x) { return Long(x.longValue()); }
-    public static Node Double(Double     x) { Node a = _Node(Type.DOUBLE);  a._float  = x; return a; }
-    public static Node Double(Float      x) { return Double(x.doubleValue()); }
-    public static Node Bool  (Boolean    x) { Node  a = _Node(Type.BOOL); a._bool = x; return a; }
-    public static Node String(String     x) { Node  a = _Node(Type.STRING);  a._str  = x; return a; }
+    // of a boxed number or boolean, null gives a NULL node - the object of which, as of the null, is null
+    public static Node Null  ()             { return NULL; }
+    public static Node Long  (long       x) { return new Node(Type.LONG, x, null); }
+    public static Node Long  (Long       x) { return x == null? NULL: Long(x.longValue()); }
+    public static Node Long  (Integer    x) { return x == null? NULL: Long(x.longValue()); }
+    public static Node Long  (Short      x) { return x == null? NULL: Long(x.longValue()); }
+    public static Node Long  (Byte       x) { return x == null? NULL: Long(x.longValue()); }
+    public static Node Double(double     x) { return new Node(Type.DOUBLE, Double.doubleToLongBits(x), null); }
+    public static Node Double(Double     x) { return x == null? NULL: Double(x.doubleValue()); }
+    public static Node Double(Float      x) { return x == null? NULL: Double(x.doubleValue()); }
+    public static Node Bool  (boolean    x) { return x? TRUE: FALSE; }
+    public static Node Bool  (Boolean    x) { return x == null? NULL: Bool(x.booleanValue()); }
+    public static Node String(String     x) { return new Node(Type.STRING, 0, x); }
     public static Node String(Long       x) { return String(Long   .toString(x)); }
     public static Node String(Integer    x) { return String(Integer.toString(x)); }
     public static Node String(Short      x) { return String(Short  .toString(x)); }
@@ -41,19 +46,33 @@ public class Node {
     public static Node String(Double     x) { return String(Double .toString(x)); }
     public static Node String(Float      x) { return String(Float  .toString(x)); }
     public static Node List  ()             { return Node.List(new ArrayList<>()); }
-    public static Node List  (List<Node> x) { Node a = _Node(Type.LIST); a._list = x; return a; }
+    public static Node List  (List<Node> x) { return new Node(Type.LIST, 0, x); }
     public static Node Map   ()             { return Node.Map (new HashMap<>()); }
-    public static Node Map   (Map<String, Node> x) { Node a = _Node(Type.MAP);  a._map  = x; return a; }
+    public static Node Map   (Map<String, Node> x) { return new Node(Type.MAP, 0, x); }
     
-    public Node() {}
+    public Node() { this(Type.NULL, 0, null); }
     
     public Type              type     () { return _type; }
-    public Long              asLong   () { return _int; }
-    public Double            asDouble () { return _float; }
-    public Boolean           asBoolean() { return _bool; }
-    public String            asString () { return _str; }
-    public List<Node>        asList   () { return _list; }
-    public Map<String, Node> asMap    () { return _map; }
+    public Long              asLong   () { return _type == Type.LONG  ? _bits                         : null; }
+    public Double            asDouble () { return _type == Type.DOUBLE? Double.longBitsToDouble(_bits): null; }
+    public Boolean           asBoolean() { return _type == Type.BOOL  ? _bits != 0                    : null; }
+    public String            asString () { return _type == Type.STRING? (String) _payload             : null; }
+    @SuppressWarnings("unchecked")
+    public List<Node>        asList   () { return _type == Type.LIST  ? (List<Node>) _payload         : null; }
+    @SuppressWarnings("unchecked")
+    public Map<String, Node> asMap    () { return _type == Type.MAP   ? (Map<String, Node>) _payload  : null; }
+    /**
+     * @return value of a LONG node, unboxed
+     */
+    public long              longValue   () { check(Type.LONG);   return _bits; }
+    /**
+     * @return value of a DOUBLE node, unboxed
+     */
+    public double            doubleValue () { check(Type.DOUBLE); return Double.longBitsToDouble(_bits); }
+    /**
+     * @return value of a BOOL node, unboxed
+     */
+    public boolean           booleanValue() { check(Type.BOOL);   return _bits != 0; }
     public Object            asObject () {
         
         switch (type()) {
@@ -68,27 +87,27 @@ public class Node {
             default   : throw new AssertionError("not switching through all cases of type");
         }
     }
-    public Node              get    (Integer i)         { return _list.get(i); }
-    public void              set    (Integer i, Node x) { _list.set(i, x); }
-    public void              add    (Node    x)         { _list.add   (x); }
-    public Node              getItem(String  i)         { return _map .get(i); }
+    public Node              get    (Integer i)         { return asList().get(i); }
+    public void              set    (Integer i, Node x) { asList().set(i, x); }
+    public void              add    (Node    x)         { asList().add   (x); }
+    public Node              getItem(String  i)         { return asMap ().get(i); }
     public Node              getItem(Integer i)         { return getItem(i.toString()); }
     public Node              getItem(Long    i)         { return getItem(i.toString()); }
-    public void              setItem(String  i, Node x) { _map .put(i, x); }
+    public void              setItem(String  i, Node x) { asMap ().put(i, x); }
     public void              setItem(Integer i, Node x) { setItem (i.toString(), x); }
     public void              setItem(Long    i, Node x) { setItem (i.toString(), x); }
+    /**
+     * @return a node of the same list / map as this - shared, not copied, so modifying either modifies both
+     * @see #deepCopy()
+     * @see #persistent()
+     */
     public Node              copy    () {
         
         switch (type()) {
             
-            case NULL  : return Null  ();
-            case LONG  : return Long  (asLong  ());
-            case DOUBLE: return Double(asDouble());
-            case BOOL  : return Bool  (asBoolean());
-            case STRING: return String(asString());
             case LIST  : return List  (asList  ());
             case MAP   : return Map   (asMap   ());
-            default: throw new AssertionError("not switching through all cases of type");
+            default: return this; // scalars are immutable
         }
     }
     public Node              deepCopy() {
@@ -117,6 +136,135 @@ public class Node {
         }
     }
     
+    /**
+     * @return a frozen copy of this node - or itself, if a scalar or frozen already
+     * <p>A frozen LIST or MAP node, and everything in it, cannot be modified: its elements / entries are frozen as
+     * well, and the list / map of them is unmodifiable. In return, its hash code is worked out once, at freezing,
+     * and comparing it with another frozen node of a different hash stops at the start. Subtrees already frozen are
+     * shared, rather than copied.</p>
+     */
+    public Node              freeze  () {
+        
+        if (isFrozen()) {
+            
+            return this;
+        }
+        if (type() == Type.LIST) {
+            
+            Node[] elements = new Node[asList().size()];
+            int    i        = 0;
+            for (Node x: asList()) {
+                
+                elements[i++] = x.freeze();
+            }
+            return new Node(Type.LIST, 0, new FrozenNodes.Elements(elements));
+        }
+        else {
+            
+            Map<String,Node> m = new java.util.HashMap<>((int) (asMap().size() / 0.75) + 1);
+            for (Map.Entry<String,Node> x: asMap().entrySet()) {
+                
+                m.put(x.getKey(), x.getValue().freeze());
+            }
+            return new Node(Type.MAP, 0, new FrozenNodes.Entries(m));
+        }
+    }
+    /**
+     * @return whether this node cannot be modified - i.e. is a scalar, or a {@link #freeze() frozen} LIST or MAP
+     */
+    public boolean           isFrozen() {
+        
+        return (_type != Type.LIST && _type != Type.MAP) || _payload instanceof FrozenNodes.Digested;
+    }
+    /**
+     * @return a persistent copy of this node - or itself, if a scalar or persistent already
+     * <p>A persistent LIST or MAP node, and every LIST and MAP in it, cannot be modified, as if {@link #freeze()
+     * frozen}, but is updated with {@link #with(Integer, Node)}, {@link #plus(Node)}, {@link #withItem(String, Node)}
+     * and {@link #withoutItem(String)} into new versions of itself - which share all but the path to what is updated,
+     * such that an update is O(log n), and the old version stays as it was. A persistent node is a snapshot of
+     * itself, that may be shared between threads, each updating it into versions of its own.</p>
+     */
+    public Node              persistent  () {
+        
+        switch (type()) {
+            
+            case LIST:
+                
+                if (_payload instanceof PersistentNodes.Vector) {
+                    
+                    return this;
+                }
+                PersistentNodes.Vector v = PersistentNodes.Vector.EMPTY;
+                for (Node x: asList()) {
+                    
+                    v = v.plus(x.persistent());
+                }
+                return new Node(Type.LIST, 0, v);
+                
+            case MAP :
+                
+                if (_payload instanceof PersistentNodes.Trie) {
+                    
+                    return this;
+                }
+                PersistentNodes.Trie t = PersistentNodes.Trie.EMPTY;
+                for (Map.Entry<String,Node> x: asMap().entrySet()) {
+                    
+                    t = t.with(x.getKey(), x.getValue().persistent());
+                }
+                return new Node(Type.MAP, 0, t);
+                
+            default: return this;
+        }
+    }
+    /**
+     * @return whether this node is {@link #persistent() persistent} - i.e. is a scalar, or a persistent LIST or MAP
+     */
+    public boolean           isPersistent() {
+        
+        return (_type != Type.LIST && _type != Type.MAP) || _payload instanceof PersistentNodes.Vector || _payload instanceof PersistentNodes.Trie;
+    }
+    /**
+     * @return version of this persistent LIST node with the element at an index set - to a persistent copy of x
+     */
+    public Node              with        (Integer i, Node x) { return new Node(Type.LIST, 0, vector().with(i, x.persistent())); }
+    /**
+     * @return version of this persistent LIST node with a persistent copy of x appended
+     */
+    public Node              plus        (Node    x)         { return new Node(Type.LIST, 0, vector().plus(x.persistent())); }
+    /**
+     * @return version of this persistent MAP node with a key mapped to a persistent copy of x
+     */
+    public Node              withItem    (String  i, Node x) { return version(trie().with(i, x.persistent())); }
+    /**
+     * @return version of this persistent MAP node without a key
+     */
+    public Node              withoutItem (String  i)         { return version(trie().without(i)); }
+    private Node             version     (PersistentNodes.Trie t) { return t == _payload? this: new Node(Type.MAP, 0, t); }
+    private PersistentNodes.Vector vector() {
+        
+        if (!(_payload instanceof PersistentNodes.Vector)) throw new RuntimeException("not a persistent LIST node, but a "+(isPersistent()? "": "non-persistent ")+_type+" node");
+        return (PersistentNodes.Vector) _payload;
+    }
+    private PersistentNodes.Trie   trie  () {
+        
+        if (!(_payload instanceof PersistentNodes.Trie))   throw new RuntimeException("not a persistent MAP node, but a "+(isPersistent()? "": "non-persistent ")+_type+" node");
+        return (PersistentNodes.Trie) _payload;
+    }
+    /**
+     * @return structural digest of this node - kept, if frozen
+     * @see FrozenNodes
+     */
+    long                     digest  () {
+        
+        return FrozenNodes.digest(this);
+    }
+    
+    private void check(Type t) {
+        
+        if (_type != t) throw new RuntimeException("not a "+t+" node, but a "+_type+" node");
+    }
+    
     @Override public String  toString() {
         
         return String.format("Node(%s)", asObject());
@@ -128,9 +276,10 @@ public class Node {
             return false;
         Node node = (Node) o;
         return type() == node.type() &&
-               Objects.equals(asObject(), node.asObject());
+               _bits  == node._bits  &&
+               Objects.equals(_payload, node._payload);
     }
     @Override public int     hashCode() {
-        return Objects.hash(type(), asObject());
+        return 31 * (31 * _type.ordinal() + Long.hashCode(_bits)) + Objects.hashCode(_payload);
     }
 }
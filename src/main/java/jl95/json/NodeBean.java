@@ -0,0 +1,73 @@
+package jl95.json;
+
+import java.util.*;
+
+/**
+ * A {@link Node} as a bean with public, mutable fields - for frameworks that want those (Drools, don't ask).
+ * Beans are converted from and into nodes deeply, i.e. the elements of lists and maps are converted too.
+ */
+public class NodeBean {
+
+    public Node.Type             _type = Node.Type.NULL;
+    public Long                  _int  = null;
+    public Double                _float= null;
+    public Boolean               _bool = null;
+    public String                _str  = null;
+    public List<NodeBean>        _list = null;
+    public Map<String, NodeBean> _map  = null;
+
+    public NodeBean() {}
+
+    public static NodeBean of(Node node) {
+
+        NodeBean b = new NodeBean();
+        b._type = node.type();
+        switch (node.type()) {
+
+            case NULL  : break;
+            case LONG  : b._int   = node.asLong   (); break;
+            case DOUBLE: b._float = node.asDouble (); break;
+            case BOOL  : b._bool  = node.asBoolean(); break;
+            case STRING: b._str   = node.asString (); break;
+            case LIST  :
+                b._list = new ArrayList<>(node.asList().size());
+                for (Node x: node.asList()) {
+                    b._list.add(of(x));
+                }
+                break;
+            case MAP   :
+                b._map = new HashMap<>(node.asMap().size());
+                for (Map.Entry<String, Node> e: node.asMap().entrySet()) {
+                    b._map.put(e.getKey(), of(e.getValue()));
+                }
+                break;
+            default: throw new AssertionError("not switching through all cases of type");
+        }
+        return b;
+    }
+
+    public Node toNode() {
+
+        switch (_type) {
+
+            case NULL  : return Node.Null  ();
+            case LONG  : return Node.Long  (_int);
+            case DOUBLE: return Node.Double(_float);
+            case BOOL  : return Node.Bool  (_bool);
+            case STRING: return Node.String(_str);
+            case LIST  :
+                List<Node> l = new ArrayList<>(_list.size());
+                for (NodeBean x: _list) {
+                    l.add(x.toNode());
+                }
+                return Node.List(l);
+            case MAP   :
+                Map<String, Node> m = new HashMap<>(_map.size());
+                for (Map.Entry<String, NodeBean> e: _map.entrySet()) {
+                    m.put(e.getKey(), e.getValue().toNode());
+                }
+                return Node.Map(m);
+            default: throw new AssertionError("not switching through all cases of type");
+        }
+    }
+}
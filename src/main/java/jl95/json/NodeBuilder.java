@@ -1,13 +1,266 @@
 package jl95.json;
 
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
 public class NodeBuilder extends Builder<Node> {
 
+    private static final NodeBuilder shared = new NodeBuilder(); // as builders keep no state between builds
+
     public static Node build(String repr) {
-        return new NodeBuilder()._build(repr);
+        return shared._build(repr);
+    }
+
+    public static Node build(Reader reader) {
+        return shared._build(reader);
+    }
+
+    public static Node build(byte[] utf8) {
+        return shared._build(utf8);
+    }
+
+    public static Node build(ByteBuffer utf8) {
+        return shared._build(utf8);
+    }
+
+    /**
+     * as {@link #build(String)}, in parallel if the serial is of a top-level array: a quick scan splits the array
+     * between its elements into chunks, the elements of which are built as tasks of a fork-join pool and then put
+     * together in order
+     * <p>Errors are reported at the same positions as they would be by {@link #build(String)} - though, with more
+     * than one error, not necessarily the first.</p>
+     */
+    public static Node build(String repr, ForkJoinPool pool) {
+        int[] bounds = Partitions.atArrayElements(repr, 4 * pool.getParallelism());
+        if (bounds == null || bounds.length < 3) /* not an array - or not one worth splitting */ {
+            return build(repr);
+        }
+        List<ForkJoinTask<Node>> tasks = new ArrayList<>(bounds.length - 1);
+        for (int k = 0; k + 1 < bounds.length; k++) {
+            int from = bounds[k] + 1;
+            int to   = bounds[k + 1];
+            tasks.add(pool.submit(() -> shared._buildElements(repr, from, to)));
+        }
+        List<Node> elements = new ArrayList<>();
+        for (ForkJoinTask<Node> task: tasks) {
+            elements.addAll(task.join().asList());
+        }
+        return Node.List(elements);
+    }
+
+    /**
+     * build many serials at once, each as a task of an executor - e.g. of virtual threads, or a fixed pool
+     * <p>The calling thread waits for all of them. If any fails, the error of the first in order to fail is thrown.</p>
+     * @return the nodes, in the order of their serials
+     */
+    public static List<Node> buildAll(List<String> reprs, Executor executor) {
+        return Batches.map(reprs, NodeBuilder::build, executor);
+    }
+
+    /**
+     * as {@link #build(String)}, with repeated keys and strings canonicalized through caches
+     * @param keyCache   cache through which to canonicalize the keys of objects - or null, not to
+     * @param valueCache cache through which to canonicalize (short) strings - or null, not to
+     */
+    public static Node build(String repr, StringCache keyCache, StringCache valueCache) {
+        return new NodeBuilder(keyCache, valueCache)._build(repr);
+    }
+
+    /**
+     * as {@link #build(Reader)}, with repeated keys and strings canonicalized through caches
+     * @see #build(String, StringCache, StringCache)
+     */
+    public static Node build(Reader reader, StringCache keyCache, StringCache valueCache) {
+        return new NodeBuilder(keyCache, valueCache)._build(reader);
+    }
+
+    /**
+     * as {@link #build(byte[])}, with repeated keys and strings canonicalized through caches
+     * @see #build(String, StringCache, StringCache)
+     */
+    public static Node build(byte[] utf8, StringCache keyCache, StringCache valueCache) {
+        return new NodeBuilder(keyCache, valueCache)._build(utf8);
+    }
+
+    /**
+     * as {@link #build(ByteBuffer)}, with repeated keys and strings canonicalized through caches
+     * @see #build(String, StringCache, StringCache)
+     */
+    public static Node build(ByteBuffer utf8, StringCache keyCache, StringCache valueCache) {
+        return new NodeBuilder(keyCache, valueCache)._build(utf8);
+    }
+
+    /**
+     * as {@link #build(String)}, within limits
+     * @throws ParseLimits.ExceededException as soon as a limit is exceeded
+     */
+    public static Node build(String repr, ParseLimits limits) {
+        return new NodeBuilder(null, null, limits)._build(repr);
+    }
+
+    /**
+     * @see #build(String, ParseLimits)
+     */
+    public static Node build(Reader reader, ParseLimits limits) {
+        return new NodeBuilder(null, null, limits)._build(reader);
+    }
+
+    /**
+     * @see #build(String, ParseLimits)
+     */
+    public static Node build(byte[] utf8, ParseLimits limits) {
+        return new NodeBuilder(null, null, limits)._build(utf8);
+    }
+
+    /**
+     * @see #build(String, ParseLimits)
+     */
+    public static Node build(ByteBuffer utf8, ParseLimits limits) {
+        return new NodeBuilder(null, null, limits)._build(utf8);
+    }
+
+    /**
+     * build every document of a serial of multiple documents - e.g. newline-delimited JSON - as they are parsed
+     * @param each consumer of the documents, in order
+     * @see StreamParser#multipleDocuments(boolean)
+     */
+    public static void buildEach(String repr, Consumer<Node> each) {
+        shared._buildEach(repr, each);
+    }
+
+    /**
+     * @see #buildEach(String, Consumer)
+     */
+    public static void buildEach(Reader reader, Consumer<Node> each) {
+        shared._buildEach(reader, each);
+    }
+
+    /**
+     * @see #buildEach(String, Consumer)
+     */
+    public static void buildEach(byte[] utf8, Consumer<Node> each) {
+        shared._buildEach(utf8, each);
+    }
+
+    /**
+     * @see #buildEach(String, Consumer)
+     */
+    public static void buildEach(ByteBuffer utf8, Consumer<Node> each) {
+        shared._buildEach(utf8, each);
+    }
+
+    /**
+     * build every document of newline-delimited JSON in parallel - the serial is split at line boundaries into
+     * chunks, which are built as tasks of a fork-join pool
+     * <p>Every document must be on a single line - documents may not span lines, or be concatenated within one.</p>
+     * @return the documents, in order
+     */
+    public static List<Node> buildEach(String repr, ForkJoinPool pool) {
+        int[] bounds = Partitions.atLines(repr, 4 * pool.getParallelism());
+        List<ForkJoinTask<List<Node>>> tasks = new ArrayList<>(bounds.length - 1);
+        for (int k = 0; k + 1 < bounds.length; k++) {
+            int from = bounds[k];
+            int to   = bounds[k + 1];
+            tasks.add(pool.submit(() -> {
+                List<Node> chunk = new ArrayList<>();
+                shared._buildEach(repr, from, to, chunk::add);
+                return chunk;
+            }));
+        }
+        return joinAll(tasks);
+    }
+
+    /**
+     * as {@link #buildEach(String, ForkJoinPool)}, giving the documents away as they are built rather than in order
+     * @param each consumer of the documents - called concurrently, in no particular order
+     */
+    public static void buildEach(String repr, ForkJoinPool pool, Consumer<Node> each) {
+        int[] bounds = Partitions.atLines(repr, 4 * pool.getParallelism());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(bounds.length - 1);
+        for (int k = 0; k + 1 < bounds.length; k++) {
+            int from = bounds[k];
+            int to   = bounds[k + 1];
+            tasks.add(pool.submit(() -> shared._buildEach(repr, from, to, each)));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * as {@link #buildEach(String, ForkJoinPool)}, for UTF-8 serials
+     */
+    public static List<Node> buildEach(byte[] utf8, ForkJoinPool pool) {
+        int[]  bounds = Partitions.atLines(utf8, 4 * pool.getParallelism());
+        long[] froms  = Partitions.charPositions(utf8, bounds);
+        List<ForkJoinTask<List<Node>>> tasks = new ArrayList<>(bounds.length - 1);
+        for (int k = 0; k + 1 < bounds.length; k++) {
+            ByteBuffer chunkBytes = ByteBuffer.wrap(utf8, bounds[k], bounds[k + 1] - bounds[k]);
+            long       from       = froms[k];
+            tasks.add(pool.submit(() -> {
+                List<Node> chunk = new ArrayList<>();
+                shared._buildEach(chunkBytes, from, chunk::add);
+                return chunk;
+            }));
+        }
+        return joinAll(tasks);
+    }
+
+    /**
+     * as {@link #buildEach(String, ForkJoinPool, Consumer)}, for UTF-8 serials
+     */
+    public static void buildEach(byte[] utf8, ForkJoinPool pool, Consumer<Node> each) {
+        int[]  bounds = Partitions.atLines(utf8, 4 * pool.getParallelism());
+        long[] froms  = Partitions.charPositions(utf8, bounds);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(bounds.length - 1);
+        for (int k = 0; k + 1 < bounds.length; k++) {
+            ByteBuffer chunkBytes = ByteBuffer.wrap(utf8, bounds[k], bounds[k + 1] - bounds[k]);
+            long       from       = froms[k];
+            tasks.add(pool.submit(() -> shared._buildEach(chunkBytes, from, each)));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+    }
+
+    private static List<Node> joinAll(List<ForkJoinTask<List<Node>>> tasks) {
+        List<Node> documents = new ArrayList<>();
+        for (ForkJoinTask<List<Node>> task: tasks) {
+            documents.addAll(task.join());
+        }
+        return documents;
     }
 
     private NodeBuilder() {super();}
 
+    private NodeBuilder(StringCache keyCache, StringCache valueCache) {super(keyCache, valueCache);}
+
+    private NodeBuilder(StringCache keyCache, StringCache valueCache, ParseLimits limits) {super(keyCache, valueCache, limits);}
+
+    /**
+     * @return handlers with which to build nodes, out of the events given to them - each value being passed to a
+     * consumer once its {@link StreamParser.SpanHandlers#handleDocumentEnd() end} is given
+     */
+    static StreamParser.SpanHandlers builderHandlers(Consumer<Node> each) {
+        return shared.handlers(each);
+    }
+
+    /**
+     * @return node of a number, given its representation as a span of characters - a LONG node if an integer within
+     * range of a long, or else a DOUBLE node
+     */
+    static Node number(char[] buf, int offset, int length) {
+        return Numbers.fitsLong(buf, offset, length)? Node.Long  (Numbers.parseLong  (buf, offset, length)):
+                                                      Node.Double(Numbers.parseDouble(buf, offset, length));
+    }
+
     @Override
     protected BuildMethods<Node> getBuildMethods() {
         return new BuildMethods<Node>() {
@@ -25,7 +278,23 @@ public class NodeBuilder extends Builder<Node> {
             }
             @Override
             public Node getNumber(String numberRepr) {
-                return !numberRepr.contains(".")? Node.Long(Long.valueOf(numberRepr)): Node.Double(Double.valueOf(numberRepr));
+                return number(numberRepr.toCharArray(), 0, numberRepr.length());
+            }
+            @Override
+            public Node getNumber(char[] buf, int offset, int length) {
+                return number(buf, offset, length);
+            }
+            @Override
+            public Node getLong(long x) {
+                return Node.Long(x);
+            }
+            @Override
+            public Node getBigInteger(BigInteger x) {
+                return Node.Double(x.doubleValue());
+            }
+            @Override
+            public Node getDouble(double x) {
+                return Node.Double(x);
             }
             @Override
             public Node getString(String s) {
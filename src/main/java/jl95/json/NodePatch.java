@@ -0,0 +1,296 @@
+package jl95.json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Differences between nodes, as JSON Patch (RFC 6902) documents - LIST nodes of operations - and the application of
+ * those to nodes.
+ * <p>A diff is worked out top-down, and stops at subtrees found the same - by reference or, if both
+ * {@link Node#freeze() frozen}, by their kept digests, as to take time in proportion to the differences rather than
+ * to the nodes. Arrays are diffed by trimming the elements in common at either end, then element by element.</p>
+ * <p>A patch is applied to a copy of a node: only the arrays and objects on the way to what is patched are copied,
+ * and the rest is shared. A frozen node is patched into a frozen node.</p>
+ */
+public final class NodePatch {
+
+    private NodePatch() {}
+
+    /**
+     * @return patch that, applied to the source, gives the target - of add, remove and replace operations only
+     */
+    public static Node diff(Node source, Node target) {
+        List<Node> operations = new ArrayList<>();
+        diff(source, target, new StringBuilder(), operations);
+        return Node.List(operations);
+    }
+
+    /**
+     * @param patch    LIST node of operations - add, remove, replace, move, copy and test
+     * @param document node to patch - not modified
+     * @return the document, patched
+     * @throws RuntimeException if an operation is invalid, or cannot be applied - e.g. a test that fails
+     */
+    public static Node apply(Node patch, Node document) {
+        Patching patching = new Patching(document);
+        for (Node operation: patch.asList()) {
+            patching.apply(operation);
+        }
+        boolean frozen = (document.type() == Node.Type.LIST || document.type() == Node.Type.MAP) && document.isFrozen();
+        return frozen? patching.root.freeze(): patching.root;
+    }
+
+    private static boolean same(Node a, Node b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.isFrozen() && b.isFrozen()) {
+            return a.digest() == b.digest();
+        }
+        return a.equals(b);
+    }
+    private static Node    operation(String op, CharSequence path, Node value) {
+        Map<String, Node> m = new LinkedHashMap<>();
+        m.put("op",   Node.String(op));
+        m.put("path", Node.String(path.toString()));
+        if (value != null) {
+            m.put("value", value);
+        }
+        return Node.Map(m);
+    }
+    private static void    appendToken(StringBuilder path, String token) {
+        path.append('/');
+        for (int k = 0; k < token.length(); k++) {
+            char c = token.charAt(k);
+            if      (c == '~') path.append("~0");
+            else if (c == '/') path.append("~1");
+            else               path.append(c);
+        }
+    }
+    private static void    diff(Node a, Node b, StringBuilder path, List<Node> operations) {
+        if (same(a, b)) {
+            return;
+        }
+        if (a.type() != b.type() || (a.type() != Node.Type.LIST && a.type() != Node.Type.MAP)) {
+            operations.add(operation("replace", path, b));
+            return;
+        }
+        int length = path.length();
+        if (a.type() == Node.Type.MAP) {
+            Map<String, Node> am = a.asMap();
+            Map<String, Node> bm = b.asMap();
+            for (Map.Entry<String, Node> e: am.entrySet()) {
+                appendToken(path, e.getKey());
+                Node bx = bm.get(e.getKey());
+                if (bx == null && !bm.containsKey(e.getKey())) {
+                    operations.add(operation("remove", path, null));
+                } else {
+                    diff(e.getValue(), bx, path, operations);
+                }
+                path.setLength(length);
+            }
+            for (Map.Entry<String, Node> e: bm.entrySet()) {
+                if (!am.containsKey(e.getKey())) {
+                    appendToken(path, e.getKey());
+                    operations.add(operation("add", path, e.getValue()));
+                    path.setLength(length);
+                }
+            }
+            return;
+        }
+        List<Node> al = a.asList();
+        List<Node> bl = b.asList();
+        int prefix = 0;
+        while (prefix < al.size() && prefix < bl.size() && same(al.get(prefix), bl.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < al.size() - prefix && suffix < bl.size() - prefix && same(al.get(al.size() - 1 - suffix), bl.get(bl.size() - 1 - suffix))) {
+            suffix++;
+        }
+        int an = al.size() - prefix - suffix;
+        int bn = bl.size() - prefix - suffix;
+        for (int k = 0; k < Math.min(an, bn); k++) {
+            path.append('/').append(prefix + k);
+            diff(al.get(prefix + k), bl.get(prefix + k), path, operations);
+            path.setLength(length);
+        }
+        for (int k = bn; k < an; k++) /* removed - one after another, at the same index */ {
+            path.append('/').append(prefix + bn);
+            operations.add(operation("remove", path, null));
+            path.setLength(length);
+        }
+        for (int k = an; k < bn; k++) {
+            path.append('/').append(prefix + k);
+            operations.add(operation("add", path, bl.get(prefix + k)));
+            path.setLength(length);
+        }
+    }
+
+    /**
+     * a patch being applied - to copies of the arrays and objects on the way, of its own, made as they are reached
+     */
+    private static final class Patching {
+
+        Node            root;
+        final Set<Node> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Patching(Node document) {
+            root = document;
+        }
+
+        private static String       member(Node operation, String name) {
+            Node x = operation.type() == Node.Type.MAP? operation.getItem(name): null;
+            if (x == null || x.type() != Node.Type.STRING) throw new RuntimeException("invalid patch operation "+operation+" - no "+name);
+            return x.asString();
+        }
+        private static List<String> tokens(String pointer) {
+            if (pointer.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (pointer.charAt(0) != '/') throw new RuntimeException("invalid JSON pointer "+pointer);
+            List<String> tokens = new ArrayList<>();
+            for (String token: pointer.substring(1).split("/", -1)) {
+                tokens.add(token.replace("~1", "/").replace("~0", "~"));
+            }
+            return tokens;
+        }
+        private static int          index(List<Node> list, String token, boolean end, String pointer) {
+            if (end && token.equals("-")) {
+                return list.size();
+            }
+            if (token.isEmpty() || token.length() > 9 || (token.length() > 1 && token.charAt(0) == '0')) throw new RuntimeException("no such index "+token+" at "+pointer);
+            for (int k = 0; k < token.length(); k++) {
+                if (token.charAt(k) < '0' || token.charAt(k) > '9') throw new RuntimeException("no such index "+token+" at "+pointer);
+            }
+            int i = Integer.parseInt(token);
+            if (i > list.size() || (i == list.size() && !end)) throw new RuntimeException("no such index "+token+" at "+pointer);
+            return i;
+        }
+        private static Node         child(Node parent, String token, String pointer) {
+            Node x = null;
+            if      (parent.type() == Node.Type.LIST) x = parent.asList().get(index(parent.asList(), token, false, pointer));
+            else if (parent.type() == Node.Type.MAP)  x = parent.asMap ().get(token);
+            if (x == null && (parent.type() != Node.Type.MAP || !parent.asMap().containsKey(token))) throw new RuntimeException("no such path "+pointer);
+            return x;
+        }
+        /**
+         * @return node at a path - not copied
+         */
+        private Node find(String pointer) {
+            Node x = root;
+            for (String token: tokens(pointer)) {
+                x = child(x, token, pointer);
+            }
+            return x;
+        }
+        /**
+         * @return a copy of an array or object, of our own - or itself, if one already
+         */
+        private Node own(Node x) {
+            if (owned.contains(x)) {
+                return x;
+            }
+            Node copy;
+            if      (x.type() == Node.Type.LIST) copy = Node.List(new ArrayList<>(x.asList()));
+            else if (x.type() == Node.Type.MAP)  copy = Node.Map (new HashMap<>  (x.asMap ()));
+            else throw new RuntimeException("not an array or object to patch into: "+x);
+            owned.add(copy);
+            return copy;
+        }
+        /**
+         * @return parent of what is at a path, of our own - as are all the arrays and objects on the way to it
+         */
+        private Node parent(List<String> tokens, String pointer) {
+            root = own(root);
+            Node x = root;
+            for (String token: tokens.subList(0, tokens.size() - 1)) {
+                Node child = own(child(x, token, pointer));
+                if (x.type() == Node.Type.LIST) x.asList().set(index(x.asList(), token, false, pointer), child);
+                else                            x.asMap ().put(token, child);
+                x = child;
+            }
+            return x;
+        }
+        private void add(String pointer, Node value) {
+            List<String> tokens = tokens(pointer);
+            if (tokens.isEmpty()) {
+                root = value;
+                return;
+            }
+            Node   parent = parent(tokens, pointer);
+            String last   = tokens.get(tokens.size() - 1);
+            if (parent.type() == Node.Type.LIST) parent.asList().add(index(parent.asList(), last, true, pointer), value);
+            else                                 parent.asMap ().put(last, value);
+        }
+        private void replace(String pointer, Node value) {
+            List<String> tokens = tokens(pointer);
+            if (tokens.isEmpty()) {
+                root = value;
+                return;
+            }
+            Node   parent = parent(tokens, pointer);
+            String last   = tokens.get(tokens.size() - 1);
+            child(parent, last, pointer); // as it must exist
+            if (parent.type() == Node.Type.LIST) parent.asList().set(index(parent.asList(), last, false, pointer), value);
+            else                                 parent.asMap ().put(last, value);
+        }
+        private Node remove(String pointer) {
+            List<String> tokens = tokens(pointer);
+            if (tokens.isEmpty()) throw new RuntimeException("cannot remove the whole document");
+            Node   parent = parent(tokens, pointer);
+            String last   = tokens.get(tokens.size() - 1);
+            Node   x      = child(parent, last, pointer);
+            if (parent.type() == Node.Type.LIST) parent.asList().remove(index(parent.asList(), last, false, pointer));
+            else                                 parent.asMap ().remove(last);
+            return x;
+        }
+        private static Node value(Node operation) {
+            Node x = operation.getItem("value");
+            if (x == null) throw new RuntimeException("invalid patch operation "+operation+" - no value");
+            return x;
+        }
+        private static Node valueToPut(Node operation) /* a copy, unless frozen - as the document may be modified later */ {
+            Node x = value(operation);
+            return x.isFrozen()? x: x.deepCopy();
+        }
+
+        void apply(Node operation) {
+            String op   = member(operation, "op");
+            String path = member(operation, "path");
+            switch (op) {
+                case "add":
+                    add(path, valueToPut(operation));
+                    break;
+                case "remove":
+                    remove(path);
+                    break;
+                case "replace":
+                    replace(path, valueToPut(operation));
+                    break;
+                case "move": {
+                    String from = member(operation, "from");
+                    if (path.startsWith(from + "/")) throw new RuntimeException("cannot move "+from+" into itself, to "+path);
+                    add(path, remove(from));
+                    break;
+                }
+                case "copy": {
+                    Node x = find(member(operation, "from"));
+                    add(path, x.isFrozen()? x: x.deepCopy());
+                    break;
+                }
+                case "test":
+                    if (!find(path).equals(value(operation))) throw new RuntimeException("patch test failed at "+path);
+                    break;
+                default:
+                    throw new RuntimeException("invalid patch operation "+op);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package jl95.json;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Serializes {@link Node}s into JSON - the writing counterpart of the {@link NodeBuilder}.
+ */
+public class NodeSerializer {
+
+    /**
+     * @return the JSON serial of a node, written compactly
+     */
+    public static String serialize(Node node) {
+        return serialize(node, false);
+    }
+
+    /**
+     * @param pretty whether to write with new lines and indentation, rather than compactly
+     * @return the JSON serial of a node
+     */
+    public static String serialize(Node node, boolean pretty) {
+        StringBuilder sb = new StringBuilder();
+        StreamWriter  w  = StreamWriter.of(sb, pretty);
+        serialize(node, w);
+        w.flush();
+        return sb.toString();
+    }
+
+    /**
+     * write the JSON serial of a node to a writer, flushing it at the end
+     */
+    public static void serialize(Node node, Writer writer, boolean pretty) {
+        StreamWriter w = StreamWriter.of(writer, pretty);
+        serialize(node, w);
+        w.flush();
+    }
+
+    /**
+     * write the JSON serial of a node to an output stream, in UTF-8, flushing it at the end
+     */
+    public static void serialize(Node node, OutputStream stream, boolean pretty) {
+        StreamWriter w = StreamWriter.of(stream, pretty);
+        serialize(node, w);
+        w.flush();
+    }
+
+    /**
+     * write the JSON serial of a node to a stream-writer - without flushing it
+     */
+    public static void serialize(Node node, StreamWriter w) {
+        switch (node.type()) {
+            case NULL  : w.writeNull   ();                     break;
+            case LONG  : w.writeNumber (node.longValue   ());   break;
+            case DOUBLE: w.writeNumber (node.doubleValue ());   break;
+            case BOOL  : w.writeBoolean(node.booleanValue());   break;
+            case STRING: w.writeString (node.asString());      break;
+            case LIST  :
+                w.writeArrayStart();
+                for (Node x: node.asList()) {
+                    serialize(x, w);
+                }
+                w.writeArrayEnd();
+                break;
+            case MAP   :
+                w.writeObjectStart();
+                for (Map.Entry<String, Node> e: node.asMap().entrySet()) {
+                    w.writeKey(e.getKey());
+                    serialize(e.getValue(), w);
+                }
+                w.writeObjectEnd();
+                break;
+            default: throw new AssertionError("not switching through all cases of type");
+        }
+    }
+
+    private NodeSerializer() {}
+}
@@ -0,0 +1,216 @@
+package jl95.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Decoding of JSON numbers, given as spans of characters - such as given to
+ * {@link StreamParser.SpanHandlers#handleNumber(char[], int, int)} - straight into primitives, without building strings.
+ * <p>Integers within range of a long are decoded exactly, and so are decimals of up to 15 significant digits with
+ * small exponents, which are most; other numbers are decoded by {@link Double#parseDouble(String)} - i.e. correctly
+ * rounded, though not without a string. Numbers are expected to be valid JSON numbers, as the stream-parser gives.</p>
+ */
+public final class Numbers {
+
+    private static final double[] POW10 = {1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+                                           1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final String   LONG_MAX = Long.toString(Long.MAX_VALUE);
+
+    private Numbers() {}
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return position in the buffer at which a number is found not to be a valid JSON number - possibly its end, if
+     * cut short - or -1 if it is valid
+     */
+    static int invalidAt(char[] buf, int offset, int length) {
+        int k    = offset;
+        int stop = offset + length;
+        if (k < stop && buf[k] == '-') {
+            k++;
+        }
+        if (k == stop) {
+            return k;
+        }
+        if (buf[k] == '0') {
+            k++;
+        }
+        else if (isDigit(buf[k])) {
+            while (k < stop && isDigit(buf[k])) k++;
+        }
+        else {
+            return k;
+        }
+        if (k < stop && buf[k] == '.') {
+            int digits = ++k;
+            while (k < stop && isDigit(buf[k])) k++;
+            if (k == digits) {
+                return k;
+            }
+        }
+        if (k < stop && (buf[k] == 'e' || buf[k] == 'E')) {
+            k++;
+            if (k < stop && (buf[k] == '+' || buf[k] == '-')) {
+                k++;
+            }
+            int digits = k;
+            while (k < stop && isDigit(buf[k])) k++;
+            if (k == digits) {
+                return k;
+            }
+        }
+        return k == stop? -1: k;
+    }
+
+    /**
+     * @return whether a number is an integer, as written - i.e. without a fraction or exponent
+     */
+    public static boolean isIntegral(char[] buf, int offset, int length) {
+        for (int k = offset; k < offset + length; k++) {
+            char c = buf[k];
+            if (c == '.' || c == 'e' || c == 'E') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a number is an integer, as written, within range of a long
+     */
+    public static boolean fitsLong(char[] buf, int offset, int length) {
+        if (!isIntegral(buf, offset, length)) {
+            return false;
+        }
+        boolean negative = buf[offset] == '-';
+        int     digits   = negative? length - 1: length;
+        int     first    = negative? offset + 1: offset;
+        if (digits != LONG_MAX.length()) {
+            return digits < LONG_MAX.length();
+        }
+        for (int k = 0; k < digits; k++) {
+            char c   = buf[first + k];
+            char max = (char) (LONG_MAX.charAt(k) + (negative && k == digits - 1? 1: 0)); // as MIN_VALUE is -(MAX_VALUE + 1)
+            if (c != max) {
+                return c < max;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return value of an integer number, within range of a long
+     * @throws NumberFormatException if not an integer, or out of range
+     */
+    public static long    parseLong(char[] buf, int offset, int length) {
+        int     k        = offset;
+        int     stop     = offset + length;
+        boolean negative = k < stop && buf[k] == '-';
+        if (negative) {
+            k++;
+        }
+        if (k == stop) throw new NumberFormatException("not an integer: "+new String(buf, offset, length));
+        long x = 0; // accumulated negatively, as to reach MIN_VALUE
+        for (; k < stop; k++) {
+            char c = buf[k];
+            if (!isDigit(c))                         throw new NumberFormatException("not an integer: "+new String(buf, offset, length));
+            int d = c - '0';
+            if (x < (Long.MIN_VALUE + d) / 10)       throw new NumberFormatException("out of range of a long: "+new String(buf, offset, length));
+            x = 10 * x - d;
+        }
+        if (!negative && x == Long.MIN_VALUE)        throw new NumberFormatException("out of range of a long: "+new String(buf, offset, length));
+        return negative? x: -x;
+    }
+
+    /**
+     * @return value of a number, as a double - the nearest to it
+     */
+    public static double  parseDouble(char[] buf, int offset, int length) {
+        int     k        = offset;
+        int     stop     = offset + length;
+        boolean negative = k < stop && buf[k] == '-';
+        if (negative) {
+            k++;
+        }
+        long    m        = 0;     // significand, of the digits up to the 18th significant one - as to fit a long
+        int     digits   = 0;     // significant digits in m
+        boolean exact    = true;  // whether m has all the significant digits
+        int     exp10    = 0;
+        for (; k < stop && isDigit(buf[k]); k++) {
+            if (digits < 18) {
+                m = 10 * m + (buf[k] - '0');
+                if (m != 0) digits++;
+            } else {
+                exp10++;
+                exact &= buf[k] == '0';
+            }
+        }
+        if (k < stop && buf[k] == '.') {
+            for (k++; k < stop && isDigit(buf[k]); k++) {
+                if (digits < 18) {
+                    m = 10 * m + (buf[k] - '0');
+                    if (m != 0) digits++;
+                    exp10--;
+                } else {
+                    exact &= buf[k] == '0';
+                }
+            }
+        }
+        if (k < stop && (buf[k] == 'e' || buf[k] == 'E')) {
+            k++;
+            boolean negativeExp = k < stop && buf[k] == '-';
+            if (k < stop && (buf[k] == '+' || buf[k] == '-')) {
+                k++;
+            }
+            int e = 0;
+            for (; k < stop && isDigit(buf[k]); k++) {
+                if (e < 100000) e = 10 * e + (buf[k] - '0');
+            }
+            exp10 += negativeExp? -e: e;
+        }
+        if (k == stop && exact) /* a well-formed number of which we have all the digits */ {
+            if (m == 0) {
+                return negative? -0.0: 0.0;
+            }
+            if (m <= (1L << 53) && exp10 >= -22 && exp10 <= 22) /* both exact as doubles - so their product or quotient is correctly rounded */ {
+                double x = exp10 >= 0? m * POW10[exp10]: m / POW10[-exp10];
+                return negative? -x: x;
+            }
+        }
+        return Double.parseDouble(new String(buf, offset, length));
+    }
+
+    /**
+     * @return value of an integer number, as a big integer
+     * @throws ArithmeticException if not an integer
+     */
+    public static BigInteger parseBigInteger(char[] buf, int offset, int length) {
+        return fitsLong(buf, offset, length)? BigInteger.valueOf(parseLong(buf, offset, length)): new BigDecimal(buf, offset, length).toBigIntegerExact();
+    }
+
+    /**
+     * @return value of a number, exactly, as a big decimal
+     */
+    public static BigDecimal parseBigDecimal(char[] buf, int offset, int length) {
+        return new BigDecimal(buf, offset, length);
+    }
+
+    /**
+     * build a number with the methods for primitives of a builder: integers within range of a long with
+     * {@link Builder.BuildMethods#getLong(long)}, other integers with {@link Builder.BuildMethods#getBigInteger(BigInteger)},
+     * and other numbers with {@link Builder.BuildMethods#getDouble(double)}
+     * - e.g. as an implementation of {@link Builder.BuildMethods#getNumber(char[], int, int)}
+     */
+    public static <N> N build(char[] buf, int offset, int length, Builder.BuildMethods<N> b) {
+        if (fitsLong(buf, offset, length)) {
+            return b.getLong(parseLong(buf, offset, length));
+        }
+        if (isIntegral(buf, offset, length)) {
+            return b.getBigInteger(parseBigInteger(buf, offset, length));
+        }
+        return b.getDouble(parseDouble(buf, offset, length));
+    }
+}
@@ -0,0 +1,383 @@
+package jl95.json;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A random-access index of the elements of a large UTF-8 JSON file - e.g. of one big array of records, or an object
+ * of them - such that any one element may be built without parsing the file up to it.
+ * <p>The index is {@link #write(Path, int, Path) written} once, to a sidecar file, by a pass of the stream-parser
+ * over the file, in which the elements are skipped rather than built: for every element, in order, it keeps its
+ * offset in the file, in bytes, and its length. Then, an index {@link #open(Path, Path) opened}, an element is got by
+ * seeking to its entry in the index, then memory-mapping the element's bytes, and building them.</p>
+ * <p>The sidecar file is a header - the bytes {@code 'J' 'X'}, the format's version (1), a byte of flags (none, as
+ * of yet), the depth of the elements (an int) and the size and last-modified time of the file indexed (longs) - then
+ * an entry per element: its offset (a long) and length (an int). All numbers are big-endian.</p>
+ * <p>Keys are not in the index - the key of an element of an object is read from the file, just before the element.
+ * What is skipped, while indexing, is not checked for being valid JSON - an element is checked only as it is built.
+ * </p>
+ */
+public final class OffsetIndex implements Closeable {
+
+    static final byte VERSION     = 1;
+    static final int  HEADER_SIZE = 24;
+    static final int  ENTRY_SIZE  = 12;
+
+    private static final int MAP_WINDOW = 1 << 26;
+
+    private final FileChannel                   source;
+    private final FileChannel                   index;
+    private final int                           depth;
+    private final int                           size;
+    private volatile Map<String, Integer>       keys; // to the last element of each key - read at the first lookup by key
+
+    private OffsetIndex(FileChannel source, long modified, FileChannel index) throws IOException {
+        this.source = source;
+        this.index  = index;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(index, header, 0);
+        header.flip();
+        if (header.get() != 'J' || header.get() != 'X') throw new RuntimeException("not an offset index");
+        byte version = header.get();
+        if (version != VERSION)                          throw new RuntimeException("unknown offset index version "+version);
+        header.get(); // flags
+        depth = header.getInt();
+        long sourceSize     = header.getLong();
+        long sourceModified = header.getLong();
+        if (sourceSize != source.size() || (index.size() - HEADER_SIZE) % ENTRY_SIZE != 0) throw new RuntimeException("offset index not of the file");
+        size = (int) ((index.size() - HEADER_SIZE) / ENTRY_SIZE);
+        if (sourceModified != modified) throw new RuntimeException("offset index out of date - the file was modified since");
+    }
+
+    /**
+     * write an index of the elements of the top-level array or object of a file
+     * @see #write(Path, int, Path)
+     */
+    public static void        write(Path file, Path index) {
+        write(file, 1, index);
+    }
+
+    /**
+     * write an index of the elements at a depth of a file - e.g. at depth 1, of the elements of the top-level array
+     * or object, or at depth 2, of the elements of the arrays and objects in that - in the order they are in the file
+     * @param file  UTF-8 JSON file to index
+     * @param depth depth of the elements to index - at least 1
+     * @param index sidecar file to write the index to - replaced, if it exists
+     */
+    public static void        write(Path file, int depth, Path index) {
+        if (depth < 1) throw new IllegalArgumentException("depth "+depth+" - must be at least 1");
+        try (FileChannel      channel = FileChannel.open(file, StandardOpenOption.READ);
+             DataOutputStream out     = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index), 1 << 16))) {
+            out.writeByte('J');
+            out.writeByte('X');
+            out.writeByte(VERSION);
+            out.writeByte(0);
+            out.writeInt (depth);
+            out.writeLong(channel.size());
+            out.writeLong(Files.getLastModifiedTime(file).toMillis());
+            Indexing indexing = new Indexing(channel, depth, out);
+            try {
+                indexing.parser.parse(channel, 0, channel.size(), indexing);
+            }
+            finally {
+                indexing.parser.release();
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @param file  file indexed
+     * @param index sidecar file of its index
+     * @return index, to get elements of the file by - to be closed after
+     * @throws RuntimeException if the index is not of the file, as it is - e.g. written before the file was modified
+     */
+    public static OffsetIndex open(Path file, Path index) {
+        FileChannel source  = null;
+        FileChannel channel = null;
+        try {
+            source  = FileChannel.open(file,  StandardOpenOption.READ);
+            channel = FileChannel.open(index, StandardOpenOption.READ);
+            return new OffsetIndex(source, Files.getLastModifiedTime(file).toMillis(), channel);
+        }
+        catch (IOException ex) {
+            closeQuietly(source);
+            closeQuietly(channel);
+            throw new UncheckedIOException(ex);
+        }
+        catch (RuntimeException ex) {
+            closeQuietly(source);
+            closeQuietly(channel);
+            throw ex;
+        }
+    }
+
+    /**
+     * @return number of elements
+     */
+    public int    size() {
+        return size;
+    }
+
+    /**
+     * @return depth of the elements indexed
+     */
+    public int    depth() {
+        return depth;
+    }
+
+    /**
+     * @return element n, built
+     */
+    public Node   get(int n) {
+        long[] entry = entry(n);
+        try {
+            MappedByteBuffer bytes = source.map(FileChannel.MapMode.READ_ONLY, entry[0], entry[1]);
+            return NodeBuilder.build(bytes);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return key of element n, if of an object - else, of an array, null
+     */
+    public String key(int n) {
+        try {
+            return key(entry(n)[0]);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * get an element of an object by its key - of repeated keys (in the same object or, if indexed at a depth of
+     * more than 1, in different ones), the last counts
+     * <p>At the first lookup by key, every key is read - then, lookups are by a hash table.</p>
+     * @return element, built - or null, if of no element
+     */
+    public Node   get(String key) {
+        Integer n = keys().get(key);
+        return n != null? get(n): null;
+    }
+
+    @Override
+    public void   close() {
+        try {
+            source.close();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        finally {
+            closeQuietly(index);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        }
+        catch (IOException ex) {
+            /* pass */
+        }
+    }
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new RuntimeException("file cut short, at position "+position);
+            position += n;
+        }
+    }
+
+    /**
+     * @return offset and length of element n
+     */
+    private long[] entry(int n) {
+        if (n < 0 || n >= size) throw new IndexOutOfBoundsException("no element "+n+" of "+size);
+        try {
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            readFully(index, entry, HEADER_SIZE + (long) ENTRY_SIZE * n);
+            entry.flip();
+            return new long[] {entry.getLong(), entry.getInt()};
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    /**
+     * read the key before an element - going back from it over whitespace, the colon and the key's closing quote, to
+     * its opening quote - which, in UTF-8, is never confused with a byte of a multi-byte sequence
+     */
+    private String key(long offset) throws IOException {
+        for (int window = 64;; window *= 2) {
+            long       from  = Math.max(0, offset - window);
+            ByteBuffer bytes = ByteBuffer.allocate((int) (offset - from));
+            readFully(source, bytes, from);
+            Node       key   = key(bytes.array(), from == 0);
+            if (key != null) {
+                return key.type() == Node.Type.STRING? key.asString(): null;
+            }
+            if (from == 0) throw new RuntimeException("no key before the element at offset "+offset);
+        }
+    }
+    /**
+     * @param b     bytes just before an element
+     * @param whole whether they are from the start of the file - else, a key may not be whole in them
+     * @return key before the element - or a null node, if none (as of an array), or null, if not found in the bytes
+     * given
+     */
+    private static Node key(byte[] b, boolean whole) {
+        int k = b.length - 1;
+        while (k >= 0 && isWhitespace(b[k])) k--;
+        if (k < 0) {
+            return whole? Node.Null(): null;
+        }
+        if (b[k] != ':') /* after a comma, or an array's opening bracket */ {
+            return Node.Null();
+        }
+        for (k--; k >= 0 && isWhitespace(b[k]); k--) {/* pass */}
+        int close = k;
+        for (k--; k >= 0; k--) {
+            if (b[k] != '"') {
+                continue;
+            }
+            int backslashes = 0;
+            while (k - 1 - backslashes >= 0 && b[k - 1 - backslashes] == '\\') {
+                backslashes++;
+            }
+            if (k - 1 - backslashes < 0 && !whole) /* the backslashes may go on, before the bytes given */ {
+                return null;
+            }
+            if (backslashes % 2 == 0) {
+                return NodeBuilder.build(ByteBuffer.wrap(b, k, close + 1 - k));
+            }
+        }
+        return null;
+    }
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+    private Map<String, Integer> keys() {
+        Map<String, Integer> keys = this.keys;
+        if (keys == null) {
+            keys = new HashMap<>();
+            for (int n = 0; n < size; n++) {
+                String key = key(n);
+                if (key != null) {
+                    keys.put(key, n);
+                }
+            }
+            this.keys = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * positions in a UTF-8 file, in bytes, of positions in characters - as decoded into UTF-16, as the stream-parser
+     * counts them - asked for in order, so worked out by a single pass over the file
+     */
+    private static final class Positions {
+
+        private final FileChannel channel;
+        private       ByteBuffer  window = ByteBuffer.allocate(0);
+        private       long        windowStart;
+        private       long        chars;
+        private       long        bytes;
+
+        Positions(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long of(long position) throws IOException {
+            while (chars < position) {
+                int at = (int) (bytes - windowStart);
+                if (at >= window.limit()) {
+                    windowStart = bytes;
+                    window      = channel.map(FileChannel.MapMode.READ_ONLY, bytes, Math.min(MAP_WINDOW, channel.size() - bytes));
+                    at          = 0;
+                }
+                byte b = window.get(at);
+                if      (b >= 0)              { chars += 1; bytes += 1; }
+                else if ((b & 0xE0) == 0xC0)  { chars += 1; bytes += 2; }
+                else if ((b & 0xF0) == 0xE0)  { chars += 1; bytes += 3; }
+                else                          { chars += 2; bytes += 4; } // a surrogate pair
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * a pass over the file - in which every element at the depth is skipped, as the stream-parser then tells where
+     * it starts and ends
+     */
+    private static final class Indexing implements StreamParser.SpanHandlers {
+
+        final StreamParser     parser = StreamParser.acquire();
+        final Positions        positions;
+        final int              depth;
+        final DataOutputStream out;
+        int                    level;
+        boolean                array;  // whether the elements are of an array - else, of an object
+
+        Indexing(FileChannel channel, int depth, DataOutputStream out) {
+            this.positions = new Positions(channel);
+            this.depth     = depth;
+            this.out       = out;
+        }
+
+        private void opened() {
+            if (++level == depth && array) /* else, elements are skipped at their keys */ {
+                parser.skipNextValue();
+            }
+        }
+
+        @Override public void handleNull       () {}
+        @Override public void handleNumber     (char[] buf, int offset, int length) {}
+        @Override public void handleString     (char[] buf, int offset, int length) {}
+        @Override public void handleTrue       () {}
+        @Override public void handleFalse      () {}
+        @Override public void handleArrayStart () { array = true;  opened(); }
+        @Override public void handleArrayEnd   () { level--; }
+        @Override public void handleObjectStart() { array = false; opened(); }
+        @Override public void handleObjectEnd  () { level--; }
+        @Override public void handleObjectKey  (char[] buf, int offset, int length) {
+            if (level == depth) {
+                parser.skipNextValue();
+            }
+        }
+        @Override public void handleSkipped    () {
+            try {
+                long start = positions.of(parser.tokenStart());
+                long end   = positions.of(parser.tokenEnd  ());
+                if (end - start > Integer.MAX_VALUE) throw new RuntimeException("element at offset "+start+" too large to index");
+                out.writeLong(start);
+                out.writeInt ((int) (end - start));
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if (array) {
+                parser.skipNextValue();
+            }
+        }
+    }
+}
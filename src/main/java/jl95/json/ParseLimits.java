@@ -0,0 +1,109 @@
+package jl95.json;
+
+/**
+ * Limits to what a parse takes on - as to bound the time and memory that a serial, hostile or broken, may take
+ * up: on the depth of arrays and objects, the lengths of strings, keys and numbers, the length of the whole input
+ * and the number of entries of any array or object.
+ * <p>Limits are immutable - each method of a limit gives limits like these but for that one. A limit exceeded fails
+ * the parse as soon as it is, with an {@link ExceededException} at the position of the first character beyond it -
+ * or, for entries, of the separator before the first entry beyond it. Lengths are in characters, as in the serial -
+ * i.e. of strings and keys, with escapings unresolved.</p>
+ * <p>Limits are checked where parsing is slow anyway - as buffers grow, or as tokens end - so they cost next to
+ * nothing.</p>
+ */
+public final class ParseLimits {
+
+    /**
+     * no limits
+     */
+    public static final ParseLimits NONE = new ParseLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                                                           Integer.MAX_VALUE, Long.MAX_VALUE,    Integer.MAX_VALUE);
+
+    /**
+     * a limit exceeded
+     */
+    public static class ExceededException extends StreamParser.ParseException {
+
+        private static final long serialVersionUID = 1L;
+
+        ExceededException(String message, long position) {
+            super(message, position);
+        }
+    }
+
+    private final int  maxDepth;
+    private final int  maxStringLength;
+    private final int  maxKeyLength;
+    private final int  maxNumberLength;
+    private final long maxInputLength;
+    private final int  maxEntries;
+
+    private ParseLimits(int maxDepth, int maxStringLength, int maxKeyLength, int maxNumberLength, long maxInputLength, int maxEntries) {
+        this.maxDepth        = maxDepth;
+        this.maxStringLength = maxStringLength;
+        this.maxKeyLength    = maxKeyLength;
+        this.maxNumberLength = maxNumberLength;
+        this.maxInputLength  = maxInputLength;
+        this.maxEntries      = maxEntries;
+    }
+
+    // every limit is given by a method of its name, the parameter of which, in place of the field, is the one changed
+    private static void atLeast(long min, long x, String what) {
+        if (x < min) throw new IllegalArgumentException(what+" "+x+" - must be at least "+min);
+    }
+
+    /**
+     * @param maxDepth greatest depth of arrays and objects - e.g. 1, for no arrays or objects but the top-level one
+     */
+    public ParseLimits maxDepth       (int  maxDepth) {
+        atLeast(0, maxDepth, "max depth");
+        return new ParseLimits(maxDepth, maxStringLength, maxKeyLength, maxNumberLength, maxInputLength, maxEntries);
+    }
+    /**
+     * @param maxStringLength greatest length of a string - not of a key
+     */
+    public ParseLimits maxStringLength(int  maxStringLength) {
+        atLeast(0, maxStringLength, "max string length");
+        return new ParseLimits(maxDepth, maxStringLength, maxKeyLength, maxNumberLength, maxInputLength, maxEntries);
+    }
+    /**
+     * @param maxKeyLength greatest length of a key of an object
+     */
+    public ParseLimits maxKeyLength   (int  maxKeyLength) {
+        atLeast(0, maxKeyLength, "max key length");
+        return new ParseLimits(maxDepth, maxStringLength, maxKeyLength, maxNumberLength, maxInputLength, maxEntries);
+    }
+    /**
+     * @param maxNumberLength greatest length of a number - e.g. 3, for {@code -42}
+     */
+    public ParseLimits maxNumberLength(int  maxNumberLength) {
+        atLeast(1, maxNumberLength, "max number length");
+        return new ParseLimits(maxDepth, maxStringLength, maxKeyLength, maxNumberLength, maxInputLength, maxEntries);
+    }
+    /**
+     * @param maxInputLength greatest length of the whole input - of all the documents in it, if of many
+     */
+    public ParseLimits maxInputLength (long maxInputLength) {
+        atLeast(0, maxInputLength, "max input length");
+        return new ParseLimits(maxDepth, maxStringLength, maxKeyLength, maxNumberLength, maxInputLength, maxEntries);
+    }
+    /**
+     * @param maxEntries greatest number of elements of an array, or entries of an object
+     */
+    public ParseLimits maxEntries     (int  maxEntries) {
+        atLeast(1, maxEntries, "max entries");
+        return new ParseLimits(maxDepth, maxStringLength, maxKeyLength, maxNumberLength, maxInputLength, maxEntries);
+    }
+
+    public int  maxDepth       () { return maxDepth; }
+    public int  maxStringLength() { return maxStringLength; }
+    public int  maxKeyLength   () { return maxKeyLength; }
+    public int  maxNumberLength() { return maxNumberLength; }
+    public long maxInputLength () { return maxInputLength; }
+    public int  maxEntries     () { return maxEntries; }
+
+    @Override public String toString() {
+        return "maxDepth="+maxDepth+" maxStringLength="+maxStringLength+" maxKeyLength="+maxKeyLength+
+               " maxNumberLength="+maxNumberLength+" maxInputLength="+maxInputLength+" maxEntries="+maxEntries;
+    }
+}
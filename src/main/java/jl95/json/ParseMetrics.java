@@ -0,0 +1,405 @@
+package jl95.json;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of parsing and building - of every parse and build, once {@link #install(ParseMetrics) installed}: the
+ * characters scanned, the tokens of every type, the greatest depth, the escapings resolved and the times taken.
+ * <p>Metrics are off unless installed - and then cost nothing but a check, per parse and per build. Installed, a
+ * parse counts its tokens on its own, through a decorator of its handlers, and adds the counts up into the metrics
+ * as it ends - into striped counters, such that parses on any number of threads at once do not contend. Times are
+ * kept in histograms of logarithmic buckets, as to tell their percentiles within about 25%.</p>
+ * <p>The metrics may be pulled as a {@link #snapshot()}, or exposed through JMX, as {@link #register() registered}
+ * with the platform's MBean server. The time of a build is that of the parse under it too - so, of the two, the
+ * difference is the time taken by building.</p>
+ * <p>A parse fed in chunks, to a {@link FeedParser push-parser}, counts once it ends or fails - and its time is that
+ * taken by parsing the chunks, not by waiting for them.</p>
+ */
+public final class ParseMetrics implements ParseMetricsMBean {
+
+    /**
+     * the default name under which to register metrics
+     */
+    public static final String OBJECT_NAME = "jl95.json:type=ParseMetrics";
+
+    static volatile ParseMetrics installed;
+
+    private final LongAdder       parses        = new LongAdder();
+    private final LongAdder       failedParses  = new LongAdder();
+    private final LongAdder       chars         = new LongAdder();
+    private final LongAdder       nulls         = new LongAdder();
+    private final LongAdder       booleans      = new LongAdder();
+    private final LongAdder       numbers       = new LongAdder();
+    private final LongAdder       strings       = new LongAdder();
+    private final LongAdder       keys          = new LongAdder();
+    private final LongAdder       arrays        = new LongAdder();
+    private final LongAdder       objects       = new LongAdder();
+    private final LongAdder       skipped       = new LongAdder();
+    private final LongAdder       escapes       = new LongAdder();
+    private final LongAdder       escapedChars  = new LongAdder();
+    private final LongAccumulator maxDepth      = new LongAccumulator(Math::max, 0);
+    private final Histogram       parseNanos    = new Histogram();
+    private final Histogram       buildNanos    = new Histogram();
+
+    /**
+     * install metrics, for every parse and build from then on to count in - in place of those installed before, if
+     * any
+     * @param metrics metrics to install - or null, to turn metrics off
+     */
+    public static void         install(ParseMetrics metrics) {
+        installed = metrics;
+    }
+
+    /**
+     * @return metrics installed - or null, if none
+     */
+    public static ParseMetrics installed() {
+        return installed;
+    }
+
+    /**
+     * register these metrics with the platform's MBean server, under the {@link #OBJECT_NAME default name}
+     * @return name registered under
+     */
+    public ObjectName register() {
+        return register(OBJECT_NAME);
+    }
+
+    /**
+     * register these metrics with the platform's MBean server
+     * @param name object name under which to register - e.g. {@code jl95.json:type=ParseMetrics,name=orders}
+     * @return name registered under
+     */
+    public ObjectName register(String name) {
+        try {
+            return ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name)).getObjectName();
+        }
+        catch (JMException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * unregister metrics from the platform's MBean server
+     * @param name name registered under
+     */
+    public static void unregister(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+        catch (JMException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * @return the metrics, as they are - only eventually consistent with each other: a parse adds up its counts one
+     * after another, as it ends, and a snapshot reads them one after another, so it may have some of the counts of a
+     * parse ending at the time, but not others, nor its time
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * reset every metric to 0 - one after another, as a snapshot reads them: of a parse ending at the time, some
+     * counts may be reset and others kept
+     */
+    @Override public void   reset            () {
+        for (LongAdder adder: new LongAdder[] {parses, failedParses, chars, nulls, booleans, numbers, strings, keys,
+                                               arrays, objects, skipped, escapes, escapedChars}) {
+            adder.reset();
+        }
+        maxDepth  .reset();
+        parseNanos.reset();
+        buildNanos.reset();
+    }
+
+    @Override public long   getParses        () { return parses      .sum(); }
+    @Override public long   getFailedParses  () { return failedParses.sum(); }
+    @Override public long   getCharsScanned  () { return chars       .sum(); }
+    @Override public long   getNulls         () { return nulls       .sum(); }
+    @Override public long   getBooleans      () { return booleans    .sum(); }
+    @Override public long   getNumbers       () { return numbers     .sum(); }
+    @Override public long   getStrings       () { return strings     .sum(); }
+    @Override public long   getKeys          () { return keys        .sum(); }
+    @Override public long   getArrays        () { return arrays      .sum(); }
+    @Override public long   getObjects       () { return objects     .sum(); }
+    @Override public long   getSkippedValues () { return skipped     .sum(); }
+    @Override public long   getMaxDepth      () { return maxDepth    .get(); }
+    @Override public long   getEscapes       () { return escapes     .sum(); }
+    @Override public long   getEscapedChars  () { return escapedChars.sum(); }
+    @Override public long   getBuilds        () { return buildNanos.snapshot().count(); }
+    @Override public double getParseNanosMean() { return parseNanos.snapshot().mean(); }
+    @Override public long   getParseNanosP50 () { return parseNanos.snapshot().percentile(50); }
+    @Override public long   getParseNanosP99 () { return parseNanos.snapshot().percentile(99); }
+    @Override public long   getParseNanosMax () { return parseNanos.snapshot().max(); }
+    @Override public double getBuildNanosMean() { return buildNanos.snapshot().mean(); }
+    @Override public long   getBuildNanosP50 () { return buildNanos.snapshot().percentile(50); }
+    @Override public long   getBuildNanosP99 () { return buildNanos.snapshot().percentile(99); }
+    @Override public long   getBuildNanosMax () { return buildNanos.snapshot().max(); }
+
+    /**
+     * @return counts of a parse, to be {@link Counting#parsed(long, long, boolean) added up} into these metrics at its
+     * end
+     */
+    Counting counting() {
+        return new Counting(this);
+    }
+
+    void     built(long nanos) {
+        buildNanos.record(nanos);
+    }
+
+    /**
+     * the counts of a parse - kept as plain fields, as of a single thread, until added up into the metrics at the
+     * parse's end - and the handlers that count them, before calling back the parse's own
+     */
+    static final class Counting implements StreamParser.SpanHandlers {
+
+        private final ParseMetrics              metrics;
+        StreamParser.SpanHandlers               handlers; // of the parse - set as it begins
+        private       long nulls, booleans, numbers, strings, keys, arrays, objects, skipped, escapes, escapedChars;
+        private       int  depth, maxDepth;
+
+        private Counting(ParseMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        /**
+         * count the escapings of a string, as it is in the serial - between its quotes
+         */
+        void escaped(char[] buf, int offset, int length) {
+            escapedChars += length;
+            for (int k = offset; k < offset + length; k++) {
+                if (buf[k] == '\\') {
+                    escapes++;
+                    k++;
+                }
+            }
+        }
+        /**
+         * add the counts up into the metrics
+         * @param chars  characters scanned
+         * @param nanos  time taken by the parse
+         * @param failed whether the parse failed
+         */
+        void parsed(long chars, long nanos, boolean failed) {
+            ParseMetrics m = metrics;
+            m.parses.increment();
+            if (failed) m.failedParses.increment();
+            m.chars       .add(chars);
+            m.nulls       .add(nulls);
+            m.booleans    .add(booleans);
+            m.numbers     .add(numbers);
+            m.strings     .add(strings);
+            m.keys        .add(keys);
+            m.arrays      .add(arrays);
+            m.objects     .add(objects);
+            m.skipped     .add(skipped);
+            m.escapes     .add(escapes);
+            m.escapedChars.add(escapedChars);
+            m.maxDepth    .accumulate(maxDepth);
+            m.parseNanos  .record(nanos);
+        }
+        private void opened() {
+            if (++depth > maxDepth) {
+                maxDepth = depth;
+            }
+        }
+
+        @Override public void handleNull       () { nulls++;    handlers.handleNull(); }
+        @Override public void handleNumber     (char[] buf, int offset, int length) { numbers++; handlers.handleNumber(buf, offset, length); }
+        @Override public void handleString     (char[] buf, int offset, int length) { strings++; handlers.handleString(buf, offset, length); }
+        @Override public void handleTrue       () { booleans++; handlers.handleTrue(); }
+        @Override public void handleFalse      () { booleans++; handlers.handleFalse(); }
+        @Override public void handleArrayStart () { arrays++;  opened(); handlers.handleArrayStart(); }
+        @Override public void handleArrayEnd   () { depth--;            handlers.handleArrayEnd(); }
+        @Override public void handleObjectStart() { objects++; opened(); handlers.handleObjectStart(); }
+        @Override public void handleObjectEnd  () { depth--;            handlers.handleObjectEnd(); }
+        @Override public void handleObjectKey  (char[] buf, int offset, int length) { keys++; handlers.handleObjectKey(buf, offset, length); }
+        @Override public void handleDocumentEnd() { handlers.handleDocumentEnd(); }
+        @Override public void handleSkipped    () { skipped++;  handlers.handleSkipped(); }
+    }
+
+    /**
+     * a histogram of non-negative values, in buckets of logarithmic size: 4 per power of 2, as to tell values within
+     * about 25%
+     */
+    static final class Histogram {
+
+        private static final int BUCKETS = 4 + 62 * 4;
+
+        private final LongAdder[]     counts = new LongAdder[BUCKETS];
+        private final LongAdder       sum    = new LongAdder();
+        private final LongAccumulator max    = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] = new LongAdder();
+            }
+        }
+
+        static int  bucket    (long x) {
+            if (x < 4) {
+                return (int) x;
+            }
+            int e = 63 - Long.numberOfLeadingZeros(x); // at least 2
+            return 4 + (e - 2) * 4 + (int) ((x >>> (e - 2)) & 3);
+        }
+        /**
+         * @return greatest value of a bucket
+         */
+        static long upperBound(int b) {
+            if (b < 4) {
+                return b;
+            }
+            int e = (b - 4) / 4 + 2;
+            long lower = (long) (4 | ((b - 4) & 3)) << (e - 2);
+            return lower + (1L << (e - 2)) - 1;
+        }
+        void record(long x) {
+            x = Math.max(x, 0);
+            counts[bucket(x)].increment();
+            sum.add(x);
+            max.accumulate(x);
+        }
+        void reset() {
+            for (LongAdder count: counts) {
+                count.reset();
+            }
+            sum.reset();
+            max.reset();
+        }
+        Latencies snapshot() {
+            long[] c = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++) {
+                c[b] = counts[b].sum();
+            }
+            return new Latencies(c, sum.sum(), max.get());
+        }
+    }
+
+    /**
+     * times taken - of parses or builds - in nanoseconds
+     */
+    public static final class Latencies {
+
+        private final long[] counts;
+        private final long   count;
+        private final long   sum;
+        private final long   max;
+
+        private Latencies(long[] counts, long sum, long max) {
+            long count = 0;
+            for (long c: counts) {
+                count += c;
+            }
+            this.counts = counts;
+            this.count  = count;
+            this.sum    = sum;
+            this.max    = max;
+        }
+
+        /**
+         * @return number of times
+         */
+        public long   count() {
+            return count;
+        }
+        /**
+         * @return mean time - or 0, if none
+         */
+        public double mean() {
+            return count == 0? 0: (double) sum / count;
+        }
+        /**
+         * @return greatest time
+         */
+        public long   max() {
+            return max;
+        }
+        /**
+         * @param p percentage - from 0 to 100
+         * @return time of the percentile, as the greatest of its bucket - or 0, if none
+         */
+        public long   percentile(double p) {
+            if (p < 0 || p > 100) throw new IllegalArgumentException("percentage "+p+" - must be from 0 to 100");
+            long rank = (long) Math.ceil(p / 100 * count);
+            long seen = 0;
+            for (int b = 0; b < counts.length; b++) {
+                seen += counts[b];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(Histogram.upperBound(b), max);
+                }
+            }
+            return 0;
+        }
+        @Override public String toString() {
+            return String.format("count=%d mean=%.0f p50=%d p99=%d max=%d", count, mean(), percentile(50), percentile(99), max);
+        }
+    }
+
+    /**
+     * the metrics, as they were at about a time - see {@link ParseMetrics#snapshot()}
+     */
+    public static final class Snapshot {
+
+        private final long      parses, failedParses, chars, nulls, booleans, numbers, strings, keys, arrays, objects,
+                                skipped, escapes, escapedChars, maxDepth;
+        private final Latencies parseNanos, buildNanos;
+
+        private Snapshot(ParseMetrics m) {
+            parses       = m.parses      .sum();
+            failedParses = m.failedParses.sum();
+            chars        = m.chars       .sum();
+            nulls        = m.nulls       .sum();
+            booleans     = m.booleans    .sum();
+            numbers      = m.numbers     .sum();
+            strings      = m.strings     .sum();
+            keys         = m.keys        .sum();
+            arrays       = m.arrays      .sum();
+            objects      = m.objects     .sum();
+            skipped      = m.skipped     .sum();
+            escapes      = m.escapes     .sum();
+            escapedChars = m.escapedChars.sum();
+            maxDepth     = m.maxDepth    .get();
+            parseNanos   = m.parseNanos  .snapshot();
+            buildNanos   = m.buildNanos  .snapshot();
+        }
+
+        public long      parses      () { return parses; }
+        public long      failedParses() { return failedParses; }
+        public long      charsScanned() { return chars; }
+        public long      nulls       () { return nulls; }
+        public long      booleans    () { return booleans; }
+        public long      numbers     () { return numbers; }
+        public long      strings     () { return strings; }
+        public long      keys        () { return keys; }
+        public long      arrays      () { return arrays; }
+        public long      objects     () { return objects; }
+        public long      skipped     () { return skipped; }
+        /**
+         * @return number of escapings resolved - e.g. {@code \n} or {@code \"}
+         */
+        public long      escapes     () { return escapes; }
+        /**
+         * @return characters of the strings (and keys) with escapings, as in the serial
+         */
+        public long      escapedChars() { return escapedChars; }
+        public long      maxDepth    () { return maxDepth; }
+        public Latencies parseNanos  () { return parseNanos; }
+        public Latencies buildNanos  () { return buildNanos; }
+
+        @Override public String toString() {
+            return "parses="+parses+" failed="+failedParses+" chars="+chars+" nulls="+nulls+" booleans="+booleans+
+                   " numbers="+numbers+" strings="+strings+" keys="+keys+" arrays="+arrays+" objects="+objects+
+                   " skipped="+skipped+" escapes="+escapes+" escapedChars="+escapedChars+" maxDepth="+maxDepth+
+                   " parse=["+parseNanos+"] build=["+buildNanos+"]";
+        }
+    }
+}
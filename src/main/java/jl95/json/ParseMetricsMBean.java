@@ -0,0 +1,34 @@
+package jl95.json;
+
+/**
+ * The JMX interface of {@link ParseMetrics} - totals since the metrics were created, or last reset, and times in
+ * nanoseconds.
+ */
+public interface ParseMetricsMBean {
+
+    long   getParses         ();
+    long   getFailedParses   ();
+    long   getCharsScanned   ();
+    long   getNulls          ();
+    long   getBooleans       ();
+    long   getNumbers        ();
+    long   getStrings        ();
+    long   getKeys           ();
+    long   getArrays         ();
+    long   getObjects        ();
+    long   getSkippedValues  ();
+    long   getMaxDepth       ();
+    long   getEscapes        ();
+    long   getEscapedChars   ();
+    long   getBuilds         ();
+    double getParseNanosMean ();
+    long   getParseNanosP50  ();
+    long   getParseNanosP99  ();
+    long   getParseNanosMax  ();
+    double getBuildNanosMean ();
+    long   getBuildNanosP50  ();
+    long   getBuildNanosP99  ();
+    long   getBuildNanosMax  ();
+
+    void   reset             ();
+}
@@ -0,0 +1,135 @@
+package jl95.json;
+
+import java.util.Arrays;
+
+/**
+ * Splitting of serials into parts, to parse in parallel.
+ */
+final class Partitions {
+
+    private Partitions() {}
+
+    /**
+     * split a serial at line boundaries, into about the given number of parts of about the same size
+     * @return boundaries of the parts - from the start of the serial to its end, such that part k spans from
+     * boundary k (inclusive) to boundary k + 1 (exclusive)
+     */
+    static int[] atLines(String serial, int parts) {
+        int   length = serial.length();
+        int[] bounds = new int[parts + 1];
+        int   n      = 1;
+        for (int k = 1; k < parts; k++) {
+            int at = serial.indexOf('\n', Math.max(bounds[n - 1], (int) ((long) length * k / parts)));
+            if (at < 0) {
+                break;
+            }
+            if (at + 1 > bounds[n - 1]) {
+                bounds[n++] = at + 1;
+            }
+        }
+        bounds[n++] = length;
+        return Arrays.copyOf(bounds, n);
+    }
+    /**
+     * as {@link #atLines(String, int)}, for a UTF-8 serial - where a line feed byte is never part of a multi-byte
+     * sequence
+     */
+    static int[] atLines(byte[] serial, int parts) {
+        int   length = serial.length;
+        int[] bounds = new int[parts + 1];
+        int   n      = 1;
+        for (int k = 1; k < parts; k++) {
+            int at = Math.max(bounds[n - 1], (int) ((long) length * k / parts));
+            while (at < length && serial[at] != '\n') {
+                at++;
+            }
+            if (at == length) {
+                break;
+            }
+            if (at + 1 > bounds[n - 1]) {
+                bounds[n++] = at + 1;
+            }
+        }
+        bounds[n++] = length;
+        return Arrays.copyOf(bounds, n);
+    }
+    /**
+     * @return positions in characters, of a UTF-8 serial decoded, of the given positions in bytes - which must be in
+     * order, and at the start of sequences
+     */
+    static long[] charPositions(byte[] serial, int[] bounds) {
+        long[] positions = new long[bounds.length];
+        long   n         = 0;
+        int    at        = 0;
+        for (int k = 0; k < bounds.length; k++) {
+            for (; at < bounds[k]; at++) {
+                byte b = serial[at];
+                if ((b & 0xC0) != 0x80) /* not a continuation byte */ {
+                    n++;
+                }
+                if ((b & 0xF8) == 0xF0) /* start of a 4-byte sequence - decoded as a surrogate pair */ {
+                    n++;
+                }
+            }
+            positions[k] = n;
+        }
+        return positions;
+    }
+    /**
+     * split a serial of a top-level array between its elements, into about the given number of parts of about the
+     * same size - scanning only for brackets, braces and commas, outside of strings
+     * @return positions of the array's opening bracket, of the commas between parts and of the array's closing
+     * bracket - such that part k spans between positions k and k + 1, exclusive - or null if the serial is not an
+     * array or is not well-formed enough for the scan to tell
+     */
+    static int[] atArrayElements(String serial, int parts) {
+        int length = serial.length();
+        int k      = 0;
+        while (k < length && isWhitespace(serial.charAt(k))) {
+            k++;
+        }
+        if (k == length || serial.charAt(k) != '[') {
+            return null;
+        }
+        int[] bounds = new int[parts + 1];
+        int   n      = 0;
+        int   depth  = 0;
+        bounds[n++]  = k;
+        for (; k < length; k++) {
+            char c = serial.charAt(k);
+            if (c == '"') {
+                for (k++; k < length && serial.charAt(k) != '"'; k++) {
+                    if (serial.charAt(k) == '\\') {
+                        k++;
+                    }
+                }
+            }
+            else if (c == '[' || c == '{') {
+                depth++;
+            }
+            else if (c == ']' || c == '}') {
+                depth--;
+                if (depth == 0) {
+                    break;
+                }
+            }
+            else if (c == ',' && depth == 1 && n < parts && k >= (long) length * n / parts) {
+                bounds[n++] = k;
+            }
+        }
+        if (k >= length || serial.charAt(k) != ']') {
+            return null;
+        }
+        bounds[n++] = k;
+        for (k++; k < length; k++) {
+            if (!isWhitespace(serial.charAt(k))) {
+                return null;
+            }
+        }
+        return Arrays.copyOf(bounds, n);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+}
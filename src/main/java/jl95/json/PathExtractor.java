@@ -0,0 +1,383 @@
+package jl95.json;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * An extractor of the values at given paths of a JSON serial - the paths being JSON Pointers (e.g.
+ * <code>/meta/id</code>) or simple JSONPaths (e.g. <code>$.meta.id</code>, <code>$.items[*].price</code>,
+ * <code>$['a key'][0]</code>).
+ * <p>Only the values at the paths are built into nodes. Whatever cannot be at any of the paths is skipped by the
+ * stream-parser, with no handlers called back for it - and parsing stops as soon as no more values may be found,
+ * instead of going through the rest of the serial.</p>
+ * <p>As a value is found at a path without wildcards, no more are looked for, at that path - so, of repeated keys, the
+ * first counts (unlike when building, where the last does). What is skipped, or not read at all, is not checked for
+ * being valid JSON.</p>
+ */
+public final class PathExtractor {
+
+    /**
+     * segment of a path - shared with the {@link StreamTransform}
+     */
+    static final class Segment {
+
+        final String  key;      // or null, if any key
+        final int     index;    // or -1, if no index
+        final boolean wildcard;
+
+        Segment(String key, int index, boolean wildcard) {
+            this.key      = key;
+            this.index    = index;
+            this.wildcard = wildcard;
+        }
+        boolean matches(char[] buf, int offset, int length) {
+            if (wildcard) {
+                return true;
+            }
+            if (key == null || key.length() != length) {
+                return false;
+            }
+            for (int k = 0; k < length; k++) {
+                if (key.charAt(k) != buf[offset + k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        boolean matches(int i) {
+            return wildcard || index == i;
+        }
+    }
+
+    private final String[]    expressions;
+    private final Segment[][] paths;
+    private final int[]       definite; // per path, the number of its first segments that are not wildcards
+
+    private PathExtractor(String[] expressions) {
+        this.expressions = expressions.clone();
+        this.paths       = new Segment[expressions.length][];
+        this.definite    = new int    [expressions.length];
+        for (int p = 0; p < expressions.length; p++) {
+            paths[p] = compile(expressions[p]);
+            while (definite[p] < paths[p].length && !paths[p][definite[p]].wildcard) {
+                definite[p]++;
+            }
+        }
+    }
+
+    /**
+     * @param expressions JSON Pointers and / or JSONPaths - of the latter, only the root (<code>$</code>), child
+     *                    (<code>.key</code>, <code>['key']</code>, <code>[0]</code>) and wildcard (<code>.*</code>,
+     *                    <code>[*]</code>) operators are supported
+     */
+    public static PathExtractor of(String... expressions) {
+        return new PathExtractor(expressions);
+    }
+
+    static Segment[] compile(String expression) {
+        List<Segment> segments = new ArrayList<>();
+        if (expression.startsWith("$")) {
+            int k = 1;
+            while (k < expression.length()) {
+                char c = expression.charAt(k);
+                if (c == '.') {
+                    int stop = k + 1;
+                    while (stop < expression.length() && expression.charAt(stop) != '.' && expression.charAt(stop) != '[') {
+                        stop++;
+                    }
+                    String name = expression.substring(k + 1, stop);
+                    if (name.isEmpty()) throw new IllegalArgumentException("empty name at position "+k+" of path "+expression);
+                    segments.add(name.equals("*")? new Segment(null, -1, true): new Segment(name, -1, false));
+                    k = stop;
+                }
+                else if (c == '[') {
+                    int close = expression.indexOf(']', k);
+                    if (close < 0) throw new IllegalArgumentException("unclosed bracket at position "+k+" of path "+expression);
+                    String inside = expression.substring(k + 1, close);
+                    if (inside.equals("*")) {
+                        segments.add(new Segment(null, -1, true));
+                    }
+                    else if (inside.length() >= 2 && (inside.charAt(0) == '\'' || inside.charAt(0) == '"') && inside.charAt(inside.length() - 1) == inside.charAt(0)) {
+                        segments.add(new Segment(inside.substring(1, inside.length() - 1), -1, false));
+                    }
+                    else if (isIndex(inside)) {
+                        segments.add(new Segment(null, Integer.parseInt(inside), false));
+                    }
+                    else throw new IllegalArgumentException("invalid subscript ["+inside+"] at position "+k+" of path "+expression);
+                    k = close + 1;
+                }
+                else throw new IllegalArgumentException("invalid character "+c+" at position "+k+" of path "+expression);
+            }
+        }
+        else if (expression.isEmpty() || expression.startsWith("/")) {
+            for (String token: expression.isEmpty()? new String[0]: expression.substring(1).split("/", -1)) {
+                String key = token.replace("~1", "/").replace("~0", "~");
+                segments.add(new Segment(key, isIndex(key)? Integer.parseInt(key): -1, false));
+            }
+        }
+        else throw new IllegalArgumentException("not a JSON Pointer, nor a JSONPath: "+expression);
+        return segments.toArray(new Segment[0]);
+    }
+    private static boolean isIndex(String s) {
+        if (s.isEmpty() || s.length() > 9 || (s.length() > 1 && s.charAt(0) == '0')) {
+            return false;
+        }
+        for (int k = 0; k < s.length(); k++) {
+            if (s.charAt(k) < '0' || s.charAt(k) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param serial JSON serial
+     * @return for every path, by the expression as given, the values found at it - in the order they were found
+     */
+    public Map<String, List<Node>> extract(String serial) {
+        return run((parser, run) -> parser.parse(serial, run));
+    }
+
+    /**
+     * @see #extract(String)
+     */
+    public Map<String, List<Node>> extract(Reader reader) {
+        return run((parser, run) -> parser.parse(reader, run));
+    }
+
+    /**
+     * @param utf8 JSON serial, encoded in UTF-8
+     * @see #extract(String)
+     */
+    public Map<String, List<Node>> extract(byte[] utf8) {
+        return run((parser, run) -> parser.parse(utf8, run));
+    }
+
+    private Map<String, List<Node>> run(BiConsumer<StreamParser, Run> parse) {
+        if (paths.length == 0) /* no values to find - so nothing to read */ {
+            return new LinkedHashMap<>();
+        }
+        Run run = new Run();
+        try {
+            parse.accept(run.parser, run);
+        }
+        finally {
+            run.parser.release();
+        }
+        return run.results();
+    }
+
+    /**
+     * array or object on the way to the values at some paths
+     */
+    private static final class Frame {
+
+        final boolean array;
+        final int[]   live;  // paths that match up to the array or object itself
+        int           index; // of the next element, if an array
+
+        Frame(boolean array, int[] live) {
+            this.array = array;
+            this.live  = live;
+        }
+    }
+
+    /**
+     * value being built, as it was found at some paths
+     */
+    private static final class Capture {
+
+        final StreamParser.SpanHandlers handlers;
+        int                             depth;
+
+        Capture(StreamParser.SpanHandlers handlers) {
+            this.handlers = handlers;
+        }
+    }
+
+    private final class Run implements StreamParser.SpanHandlers {
+
+        final StreamParser     parser    = StreamParser.acquire();
+        final List<List<Node>> found     = new ArrayList<>(paths.length);
+        final boolean[]        done      = new boolean[paths.length];
+        int                    remaining = paths.length;
+        final List<Frame>      frames    = new ArrayList<>();
+        final List<Capture>    captures  = new ArrayList<>();
+        int[]                  candidates;     // paths that may match the next value
+        int                    candidateCount;
+
+        Run() {
+            candidates     = new int[paths.length];
+            candidateCount = paths.length;
+            for (int p = 0; p < paths.length; p++) {
+                found.add(new ArrayList<>());
+                candidates[p] = p;
+            }
+        }
+
+        Map<String, List<Node>> results() {
+            Map<String, List<Node>> results = new LinkedHashMap<>();
+            for (int p = 0; p < paths.length; p++) {
+                results.put(expressions[p], found.get(p));
+            }
+            return results;
+        }
+
+        /**
+         * a value starts - at which, if at the end of some paths, a capture starts
+         */
+        private void start(boolean array, boolean object) {
+            int depth = frames.size();
+            int[] at  = null;
+            int   n   = 0;
+            for (int k = 0; k < candidateCount; k++) {
+                int p = candidates[k];
+                if (paths[p].length == depth && !done[p]) {
+                    if (at == null) {
+                        at = new int[candidateCount];
+                    }
+                    at[n++] = p;
+                }
+            }
+            if (at != null) {
+                int[]         capturedAt = Arrays.copyOf(at, n);
+                Consumer<Node> each      = node -> {
+                    for (int p: capturedAt) {
+                        found.get(p).add(node);
+                    }
+                };
+                captures.add(new Capture(NodeBuilder.builderHandlers(each)));
+            }
+            if (array || object) {
+                frames.add(new Frame(array, Arrays.copyOf(candidates, candidateCount)));
+                for (int k = 0; k < captures.size(); k++) {
+                    captures.get(k).depth++;
+                }
+            }
+        }
+
+        /**
+         * a value ends - after it has been given to the captures
+         */
+        private void end(int[] matched, int matchedCount) {
+            int depth = frames.size();
+            for (int k = captures.size() - 1; k >= 0; k--) {
+                Capture capture = captures.get(k);
+                if (capture.depth == 0) {
+                    capture.handlers.handleDocumentEnd();
+                    captures.remove(k);
+                }
+            }
+            for (int k = 0; k < matchedCount; k++) {
+                int p = matched[k];
+                if (!done[p] && definite[p] >= depth) /* no more values at the path */ {
+                    done[p] = true;
+                    remaining--;
+                }
+            }
+            if (remaining == 0) {
+                parser.stop();
+                return;
+            }
+            candidateCount = 0;
+            if (!frames.isEmpty()) {
+                Frame parent = frames.get(frames.size() - 1);
+                if (parent.array) {
+                    parent.index++;
+                    nextElement(parent);
+                }
+            }
+        }
+
+        /**
+         * the array or object being parsed ends - after it has been given to the captures
+         */
+        private void endContainer() {
+            for (int k = 0; k < captures.size(); k++) {
+                captures.get(k).depth--;
+            }
+            Frame frame = frames.remove(frames.size() - 1);
+            end(frame.live, frame.live.length);
+        }
+
+        private void nextElement(Frame array) {
+            int depth = frames.size();
+            candidateCount = 0;
+            for (int p: array.live) {
+                if (paths[p].length >= depth && !done[p] && paths[p][depth - 1].matches(array.index)) {
+                    candidates[candidateCount++] = p;
+                }
+            }
+            if (candidateCount == 0 && captures.isEmpty()) {
+                parser.skipNextValue();
+            }
+        }
+
+        @Override public void handleNull       () {
+            start(false, false);
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleNull();
+            end(candidates, candidateCount);
+        }
+        @Override public void handleNumber     (char[] buf, int offset, int length) {
+            start(false, false);
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleNumber(buf, offset, length);
+            end(candidates, candidateCount);
+        }
+        @Override public void handleString     (char[] buf, int offset, int length) {
+            start(false, false);
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleString(buf, offset, length);
+            end(candidates, candidateCount);
+        }
+        @Override public void handleTrue       () {
+            start(false, false);
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleTrue();
+            end(candidates, candidateCount);
+        }
+        @Override public void handleFalse      () {
+            start(false, false);
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleFalse();
+            end(candidates, candidateCount);
+        }
+        @Override public void handleArrayStart () {
+            start(true, false);
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleArrayStart();
+            nextElement(frames.get(frames.size() - 1));
+        }
+        @Override public void handleArrayEnd   () {
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleArrayEnd();
+            endContainer();
+        }
+        @Override public void handleObjectStart() {
+            start(false, true);
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleObjectStart();
+            candidateCount = 0;
+        }
+        @Override public void handleObjectEnd  () {
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleObjectEnd();
+            endContainer();
+        }
+        @Override public void handleSkipped    () {
+            end(candidates, 0);
+        }
+        @Override public void handleObjectKey  (char[] buf, int offset, int length) {
+            for (int k = 0; k < captures.size(); k++) captures.get(k).handlers.handleObjectKey(buf, offset, length);
+            Frame object = frames.get(frames.size() - 1);
+            int   depth  = frames.size();
+            candidateCount = 0;
+            for (int p: object.live) {
+                if (paths[p].length >= depth && !done[p] && paths[p][depth - 1].matches(buf, offset, length)) {
+                    candidates[candidateCount++] = p;
+                }
+            }
+            if (candidateCount == 0 && captures.isEmpty()) {
+                parser.skipNextValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package jl95.json;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * The payloads of persistent LIST and MAP nodes - immutable, and updated into new versions that share all but the
+ * path to what is updated with the old.
+ * <p>A list is a vector of 32-way branching: a trie of chunks of 32 elements, plus a tail chunk for appending. A map
+ * is a hash array mapped trie (HAMT) of 32-way branching by 5 bits of the keys' hashes at a time, its nodes only as
+ * large as they have entries. Either way, getting and updating is O(log<sub>32</sub> n) - i.e. of a handful of steps
+ * - and a version, once made, never changes, such that it may be shared freely, e.g. between threads.</p>
+ * <p>Hash codes and digests are worked out once per version, when first needed.</p>
+ */
+final class PersistentNodes {
+
+    private PersistentNodes() {}
+
+    private static final int BITS  = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK  = WIDTH - 1;
+
+    /**
+     * hash code and digest of a version - kept together, as to be published at once
+     */
+    private static final class Hashes {
+
+        final int  hash;
+        final long digest;
+
+        Hashes(int hash, long digest) {
+            this.hash   = hash;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * elements of a persistent LIST node
+     */
+    static final class Vector extends AbstractList<Node> implements RandomAccess, FrozenNodes.Digested {
+
+        static final Vector EMPTY = new Vector(0, BITS, new Object[WIDTH], new Object[0]);
+
+        private final int      size;
+        private final int      shift; // of the root's level
+        private final Object[] root;
+        private final Object[] tail;
+        private       Hashes   hashes;
+
+        private Vector(int size, int shift, Object[] root, Object[] tail) {
+            this.size  = size;
+            this.shift = shift;
+            this.root  = root;
+            this.tail  = tail;
+        }
+
+        private int      tailOffset() {
+            return size < WIDTH? 0: ((size - 1) >>> BITS) << BITS;
+        }
+        private Object[] chunkOf(int i) {
+            if (i >= tailOffset()) {
+                return tail;
+            }
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Object[]) node[(i >>> level) & MASK];
+            }
+            return node;
+        }
+        private static Object[] set(int level, Object[] node, int i, Node x) {
+            Object[] copy = node.clone();
+            if (level == 0) {
+                copy[i & MASK] = x;
+            } else {
+                int sub = (i >>> level) & MASK;
+                copy[sub] = set(level - BITS, (Object[]) node[sub], i, x);
+            }
+            return copy;
+        }
+        private static Object[] path(int level, Object[] chunk) {
+            if (level == 0) {
+                return chunk;
+            }
+            Object[] node = new Object[WIDTH];
+            node[0] = path(level - BITS, chunk);
+            return node;
+        }
+        private Object[] pushTail(int level, Object[] parent) {
+            int      sub  = ((size - 1) >>> level) & MASK;
+            Object[] copy = parent.clone();
+            if (level == BITS) {
+                copy[sub] = tail;
+            } else {
+                Object[] child = (Object[]) parent[sub];
+                copy[sub] = child != null? pushTail(level - BITS, child): path(level - BITS, tail);
+            }
+            return copy;
+        }
+
+        /**
+         * @return version with the element at an index set
+         */
+        Vector with(int i, Node x) {
+            if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index "+i+" out of bounds of size "+size);
+            if (i >= tailOffset()) {
+                Object[] newTail = tail.clone();
+                newTail[i & MASK] = x;
+                return new Vector(size, shift, root, newTail);
+            }
+            return new Vector(size, shift, set(shift, root, i, x), tail);
+        }
+        /**
+         * @return version with an element appended
+         */
+        Vector plus(Node x) {
+            if (size - tailOffset() < WIDTH) {
+                Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+                newTail[tail.length] = x;
+                return new Vector(size + 1, shift, root, newTail);
+            }
+            Object[] newRoot;
+            int      newShift = shift;
+            if ((size >>> BITS) > (1 << shift)) /* root full */ {
+                newRoot    = new Object[WIDTH];
+                newRoot[0] = root;
+                newRoot[1] = path(shift, tail);
+                newShift  += BITS;
+            } else {
+                newRoot    = pushTail(shift, root);
+            }
+            return new Vector(size + 1, newShift, newRoot, new Object[] {x});
+        }
+
+        @Override public Node    get     (int i)    {
+            if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index "+i+" out of bounds of size "+size);
+            return (Node) chunkOf(i)[i & MASK];
+        }
+        @Override public int     size    ()         { return size; }
+        @Override public int     hashCode()         { return hashes().hash; }
+        @Override public long    digest  ()         { return hashes().digest; }
+        @Override public boolean equals  (Object o) {
+            if (o instanceof FrozenNodes.Digested && ((FrozenNodes.Digested) o).digest() != digest()) {
+                return false;
+            }
+            return super.equals(o);
+        }
+        private Hashes hashes() {
+            Hashes h = hashes;
+            if (h == null) {
+                hashes = h = new Hashes(super.hashCode(), FrozenNodes.listDigest(this));
+            }
+            return h;
+        }
+    }
+
+    /**
+     * node of the trie of a persistent map - an array of key-value pairs, the key of which is null if the value is
+     * a node of the next level
+     */
+    private abstract static class TrieNode {
+
+        final Object[] array;
+
+        TrieNode(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Node     get   (int shift, int hash, String key);
+        abstract TrieNode put   (int shift, int hash, String key, Node value, boolean[] added);
+        /**
+         * @return node without the key - this, if without it already, or null, if empty
+         */
+        abstract TrieNode remove(int shift, int hash, String key);
+
+        static Object[] with   (Object[] array, int at, Object x) {
+            Object[] copy = array.clone();
+            copy[at] = x;
+            return copy;
+        }
+        static Object[] insert (Object[] array, int at, Object k, Object v) {
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0,  copy, 0,      at);
+            copy[at]     = k;
+            copy[at + 1] = v;
+            System.arraycopy(array, at, copy, at + 2, array.length - at);
+            return copy;
+        }
+        static Object[] without(Object[] array, int at) {
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0,      copy, 0,  at);
+            System.arraycopy(array, at + 2, copy, at, array.length - at - 2);
+            return copy;
+        }
+    }
+    /**
+     * node of the trie with an entry, or a node of the next level, for every 5 bits of hash given in its bitmap
+     */
+    private static final class BitmapNode extends TrieNode {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private static TrieNode pair(int shift, int hash1, String key1, Node value1, int hash2, String key2, Node value2) {
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+        }
+
+        @Override Node     get   (int shift, int hash, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int    at = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k  = array[at];
+            if (k == null) {
+                return ((TrieNode) array[at + 1]).get(shift + BITS, hash, key);
+            }
+            return key.equals(k)? (Node) array[at + 1]: null;
+        }
+        @Override TrieNode put   (int shift, int hash, String key, Node value, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int at  = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, insert(array, at, key, value));
+            }
+            Object k = array[at];
+            Object v = array[at + 1];
+            if (k == null) {
+                TrieNode sub = ((TrieNode) v).put(shift + BITS, hash, key, value, added);
+                return sub == v? this: new BitmapNode(bitmap, with(array, at + 1, sub));
+            }
+            if (key.equals(k)) {
+                return v == value? this: new BitmapNode(bitmap, with(array, at + 1, value));
+            }
+            added[0] = true;
+            Object[] copy = with(array, at, null);
+            copy[at + 1] = pair(shift + BITS, spread(k.hashCode()), (String) k, (Node) v, hash, key, value);
+            return new BitmapNode(bitmap, copy);
+        }
+        @Override TrieNode remove(int shift, int hash, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int    at = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k  = array[at];
+            if (k == null) {
+                TrieNode sub = ((TrieNode) array[at + 1]).remove(shift + BITS, hash, key);
+                if (sub == array[at + 1]) {
+                    return this;
+                }
+                if (sub != null) {
+                    return new BitmapNode(bitmap, with(array, at + 1, sub));
+                }
+            }
+            else if (!key.equals(k)) {
+                return this;
+            }
+            return bitmap == bit? null: new BitmapNode(bitmap ^ bit, without(array, at));
+        }
+    }
+    /**
+     * node of the trie with the entries of keys of the same (whole) hash
+     */
+    private static final class CollisionNode extends TrieNode {
+
+        final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int indexOf(String key) {
+            for (int at = 0; at < array.length; at += 2) {
+                if (key.equals(array[at])) {
+                    return at;
+                }
+            }
+            return -1;
+        }
+
+        @Override Node     get   (int shift, int hash, String key) {
+            int at = hash == this.hash? indexOf(key): -1;
+            return at < 0? null: (Node) array[at + 1];
+        }
+        @Override TrieNode put   (int shift, int hash, String key, Node value, boolean[] added) {
+            if (hash != this.hash) /* a key of another hash, down the same path so far - so branch off */ {
+                return new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] {null, this}).put(shift, hash, key, value, added);
+            }
+            int at = indexOf(key);
+            if (at >= 0) {
+                return array[at + 1] == value? this: new CollisionNode(hash, with(array, at + 1, value));
+            }
+            added[0] = true;
+            return new CollisionNode(hash, insert(array, array.length, key, value));
+        }
+        @Override TrieNode remove(int shift, int hash, String key) {
+            int at = hash == this.hash? indexOf(key): -1;
+            if (at < 0) {
+                return this;
+            }
+            return array.length == 2? null: new CollisionNode(hash, without(array, at));
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * entries of a persistent MAP node
+     */
+    static final class Trie extends AbstractMap<String, Node> implements FrozenNodes.Digested {
+
+        static final Trie EMPTY = new Trie(BitmapNode.EMPTY, 0);
+
+        private final TrieNode root;
+        private final int      size;
+        private       Hashes   hashes;
+
+        private Trie(TrieNode root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * @return version with a key mapped to a value - not null
+         */
+        Trie with   (String key, Node value) {
+            if (value == null) throw new NullPointerException("null value for key "+key);
+            boolean[] added   = new boolean[1];
+            TrieNode  newRoot = root.put(0, spread(key.hashCode()), key, value, added);
+            return newRoot == root? this: new Trie(newRoot, added[0]? size + 1: size);
+        }
+        /**
+         * @return version without a key
+         */
+        Trie without(String key) {
+            TrieNode newRoot = root.remove(0, spread(key.hashCode()), key);
+            return newRoot == root? this: new Trie(newRoot == null? BitmapNode.EMPTY: newRoot, size - 1);
+        }
+
+        @Override public Node    get        (Object k) {
+            return k instanceof String? root.get(0, spread(k.hashCode()), (String) k): null;
+        }
+        @Override public boolean containsKey(Object k) {
+            return get(k) != null;
+        }
+        @Override public int     size       ()         { return size; }
+        @Override public int     hashCode   ()         { return hashes().hash; }
+        @Override public long    digest     ()         { return hashes().digest; }
+        @Override public boolean equals     (Object o) {
+            if (o instanceof FrozenNodes.Digested && ((FrozenNodes.Digested) o).digest() != digest()) {
+                return false;
+            }
+            return super.equals(o);
+        }
+        private Hashes hashes() {
+            Hashes h = hashes;
+            if (h == null) {
+                hashes = h = new Hashes(super.hashCode(), FrozenNodes.mapDigest(this));
+            }
+            return h;
+        }
+        @Override public Set<Map.Entry<String, Node>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Node>>() {
+                @Override public Iterator<Map.Entry<String, Node>> iterator() { return new Entries(root); }
+                @Override public int                               size    () { return size; }
+            };
+        }
+    }
+
+    /**
+     * iterator through the entries of a trie, depth-first
+     */
+    private static final class Entries implements Iterator<Map.Entry<String, Node>> {
+
+        private Object[][] arrays    = new Object[8][];
+        private int[]      positions = new int     [8];
+        private int        depth     = 0;
+        private Map.Entry<String, Node> next;
+
+        Entries(TrieNode root) {
+            arrays[0] = root.array;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int      at    = positions[depth];
+                if (at >= array.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth] = at + 2;
+                if (array[at] != null) {
+                    next = new AbstractMap.SimpleImmutableEntry<>((String) array[at], (Node) array[at + 1]);
+                    return;
+                }
+                if (++depth == arrays.length) {
+                    arrays    = Arrays.copyOf(arrays,    2 * depth);
+                    positions = Arrays.copyOf(positions, 2 * depth);
+                }
+                arrays   [depth] = ((TrieNode) array[at + 1]).array;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override public boolean                 hasNext() {
+            return next != null;
+        }
+        @Override public Map.Entry<String, Node> next   () {
+            if (next == null) throw new NoSuchElementException();
+            Map.Entry<String, Node> x = next;
+            advance();
+            return x;
+        }
+    }
+}
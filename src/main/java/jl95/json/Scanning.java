@@ -0,0 +1,47 @@
+package jl95.json;
+
+/**
+ * Bulk scanning of the stream-parser's buffer - over the stretches of it that call for nothing but to be passed: the
+ * bodies of strings, and runs of whitespace.
+ * <p>This is the baseline, of plain loops - in a multi-release jar, a version of this class for newer Java versions
+ * takes its place, scanning many characters at a time where it can.</p>
+ */
+final class Scanning {
+
+    private Scanning() {}
+
+    /**
+     * @return whether scanning is by vectors - never, of the baseline
+     */
+    static boolean vectors() {
+        return false;
+    }
+
+    /**
+     * @return position of the first quote or backslash at or after {@code from} and before {@code to} - or
+     * {@code to}, if none
+     */
+    static int stringEnd    (char[] buf, int from, int to) {
+        for (int k = from; k < to; k++) {
+            char c = buf[k];
+            if (c == '"' || c == '\\') {
+                return k;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * @return position of the first character other than whitespace at or after {@code from} and before {@code to}
+     * - or {@code to}, if none
+     */
+    static int whitespaceEnd(char[] buf, int from, int to) {
+        for (int k = from; k < to; k++) {
+            char c = buf[k];
+            if (c != ' ' && c != '\n' && c != '\t' && c != '\r') {
+                return k;
+            }
+        }
+        return to;
+    }
+}
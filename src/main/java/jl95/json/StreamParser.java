@@ -1,13 +1,17 @@
 package jl95.json;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 
 /**
  * A JSON stream-parser.
@@ -15,22 +19,13 @@ import java.util.stream.Collectors;
  * but rather by calling back given "handler" functions according to the types of the (JSON) elements that it finds during parsing.
  * Applications may set the handlers to build an equivalent (Java) object containing the whole serial or they
  * may process the (JSON) elements on the fly - much more efficient if we want to parse into a specialized class / struct.
+ * <p>A parser may be shared between threads and re-entered from its own handlers. Its state - buffers, the stack of
+ * arrays and objects being parsed - is kept between parses, for reuse; a parse that finds the parser already busy
+ * runs on another parser, borrowed from a pool, to which the calls from its handlers (e.g. {@link #skipNextValue()})
+ * are passed on.</p>
  */
 public class StreamParser {
 
-    private static class EscapableCharMapping {
-        public final Character from;
-        public final String    fromAsEscaping;
-        public final Character to;
-        public final String    toAsString;
-        public final String    placeholder = UUID.randomUUID().toString();
-        public EscapableCharMapping(Character from, Character to) {
-            this.from = from;
-            this.to   = to;
-            this.fromAsEscaping = ""+'\\'+from;
-            this.toAsString     = ""     +to;
-        }
-    }
     private        enum  State {
         BEFORE_VALUE,
         IN_NUMBER,
@@ -39,58 +34,341 @@ public class StreamParser {
         IN_STRING_ESCAPING,
         AFTER_VALUE,
         BEFORE_KEY,
-        AFTER_KEY;
+        AFTER_KEY,
+        SKIPPING;
+    }
+    private static final byte ARRAY  = 0;
+    private static final byte OBJECT = 1;
+
+    // classes of characters - as bits of a table of the ASCII ones, for none of the others is of any class
+    private static final byte   WS              = 1;
+    private static final byte   NUMBER_STARTING = 1 << 1;
+    private static final byte   NUMBER          = 1 << 2;
+    private static final byte   WORD_STARTING   = 1 << 3;
+    private static final byte   WORD            = 1 << 4;
+    private static final byte   ESCAPABLE       = 1 << 5;
+    private static final byte[] CLASSES         = new byte[128];
+    static {
+        classify(WS             , " \t\r\n");
+        classify(NUMBER_STARTING, "-0123456789");
+        classify(NUMBER         , "0123456789.eE+-");
+        classify(WORD_STARTING  , "ntf");
+        classify(WORD           , "nultrefas");
+        classify(ESCAPABLE      , "\\\"/bfnrtu");
+    }
+    private static void    classify(byte cls, String chars) {
+        for (char c: chars.toCharArray()) {
+            CLASSES[c] |= cls;
+        }
     }
-    private        enum  StackValue {
-        ARRAY,
-        OBJECT;
+    private static boolean is      (char c, byte cls) {
+        return c < 128 && (CLASSES[c] & cls) != 0;
     }
 
-    private static <T> Set <T> setOf (T... elements) {
-        Set<T> set = new HashSet<>();
-        for (T element: elements) {
-            set.add(element);
-        }
-        return set;
-    }
-    private static <T> List<T> listOf(T... elements) {
-        List<T> list = new ArrayList<>(elements.length);
-        list.addAll(Arrays.asList(elements));
-        return list;
-    }
-    private static Set<Character>  ws             = setOf(' ','\t','\r','\n');
-    private static Set<Character>  digits         = setOf('0','1','2','3','4','5','6','7','8','9','.');
-    private static Set<Character>  wordStarting   = setOf('n','t','f');
-    private static Set<Character>  wordChars      = setOf('n','u','l','l','t','r','u','e','f','a','l','s','e');
-    private static List<EscapableCharMapping> escapableCharMappings = listOf(
-        new EscapableCharMapping('\\', '\\'),
-        new EscapableCharMapping('"', '"'),
-        new EscapableCharMapping('/', '/'),
-        new EscapableCharMapping('b', '\b'),
-        new EscapableCharMapping('f', '\f'),
-        new EscapableCharMapping('n', '\n'),
-        new EscapableCharMapping('r', '\r'),
-        new EscapableCharMapping('t', '\t')
-        //new EscapableCharMapping('u', ?), // TODO(?): handle unicode point
-    );
-    private static Set<Character>  escapableChars = escapableCharMappings.stream().map(esc -> esc.from).collect(Collectors.toSet());
+    private static final int BUFFER_SIZE   = 8192;
+    private static final int RETAINED_SIZE = 1 << 20; // largest buffer to keep between parses
+
+    private static final AtomicReferenceFieldUpdater<StreamParser, Thread>    OWNER      = AtomicReferenceFieldUpdater.newUpdater(StreamParser.class, Thread.class,    "owner");
+    private static final AtomicReferenceFieldUpdater<StreamParser, Borrowing> BORROWINGS = AtomicReferenceFieldUpdater.newUpdater(StreamParser.class, Borrowing.class, "borrowings");
+
+    /**
+     * parsers at rest, to be borrowed - a fixed number of slots, taken and given back without locking, such that
+     * no thread (platform or virtual) keeps a parser of its own
+     */
+    private static final class Pool {
+
+        private static final AtomicReferenceArray<StreamParser> slots = new AtomicReferenceArray<>(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+        private static int start() {
+            return (int) (Thread.currentThread().getId() % slots.length());
+        }
+        static StreamParser take() {
+            int n = slots.length();
+            for (int k = 0, at = start(); k < n; k++, at = (at + 1) % n) {
+                if (slots.get(at) != null) {
+                    StreamParser p = slots.getAndSet(at, null);
+                    if (p != null) {
+                        return p;
+                    }
+                }
+            }
+            return new StreamParser();
+        }
+        static void         give(StreamParser p) {
+            int n = slots.length();
+            for (int k = 0, at = start(); k < n; k++, at = (at + 1) % n) {
+                if (slots.get(at) == null && slots.compareAndSet(at, null, p)) {
+                    return;
+                }
+            }
+            /* pool full - let it go */
+        }
+    }
+    /**
+     * a parse of a busy parser, by a thread, on a borrowed parser - in a list, the latest first
+     */
+    private static final class Borrowing {
+
+        final Thread       thread;
+        final StreamParser parser;
+        final Borrowing    next;
+
+        Borrowing(Thread thread, StreamParser parser, Borrowing next) {
+            this.thread = thread;
+            this.parser = parser;
+            this.next   = next;
+        }
+    }
+
+    /**
+     * source of the characters of a serial, read in chunks
+     */
+    private interface Source {
+        /**
+         * @return number of characters read - at least 1 - or -1 if at the end of the serial
+         */
+        int read(char[] buf, int offset, int length) throws IOException;
+    }
+    /**
+     * source of the characters of a UTF-8 serial, given as a byte buffer or a file region
+     * <p>The bytes are decoded in chunks, straight into the parse buffer. A file region is mapped into memory in
+     * windows, one at a time.</p>
+     */
+    private static class Utf8Source implements Source {
+
+        private static final int MAP_WINDOW = 1 << 26;
+
+        private final Utf8Decoder decoder = new Utf8Decoder();
+        private final FileChannel channel;
+        private final long        channelEnd;
+        private       long        channelPosition;
+        private       ByteBuffer  bytes;
+        private       byte[]      chunk;
+
+        public Utf8Source(ByteBuffer bytes) {
+            this.bytes      = bytes;
+            channel         = null;
+            channelEnd      = 0;
+        }
+        public Utf8Source(FileChannel channel, long position, long size) {
+            this.channel    = channel;
+            channelPosition = position;
+            channelEnd      = position + size;
+            bytes           = ByteBuffer.allocate(0);
+        }
+
+        /**
+         * give the decoder the next chunk of bytes
+         * @return whether there was any
+         */
+        private boolean next() throws IOException {
+            while (!bytes.hasRemaining()) {
+                if (channel == null || channelPosition >= channelEnd) {
+                    return false;
+                }
+                long size = Math.min(MAP_WINDOW, channelEnd - channelPosition);
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, channelPosition, size);
+                channelPosition += size;
+            }
+            if (bytes.hasArray()) {
+                decoder.feed(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                bytes.position(bytes.limit());
+            }
+            else /* direct, e.g. mapped - copy to the heap bit by bit */ {
+                if (chunk == null) {
+                    chunk = new byte[BUFFER_SIZE];
+                }
+                int n = Math.min(chunk.length, bytes.remaining());
+                bytes.get(chunk, 0, n);
+                decoder.feed(chunk, 0, n);
+            }
+            return true;
+        }
+        @Override public int read(char[] buf, int offset, int length) throws IOException {
+            while (true) {
+                int n = decoder.decode(buf, offset, length);
+                if (n > 0) {
+                    return n;
+                }
+                if (!next()) {
+                    if (decoder.isPending()) throw new Utf8Decoder.MalformedException("malformed UTF-8 input - ends in the middle of a sequence");
+                    return -1;
+                }
+            }
+        }
+    }
 
-    private Handlers handlers;
+    private volatile Thread        owner;
+    private volatile Borrowing     borrowings;
+    private boolean                multiple = false;
+    private SpanHandlers           handlers;
+    private Source                 source;
+    private char[]                 buf;
+    private char[]                 reusable;
+    private char[]                 scratch = new char[64];
+    private int                    end;
+    private int                    i;
+    private int                    left;
+    private long                   base;
+    private long                   origin;   // position in the serial at which the parse started
+    private ParseMetrics.Counting  counting; // counts of the parse, if metrics are installed
+    private long                   fedNanos; // time taken by the chunks fed so far, if counting a parse fed in chunks
+    private State                  state;
+    private boolean                stateInObjectKey;
+    private boolean                stateStringEscaped;
+    private byte[]                 stack   = new byte[16];
+    private int[]                  entries = new int[16]; // per array or object open, its number of separators so far
+    private int                    depth;
+    private int                    stackLimit;            // the lesser of the stack's size and the greatest depth
+    private ParseLimits            limits  = ParseLimits.NONE;
+    private int                    maxDepth        = Integer.MAX_VALUE;
+    private int                    maxStringLength = Integer.MAX_VALUE;
+    private int                    maxKeyLength    = Integer.MAX_VALUE;
+    private int                    maxNumberLength = Integer.MAX_VALUE;
+    private int                    maxEntries      = Integer.MAX_VALUE;
+    private long                   maxInputLength  = Long.MAX_VALUE;
+    private boolean                skipNext;
+    private int                    skipDepth;
+    private boolean                skipInString;
+    private boolean                skipEscaping;
+    private boolean                skipRest;
+    private boolean                stopped;
+    private boolean                paused;
+    private boolean                ended;
 
-    private String resolveStringWithinQuotes(String reprWithinQuotes) {
-        for (EscapableCharMapping esc: escapableCharMappings) {
-            reprWithinQuotes = reprWithinQuotes.replace(esc.fromAsEscaping, esc.placeholder);
+    private ParseException error(String message, int at) {
+        return new ParseException(message, base + at);
+    }
+    private ParseException exceeded(String message, long position) {
+        return new ParseLimits.ExceededException(message, position);
+    }
+    /**
+     * check the length of an input that is whole in memory, before parsing it
+     */
+    private void   checkInputLength(long length) {
+        if (length > maxInputLength) throw exceeded("input longer than "+maxInputLength, origin + maxInputLength);
+    }
+    private static int hexValue(char[] src, int at, long base) {
+        char c = src[at];
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        throw new ParseException("invalid hexadecimal digit "+c+" in unicode escaping", base + at);
+    }
+    /**
+     * resolve the escapings of a string, in a single pass
+     * <p>Unicode escapings are resolved each into one (UTF-16) character, such that escaped surrogate pairs
+     * come out as the pair of characters that they are.</p>
+     * @param src    characters of the string
+     * @param offset offset of the string (within quotes) in src
+     * @param length length of the string (within quotes)
+     * @param dst    buffer into which to resolve the string - at least as long as the string
+     * @param base   position of src[0] in the serial, as to report errors
+     * @return length of the resolved string in dst
+     */
+    static int     resolveEscapings(char[] src, int offset, int length, char[] dst, long base) {
+        int n    = 0;
+        int stop = offset + length;
+        for (int k = offset; k < stop; k++) {
+            char c = src[k];
+            if (c != '\\') {
+                dst[n++] = c;
+                continue;
+            }
+            c = src[++k];
+            switch (c) {
+                case '"' :
+                case '\\':
+                case '/' : dst[n++] = c;    break;
+                case 'b' : dst[n++] = '\b'; break;
+                case 'f' : dst[n++] = '\f'; break;
+                case 'n' : dst[n++] = '\n'; break;
+                case 'r' : dst[n++] = '\r'; break;
+                case 't' : dst[n++] = '\t'; break;
+                case 'u' :
+                    if (k + 4 >= stop) throw new ParseException("incomplete unicode escaping", base + k);
+                    dst[n++] = (char) ((hexValue(src, k + 1, base) << 12) |
+                                       (hexValue(src, k + 2, base) <<  8) |
+                                       (hexValue(src, k + 3, base) <<  4) |
+                                        hexValue(src, k + 4, base));
+                    k += 4;
+                    break;
+                default  : throw new ParseException("inescapable character "+c, base + k);
+            }
         }
-        for (EscapableCharMapping esc: escapableCharMappings) {
-            reprWithinQuotes = reprWithinQuotes.replace(esc.placeholder, esc.toAsString);
+        return n;
+    }
+    /**
+     * resolve the escapings of a string in the buffer into the scratch buffer
+     * @return length of the resolved string in the scratch buffer
+     * @see #resolveEscapings(char[], int, int, char[], long)
+     */
+    private int    resolveStringWithinQuotes(int offset, int length) {
+        if (scratch.length < length) {
+            scratch = new char[Math.max(length, 2 * scratch.length)];
+        }
+        return resolveEscapings(buf, offset, length, scratch, base);
+    }
+    private static boolean isWord(char[] buf, int offset, int length, String word) {
+        if (length != word.length()) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (buf[offset + k] != word.charAt(k)) {
+                return false;
+            }
         }
-        return reprWithinQuotes;
+        return true;
     }
-    private void   handleWord(String word) {
-        if      (word.equals("true"))  { handlers.handleTrue (); }
-        else if (word.equals("false")) { handlers.handleFalse(); }
-        else if (word.equals("null"))  { handlers.handleNull (); }
-        else throw new RuntimeException("invalid word "+word);
+    private void   handleWord(int offset, int length) {
+        if      (isWord(buf, offset, length, "true"))  { handlers.handleTrue (); }
+        else if (isWord(buf, offset, length, "false")) { handlers.handleFalse(); }
+        else if (isWord(buf, offset, length, "null"))  { handlers.handleNull (); }
+        else throw error("invalid word "+new String(buf, offset, length), offset);
+    }
+    private void   handleNumber(int offset, int length) {
+        if (length > maxNumberLength) throw exceeded("number longer than "+maxNumberLength, base + offset + maxNumberLength);
+        int at = Numbers.invalidAt(buf, offset, length);
+        if (at >= 0) throw error("invalid number "+new String(buf, offset, length), at);
+        handlers.handleNumber(buf, offset, length);
+    }
+    private void   handleString(int offset, int length) {
+        int max = stateInObjectKey? maxKeyLength: maxStringLength;
+        if (length > max) throw exceeded((stateInObjectKey? "key": "string")+" longer than "+max, base + offset + max);
+        char[] sBuf = buf;
+        if (stateStringEscaped) {
+            if (counting != null) {
+                counting.escaped(buf, offset, length);
+            }
+            length = resolveStringWithinQuotes(offset, length);
+            offset = 0;
+            sBuf   = scratch;
+        }
+        if (!stateInObjectKey) {
+            handlers.handleString   (sBuf, offset, length);
+        }
+        else {
+            handlers.handleObjectKey(sBuf, offset, length);
+        }
+    }
+
+    /**
+     * an error in a JSON serial - at a position, counted in characters from the start of the serial
+     */
+    public static class ParseException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long position;
+
+        public ParseException(String message, long position) {
+            super(message+" at position "+position);
+            this.position = position;
+        }
+
+        public long position() {
+            return position;
+        }
     }
 
     /**
@@ -107,6 +385,87 @@ public class StreamParser {
         void handleObjectStart();
         void handleObjectEnd  ();
         void handleObjectKey  (String k);
+        /**
+         * called at the end of every top-level value, only if parsing {@link #multipleDocuments(boolean) multiple documents}
+         */
+        default void handleDocumentEnd() {}
+        /**
+         * called at the end of every value {@link #skipNextValue() skipped}, in place of the value's handlers
+         */
+        default void handleSkipped    () {}
+    }
+    /**
+     * handlers for JSON elements of the various types, as {@link Handlers} but receiving numbers, strings and keys
+     * as spans of characters rather than as strings - such that nothing needs to be allocated per token
+     * <p>A span is only valid for the duration of the call, since the characters behind it are reused as parsing
+     * goes. Strings and keys are given already resolved of escapings.</p>
+     */
+    public interface SpanHandlers {
+        void handleNull       ();
+        void handleNumber     (char[] buf, int offset, int length);
+        void handleString     (char[] buf, int offset, int length);
+        void handleTrue       ();
+        void handleFalse      ();
+        void handleArrayStart ();
+        void handleArrayEnd   ();
+        void handleObjectStart();
+        void handleObjectEnd  ();
+        void handleObjectKey  (char[] buf, int offset, int length);
+        /**
+         * called at the end of every top-level value, only if parsing {@link #multipleDocuments(boolean) multiple documents}
+         */
+        default void handleDocumentEnd() {}
+        /**
+         * called at the end of every value {@link #skipNextValue() skipped}, in place of the value's handlers
+         */
+        default void handleSkipped    () {}
+    }
+    /**
+     * @param handlers string-based handlers
+     * @return span handlers that call back the given handlers with strings built from the spans
+     */
+    public static SpanHandlers spanHandlersOf(Handlers handlers) {
+        return new SpanHandlers() {
+            @Override public void handleNull       () { handlers.handleNull(); }
+            @Override public void handleNumber     (char[] buf, int offset, int length) { handlers.handleNumber(new String(buf, offset, length)); }
+            @Override public void handleString     (char[] buf, int offset, int length) { handlers.handleString(new String(buf, offset, length)); }
+            @Override public void handleTrue       () { handlers.handleTrue(); }
+            @Override public void handleFalse      () { handlers.handleFalse(); }
+            @Override public void handleArrayStart () { handlers.handleArrayStart(); }
+            @Override public void handleArrayEnd   () { handlers.handleArrayEnd(); }
+            @Override public void handleObjectStart() { handlers.handleObjectStart(); }
+            @Override public void handleObjectEnd  () { handlers.handleObjectEnd(); }
+            @Override public void handleObjectKey  (char[] buf, int offset, int length) { handlers.handleObjectKey(new String(buf, offset, length)); }
+            @Override public void handleDocumentEnd() { handlers.handleDocumentEnd(); }
+            @Override public void handleSkipped    () { handlers.handleSkipped(); }
+        };
+    }
+
+    /**
+     * set whether to parse serials of multiple documents - i.e. top-level values one after another, separated by
+     * whitespace (as newline-delimited JSON) or not at all (as concatenated JSON) - rather than of exactly one
+     * <p>The end of each document is signalled by the handlers' {@code handleDocumentEnd}, as soon as the document
+     * is complete. A serial of no documents at all is valid.</p>
+     * @return this parser
+     */
+    public StreamParser multipleDocuments(boolean multiple) {
+        this.multiple = multiple;
+        return this;
+    }
+    /**
+     * set limits to what a parse takes on - by default, none
+     * @return this parser
+     * @see ParseLimits
+     */
+    public StreamParser limits(ParseLimits limits) {
+        this.limits     = limits;
+        maxDepth        = limits.maxDepth();
+        maxStringLength = limits.maxStringLength();
+        maxKeyLength    = limits.maxKeyLength();
+        maxNumberLength = limits.maxNumberLength();
+        maxEntries      = limits.maxEntries();
+        maxInputLength  = limits.maxInputLength();
+        return this;
     }
 
     /**
@@ -115,148 +474,875 @@ public class StreamParser {
      * @param handlers handlers
      */
     public void parse(String serial, Handlers handlers) {
-        State state = State.BEFORE_VALUE;
-        Boolean stateInObjectKey = false;
-        LinkedList<StackValue> stack = new LinkedList<>();
-        int left = -1;
-        this.handlers = handlers;
-        int i = 0;
-        while (true) {
-//            System.out.printf("%s :: %s\n", state, i);
-            if (i >= serial.length()) {
-                if (state == State.AFTER_VALUE) {
-                    break;
+        parse(serial, spanHandlersOf(handlers));
+    }
+    /**
+     * parse a whole JSON serial
+     * @param serial JSON serial
+     * @param handlers span handlers
+     */
+    public void parse(String serial, SpanHandlers handlers) {
+        run(p -> p._parse(serial, 0, serial.length(), handlers));
+    }
+    /**
+     * parse a whole JSON serial, given as an array of characters that is parsed in place - such that spans given to
+     * the handlers are of the array itself, at their positions in the serial, except for strings with escapings
+     */
+    void        parse(char[] serial, SpanHandlers handlers) {
+        run(p -> p._parse(serial, handlers));
+    }
+    /**
+     * @return position, in the serial, of the first character of the token being handled - e.g. a string's opening
+     * quote
+     */
+    long        tokenStart() {
+        StreamParser p = engine();
+        return p.base + p.left;
+    }
+    /**
+     * @return position, in the serial, of the character at which the token being handled ended - e.g. a string's
+     * closing quote
+     */
+    long        tokenEnd() {
+        StreamParser p = engine();
+        return p.base + p.i;
+    }
+    /**
+     * write the string or key being handled to a writer as it is in the serial - between its quotes, escapings
+     * unresolved - rather than as given to the handler
+     */
+    void        writeToken(StreamWriter writer) {
+        StreamParser p = engine();
+        if (p.stateInObjectKey) {
+            writer.writeKeyVerbatim   (p.buf, p.left + 1, p.i - p.left - 1);
+        }
+        else {
+            writer.writeStringVerbatim(p.buf, p.left + 1, p.i - p.left - 1);
+        }
+    }
+    /**
+     * parse the elements of an array, given as a range of a string - between the array's brackets
+     * <p>Handlers are called as if for the whole array, i.e. from its start to its end. Error positions count from
+     * the start of the string.</p>
+     * <p>The range may be of some of the elements, only - from just after the opening bracket or a separator, to
+     * just before the closing bracket or a separator, which is looked at as to tell whether an empty element is
+     * fine.</p>
+     */
+    void        parseElements(String serial, int from, int to, SpanHandlers handlers) {
+        run(p -> p._parseElements(serial, from, to, handlers));
+    }
+    /**
+     * parse a whole JSON serial, given as a range of a string
+     */
+    void        parse(String serial, int from, int to, SpanHandlers handlers) {
+        run(p -> p._parse(serial, from, to, handlers));
+    }
+    private void    _parseElements(String serial, int from, int to, SpanHandlers handlers) {
+        origin = from;
+        checkInputLength(to - from);
+        begin(handlers, null, buffer(to - from));
+        serial.getChars(from, to, buf, 0);
+        end    = to - from;
+        base   = from;
+        origin = from;
+        push(ARRAY);
+        handlers.handleArrayStart();
+        scan();
+        switch (state) {
+            case IN_NUMBER:
+                handleNumber(left, end - left);
+                state = State.AFTER_VALUE;
+                break;
+            case IN_WORD:
+                handleWord(left, end - left);
+                state = State.AFTER_VALUE;
+                break;
+        }
+        if (state == State.BEFORE_VALUE && depth == 1) /* nothing since the last separator - or the start */ {
+            // as if parsed whole: fine before the closing bracket, but not before another separator
+            char next = serial.charAt(to);
+            if (next != ']') throw error("invalid starting character "+next, end);
+        }
+        else if (state != State.AFTER_VALUE || depth != 1) throw error("did not close parent", end);
+        depth--;
+        handlers.handleArrayEnd();
+    }
+    private void    _parse(String serial, int from, int to, SpanHandlers handlers) {
+        origin = from;
+        checkInputLength(to - from);
+        begin(handlers, null, buffer(to - from));
+        serial.getChars(from, to, buf, 0);
+        end    = to - from;
+        base   = from;
+        origin = from;
+        scan();
+        finish();
+    }
+    private void    _parse(char[] serial, SpanHandlers handlers) {
+        checkInputLength(serial.length);
+        begin(handlers, null, serial);
+        end = serial.length;
+        scan();
+        finish();
+    }
+    /**
+     * parse a whole JSON serial, read in chunks from a reader
+     * <p>The serial is scanned through a fixed-size buffer that is refilled as parsing goes, such that memory use
+     * depends on the nesting depth and on the longest token rather than on the size of the serial.
+     * The reader is not closed.</p>
+     * @param reader reader of the JSON serial
+     * @param handlers handlers
+     */
+    public void parse(Reader reader, Handlers handlers) {
+        parse(reader, spanHandlersOf(handlers));
+    }
+    /**
+     * parse a whole JSON serial, read in chunks from a reader
+     * @param reader reader of the JSON serial
+     * @param handlers span handlers
+     * @see #parse(Reader, Handlers)
+     */
+    public void parse(Reader reader, SpanHandlers handlers) {
+        Source source = reader::read;
+        run(p -> p._parse(source, handlers));
+    }
+    /**
+     * parse a whole JSON serial, read in chunks from an input stream
+     * @param stream input stream of the JSON serial
+     * @param charset charset with which to decode the stream
+     * @param handlers handlers
+     * @see #parse(Reader, Handlers)
+     */
+    public void parse(InputStream stream, Charset charset, Handlers handlers) {
+        parse(new InputStreamReader(stream, charset), handlers);
+    }
+    /**
+     * parse a whole JSON serial, read in chunks from an input stream
+     * @param stream input stream of the JSON serial
+     * @param charset charset with which to decode the stream
+     * @param handlers span handlers
+     * @see #parse(Reader, Handlers)
+     */
+    public void parse(InputStream stream, Charset charset, SpanHandlers handlers) {
+        parse(new InputStreamReader(stream, charset), handlers);
+    }
+    /**
+     * parse a whole UTF-8 JSON serial, given as bytes
+     * <p>The bytes are decoded into the parse buffer in chunks as parsing goes, rather than into a whole string
+     * beforehand.</p>
+     * @param serial JSON serial, encoded in UTF-8
+     * @param handlers handlers
+     */
+    public void parse(byte[] serial, Handlers handlers) {
+        parse(serial, spanHandlersOf(handlers));
+    }
+    /**
+     * parse a whole UTF-8 JSON serial, given as bytes
+     * @param serial JSON serial, encoded in UTF-8
+     * @param handlers span handlers
+     * @see #parse(byte[], Handlers)
+     */
+    public void parse(byte[] serial, SpanHandlers handlers) {
+        parse(ByteBuffer.wrap(serial), handlers);
+    }
+    /**
+     * parse a whole UTF-8 JSON serial, given as the remaining bytes of a buffer - which may be direct
+     * <p>The buffer's position is left unchanged.</p>
+     * @param serial JSON serial, encoded in UTF-8
+     * @param handlers handlers
+     * @see #parse(byte[], Handlers)
+     */
+    public void parse(ByteBuffer serial, Handlers handlers) {
+        parse(serial, spanHandlersOf(handlers));
+    }
+    /**
+     * parse a whole UTF-8 JSON serial, given as the remaining bytes of a buffer - which may be direct
+     * @param serial JSON serial, encoded in UTF-8
+     * @param handlers span handlers
+     * @see #parse(ByteBuffer, Handlers)
+     */
+    public void parse(ByteBuffer serial, SpanHandlers handlers) {
+        Source source = new Utf8Source(serial.duplicate());
+        run(p -> p._parse(source, handlers));
+    }
+    /**
+     * parse a whole UTF-8 JSON serial, given as the remaining bytes of a buffer, that are a part of a larger serial
+     * @param from position (in characters) of the part in the serial, as to report errors
+     */
+    void        parse(ByteBuffer serial, long from, SpanHandlers handlers) {
+        Source source = new Utf8Source(serial.duplicate());
+        run(p -> p._parse(source, from, handlers));
+    }
+    /**
+     * parse a whole UTF-8 JSON serial, given as a region of a file
+     * <p>The region is memory-mapped, in windows of limited size, and decoded in chunks as parsing goes - such that
+     * files much larger than the heap may be parsed. The channel's position is left unchanged.</p>
+     * @param channel channel of the file
+     * @param position position of the region in the file
+     * @param size size of the region
+     * @param handlers handlers
+     */
+    public void parse(FileChannel channel, long position, long size, Handlers handlers) {
+        parse(channel, position, size, spanHandlersOf(handlers));
+    }
+    /**
+     * parse a whole UTF-8 JSON serial, given as a region of a file
+     * @param channel channel of the file
+     * @param position position of the region in the file
+     * @param size size of the region
+     * @param handlers span handlers
+     * @see #parse(FileChannel, long, long, Handlers)
+     */
+    public void parse(FileChannel channel, long position, long size, SpanHandlers handlers) {
+        Source source = new Utf8Source(channel, position, size);
+        run(p -> p._parse(source, handlers));
+    }
+
+    /**
+     * to be called from a handler: skip the next value to start - in the array or object being parsed, or at the
+     * top level - without calling back handlers for it, or anything in it
+     * <p>Skipping is a quick scan for the value's end, balancing brackets and quotes, so a skipped value is not
+     * checked for being valid JSON. If the array or object ends before another value starts, nothing is skipped.</p>
+     */
+    public void skipNextValue() {
+        engine().skipNext = true;
+    }
+    /**
+     * to be called from a handler: stop parsing, as soon as the handler returns - the rest of the serial is not
+     * read, nor checked for being valid JSON
+     */
+    public void stop() {
+        StreamParser p = engine();
+        p.stopped = true;
+        p.paused  = true;
+    }
+    /**
+     * to be called from a handler of the start of an array or object: skip the rest of it, without calling back
+     * handlers for anything in it, up to its end - which is handled
+     * @see #skipNextValue()
+     */
+    public void skipRest() {
+        StreamParser p = engine();
+        p.state        = State.SKIPPING;
+        p.skipRest     = true;
+        p.skipDepth    = 1;
+        p.skipInString = false;
+        p.skipEscaping = false;
+    }
+
+    /**
+     * begin parsing a whole JSON serial one step at a time, with {@link #pull()}
+     * <p>Parsing one step at a time is not shared - the parser is to be of the puller's own.</p>
+     */
+    void        beginPulling(String serial, SpanHandlers handlers) {
+        checkInputLength(serial.length());
+        begin(handlers, null, buffer(serial.length()));
+        serial.getChars(0, serial.length(), buf, 0);
+        end = serial.length();
+    }
+    /**
+     * @see #beginPulling(String, SpanHandlers)
+     */
+    void        beginPulling(Reader reader, SpanHandlers handlers) {
+        begin(handlers, reader::read, buffer(BUFFER_SIZE));
+    }
+    /**
+     * @see #beginPulling(String, SpanHandlers)
+     */
+    void        beginPulling(ByteBuffer utf8, SpanHandlers handlers) {
+        begin(handlers, new Utf8Source(utf8.duplicate()), buffer(BUFFER_SIZE));
+    }
+    /**
+     * to be called from a handler, when parsing one step at a time: end the step as soon as the handler returns
+     */
+    void        pause() {
+        engine().paused = true;
+    }
+    /**
+     * parse on, up to the next pause - what spans were given to the handlers before it remain valid until the next
+     * step
+     * @return whether a handler paused - as opposed to having reached the end of the serial
+     */
+    boolean     pull() {
+        paused = false;
+        while (!ended) {
+            scan();
+            if (paused) {
+                return true;
+            }
+            if (source == null || !fill()) {
+                ended = true;
+                finish();
+                return paused;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * begin parsing a serial that is fed in chunks, as they come - with {@link #feed(char[], int, int)} or
+     * {@link #feed(Utf8Decoder)}, and then {@link #endFeeding(boolean)}
+     * <p>Feeding is not shared - the parser is to be of the feeder's own.</p>
+     */
+    void        beginFeeding(SpanHandlers handlers) {
+        ParseMetrics metrics = ParseMetrics.installed;
+        counting = metrics != null? metrics.counting(): null;
+        fedNanos = 0;
+        begin(handlers, null, buffer(BUFFER_SIZE));
+    }
+    /**
+     * parse on, with a chunk of the serial - as far as it goes, keeping what of a token it ends in the middle of
+     * for the next chunk
+     */
+    void        feed(char[] chunk, int offset, int length) {
+        int stop = offset + length;
+        feed(new Source() {
+            int at = offset;
+            @Override public int read(char[] buf, int offset, int length) {
+                if (at == stop) {
+                    return -1;
                 }
-                if (!stack.isEmpty()) throw new RuntimeException("did not close parent");
-                switch (state) {
-                    case IN_NUMBER:
-                        handlers.handleNumber(serial.substring(left));
-                        break;
-                    case IN_WORD:
-                        handleWord(serial.substring(left));
-                        break;
-                    default:
-                        throw new RuntimeException("invalid");
+                int n = Math.min(length, stop - at);
+                System.arraycopy(chunk, at, buf, offset, n);
+                at += n;
+                return n;
+            }
+        });
+    }
+    /**
+     * parse on, with the chunk of bytes given to a decoder - decoded straight into the buffer
+     * @see #feed(char[], int, int)
+     */
+    void        feed(Utf8Decoder decoder) {
+        feed((buf, offset, length) -> {
+            int n = decoder.decode(buf, offset, length);
+            return n > 0? n: -1;
+        });
+    }
+    private void feed(Source chunk) {
+        long    started = counting != null? System.nanoTime(): 0;
+        boolean failed  = true;
+        source = chunk;
+        try {
+            while (!stopped && fill()) {
+                scan();
+            }
+            failed = false;
+        }
+        finally {
+            source = null;
+            if (counting != null) {
+                fedNanos += System.nanoTime() - started;
+                if (failed) {
+                    counted(true);
+                }
+            }
+        }
+    }
+    /**
+     * end parsing a serial fed in chunks - handling what was left of it, as at the end of any serial
+     * @param midSequence whether the bytes fed, if any, end in the middle of a UTF-8 sequence
+     */
+    void        endFeeding(boolean midSequence) {
+        long    started = counting != null? System.nanoTime(): 0;
+        boolean failed  = true;
+        try {
+            ended = true;
+            if (midSequence && !stopped) throw error("malformed UTF-8 input - ends in the middle of a sequence", end);
+            finish();
+            failed = false;
+        }
+        finally {
+            if (counting != null) {
+                fedNanos += System.nanoTime() - started;
+                counted(failed);
+            }
+            rest();
+        }
+    }
+    /**
+     * end counting a parse fed in chunks - into the metrics, with the time taken by the chunks, but not between them
+     */
+    private void counted(boolean failed) {
+        ParseMetrics.Counting c = counting;
+        counting = null;
+        c.parsed(base + i - origin, fedNanos, failed);
+    }
+
+    /**
+     * @return a parser at rest, from a pool - to be given back with {@link #release()}, once done with
+     */
+    static StreamParser acquire() {
+        return Pool.take();
+    }
+    /**
+     * give back a parser {@link #acquire() acquired} - not to be used any longer
+     */
+    void        release() {
+        multiple = false;
+        limits(ParseLimits.NONE);
+        Pool.give(this);
+    }
+
+    /**
+     * run a parse on this parser or, if it is busy - with another thread's parse, or with the parse that a handler
+     * of this thread's is called back from - on one borrowed from the pool
+     */
+    private void    run   (Consumer<StreamParser> parse) {
+        Thread thread = Thread.currentThread();
+        if (OWNER.compareAndSet(this, null, thread)) {
+            ParseMetrics metrics = ParseMetrics.installed;
+            try {
+                if (metrics == null) {
+                    parse.accept(this);
                 }
+                else {
+                    measure(parse, metrics);
+                }
+            }
+            finally {
+                rest();
+                owner = null;
+            }
+            return;
+        }
+        StreamParser borrowed = Pool.take();
+        borrowed.multiple = multiple;
+        borrowed.limits(limits);
+        Borrowing head;
+        do {
+            head = borrowings;
+        } while (!BORROWINGS.compareAndSet(this, head, new Borrowing(thread, borrowed, head)));
+        try {
+            borrowed.run(parse);
+        }
+        finally {
+            do {
+                head = borrowings;
+            } while (!BORROWINGS.compareAndSet(this, head, without(head, borrowed)));
+            borrowed.release();
+        }
+    }
+    /**
+     * run a parse, counting it in metrics
+     */
+    private void    measure(Consumer<StreamParser> parse, ParseMetrics metrics) {
+        long    started = System.nanoTime();
+        boolean failed  = true;
+        counting = metrics.counting();
+        try {
+            parse.accept(this);
+            failed = false;
+        }
+        finally {
+            ParseMetrics.Counting c = counting;
+            counting = null;
+            c.parsed(base + i - origin, System.nanoTime() - started, failed);
+        }
+    }
+    private static Borrowing without(Borrowing list, StreamParser parser) {
+        return list == null?          null:
+               list.parser == parser? list.next:
+                                      new Borrowing(list.thread, list.parser, without(list.next, parser));
+    }
+    /**
+     * @return parser of the parse that the calling thread is in, as to be called back from its handlers - this one,
+     * unless the parse is on a borrowed one
+     */
+    private StreamParser engine() {
+        Borrowing b = borrowings;
+        if (b == null) {
+            return this;
+        }
+        Thread thread = Thread.currentThread();
+        for (; b != null; b = b.next) {
+            if (b.thread == thread) {
+                return b.parser.engine();
+            }
+        }
+        return this;
+    }
+    /**
+     * @return buffer of at least a size - the parser's reusable one, unless too small
+     */
+    private char[]  buffer(int size) {
+        if (reusable != null && reusable.length >= size) {
+            return reusable;
+        }
+        char[] b = new char[Math.max(size, BUFFER_SIZE)];
+        if (b.length <= RETAINED_SIZE) {
+            reusable = b;
+        }
+        return b;
+    }
+    /**
+     * let go of what the parse just ended referred to - keeping only buffers, of moderate size, for reuse
+     */
+    private void    rest  () {
+        handlers = null;
+        source   = null;
+        buf      = null;
+        if (scratch.length > RETAINED_SIZE) {
+            scratch = new char[64];
+        }
+        if (stack.length > RETAINED_SIZE) {
+            stack   = new byte[16];
+            entries = new int [16];
+        }
+    }
+    private void    _parse(Source source, SpanHandlers handlers) {
+        _parse(source, 0, handlers);
+    }
+    private void    _parse(Source source, long from, SpanHandlers handlers) {
+        begin(handlers, source, buffer(BUFFER_SIZE));
+        base   = from;
+        origin = from;
+        while (!stopped && fill()) {
+            scan();
+        }
+        finish();
+    }
+    private void    begin (SpanHandlers handlers, Source source, char[] buf) {
+        if (counting != null) {
+            counting.handlers = handlers;
+            handlers          = counting;
+        }
+        this.handlers    = handlers;
+        this.source      = source;
+        this.buf         = buf;
+        end              = 0;
+        i                = 0;
+        base             = 0;
+        origin           = 0;
+        left             = -1;
+        state            = State.BEFORE_VALUE;
+        stateInObjectKey = false;
+        stateStringEscaped = false;
+        depth            = 0;
+        stackLimit       = Math.min(stack.length, maxDepth);
+        skipNext         = false;
+        skipRest         = false;
+        stopped          = false;
+        paused           = false;
+        ended            = false;
+    }
+    private void    push  (byte kind) {
+        if (depth >= stackLimit) {
+            if (depth >= maxDepth) throw exceeded("deeper than "+maxDepth, base + i);
+            stack      = Arrays.copyOf(stack,   2 * depth);
+            entries    = Arrays.copyOf(entries, 2 * depth);
+            stackLimit = Math.min(stack.length, maxDepth);
+        }
+        entries[depth] = 0;
+        stack[depth++] = kind;
+    }
+    /**
+     * @return greatest length of the token being scanned, as far as is in the serial - to fail a token too long
+     * before buffering any more of it
+     */
+    private long    tokenLimit() {
+        switch (state) {
+            case IN_NUMBER: return maxNumberLength;
+            case IN_WORD  : return 5; // of "false"
+            default       : return 1 + (long) (stateInObjectKey? maxKeyLength: maxStringLength); // and the opening quote
+        }
+    }
+    private boolean inToken() {
+        return state == State.IN_NUMBER ||
+               state == State.IN_WORD   ||
+               state == State.IN_STRING ||
+               state == State.IN_STRING_ESCAPING;
+    }
+    /**
+     * read more of the serial into the buffer - discarding what is no longer needed, i.e. everything before the
+     * current position or, if in the middle of a token, before the token's start
+     * @return whether anything was read, as opposed to having reached the end of the serial
+     */
+    private boolean fill() {
+        boolean inToken = inToken();
+        int     keep    = inToken? left: i;
+        if (inToken && i - left > tokenLimit()) {
+            long at = base + left + tokenLimit();
+            switch (state) {
+                case IN_NUMBER: throw exceeded("number longer than "+maxNumberLength, at);
+                case IN_WORD  : throw error   ("invalid word "+new String(buf, left, i - left), left);
+                default       : throw exceeded((stateInObjectKey? "key": "string")+" longer than "+(tokenLimit() - 1), at);
+            }
+        }
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, end - keep);
+            end  -= keep;
+            i    -= keep;
+            base += keep;
+            left -= keep;
+        }
+        if (buf.length - end < 2) /* token (about as) long as the buffer */ {
+            buf = Arrays.copyOf(buf, 2 * buf.length);
+            if (buf.length <= RETAINED_SIZE) {
+                reusable = buf;
+            }
+        }
+        int n;
+        try {
+            n = source.read(buf, end, buf.length - end);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (Utf8Decoder.MalformedException ex) /* at the character after those decoded */ {
+            throw error(ex.getMessage(), end);
+        }
+        if (n < 0) {
+            return false;
+        }
+        end += n;
+        if (base + end - origin > maxInputLength) throw exceeded("input longer than "+maxInputLength, origin + maxInputLength);
+        return true;
+    }
+    /**
+     * move on from a value just finished - to after it or, if it is a whole document and there may be more,
+     * to before the next one
+     */
+    private void    valueDone() {
+        if (multiple && depth == 0) {
+            handlers.handleDocumentEnd();
+            state = State.BEFORE_VALUE;
+        }
+        else {
+            state = State.AFTER_VALUE;
+        }
+    }
+    /**
+     * handle what is left of the serial, once its end is reached
+     */
+    private void    finish() {
+        if (stopped) {
+            return;
+        }
+        if (depth != 0) throw error("did not close parent", end);
+        if (state == State.AFTER_VALUE) {
+            return;
+        }
+        switch (state) {
+            case IN_NUMBER:
+                handleNumber(left, end - left);
+                valueDone();
+                break;
+            case IN_WORD:
+                handleWord(left, end - left);
+                valueDone();
                 break;
+            case SKIPPING:
+                if (skipDepth > 0 || skipInString) throw error("did not close skipped value", end);
+                handlers.handleSkipped();
+                valueDone();
+                break;
+            case BEFORE_VALUE:
+                if (!multiple) /* not even a single document */ {
+                    throw error("invalid", end);
+                }
+                break;
+            default:
+                throw error("invalid", end);
+        }
+    }
+    /**
+     * scan the buffer for the end of a value being skipped
+     * @return whether the value ended - if not, the buffer is exhausted
+     */
+    private boolean skip  () {
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (skipInString) {
+                if      (skipEscaping) { skipEscaping = false; }
+                else if (c == '\\')   { skipEscaping = true;  }
+                else if (c != '"')     {
+                    i = Scanning.stringEnd(buf, i + 1, end) - 1;
+                }
+                else if (c == '"')     {
+                    skipInString = false;
+                    if (skipDepth == 0) /* a string */ {
+                        i++;
+                        return true;
+                    }
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    skipInString = true;
+                    break;
+                case '[':
+                case '{':
+                    skipDepth++;
+                    break;
+                case ']':
+                case '}':
+                    if (skipDepth == 0) /* a number or word, ended by its parent's end */ {
+                        return true;
+                    }
+                    if (--skipDepth == 0) /* an array or object - or the rest of one, up to but not including its end */ {
+                        if (!skipRest) {
+                            i++;
+                        }
+                        return true;
+                    }
+                    break;
+                case ',' :
+                case ' ' :
+                case '\t':
+                case '\r':
+                case '\n':
+                    if (skipDepth == 0) /* a number or word */ {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+    /**
+     * scan the buffer up to its end, calling back handlers as elements are found
+     * <p>Scanning may stop in the middle of a token, in which case it is resumed from the token's start with
+     * the next call, once the buffer is refilled.</p>
+     */
+    private void    scan  () {
+        while (true) {
+//            System.out.printf("%s :: %s\n", state, i);
+            if (i >= end || paused) {
+                return;
             }
-            char c = serial.charAt(i);
+            char c = buf[i];
 //            System.out.printf("    %s\n", c);
             switch (state) {
                 case BEFORE_VALUE:
-                    if (digits.contains(c)) {
+                    if (skipNext && !is(c, WS) && c != ']') {
+                        skipNext     = false;
+                        skipDepth    = 0;
+                        skipInString = false;
+                        skipEscaping = false;
+                        left         = i;
+                        state        = State.SKIPPING;
+                        continue;
+                    }
+                    else if (is(c, NUMBER_STARTING)) {
                         state = State.IN_NUMBER;
                     }
-                    else if (wordStarting.contains(c)) {
+                    else if (is(c, WORD_STARTING)) {
                         state = State.IN_WORD;
                     }
                     else if (c == '"') {
                         state = State.IN_STRING;
                         stateInObjectKey = false;
+                        stateStringEscaped = false;
                     }
                     else if (c == '[') {
-                        stack.add(StackValue.ARRAY);
-                        handlers.handleArrayStart();
+                        push(ARRAY);
                         state = State.BEFORE_VALUE;
+                        handlers.handleArrayStart();
                     }
                     else if (c == '{') {
-                        stack.add(StackValue.OBJECT);
-                        handlers.handleObjectStart();
+                        push(OBJECT);
                         state = State.BEFORE_KEY;
+                        handlers.handleObjectStart();
                     }
-                    else if (ws.contains(c)) {
-                        /*pass*/
+                    else if (is(c, WS)) {
+                        i = Scanning.whitespaceEnd(buf, i + 1, end) - 1;
                     }
-                    else if (c == ']') {
+                    else if (c == ']' && depth != 0) {
                         state = State.AFTER_VALUE;
                         continue;
                     }
                     else {
-                        throw new RuntimeException("invalid starting character "+c);
+                        throw error("invalid starting character "+c, i);
                     }
                     left = i;
                     i++;
                     break;
                 case IN_NUMBER:
-                    if (digits.contains(c)) {
+                    while (i < end && is(buf[i], NUMBER)) {
                         i++;
                     }
-                    else {
-                        handlers.handleNumber(serial.substring(left, i));
-                        state = State.AFTER_VALUE;
+                    if (i < end) {
+                        handleNumber(left, i - left);
+                        valueDone();
                     }
                     break;
                 case IN_WORD:
-                    if (wordChars.contains(c)) {
+                    while (i < end && is(buf[i], WORD)) {
                         i++;
                     }
-                    else {
-                        handleWord(serial.substring(left, i));
-                        state = State.AFTER_VALUE;
+                    if (i < end) {
+                        handleWord(left, i - left);
+                        valueDone();
                     }
                     break;
                 case IN_STRING:
                     if (c == '\\') {
                         i++;
                         state = State.IN_STRING_ESCAPING;
+                        stateStringEscaped = true;
                     }
                     else if (c != '"') {
-                        i++;
+                        i = Scanning.stringEnd(buf, i + 1, end);
                     }
                     else {
-                        String s = resolveStringWithinQuotes(serial.substring(left +1, i));
+                        handleString(left +1, i - left -1);
                         if (!stateInObjectKey) {
-                            handlers.handleString(s);
-                            state = State.AFTER_VALUE;
+                            valueDone();
                         }
                         else {
-                            handlers.handleObjectKey(s);
                             state = State.AFTER_KEY;
                         }
                         i++;
                     }
                     break;
                 case IN_STRING_ESCAPING:
-                    if (!escapableChars.contains(c)) {
-                        throw new RuntimeException("inescapable character "+c);
+                    if (!is(c, ESCAPABLE)) {
+                        throw error("inescapable character "+c, i);
                     }
                     i++;
                     state = State.IN_STRING;
                     break;
                 case AFTER_VALUE:
-                    if (ws.contains(c)) {
-                        /*pass*/
+                    if (is(c, WS)) {
+                        i = Scanning.whitespaceEnd(buf, i + 1, end) - 1;
                     }
                     else if (c == ',') {
-                        if (!(stack.getLast() == StackValue.ARRAY  ||
-                              stack.getLast() == StackValue.OBJECT)) {
-                            throw new RuntimeException("value / entry "+c+" separator not expected");
+                        if (depth == 0) {
+                            throw error("value / entry "+c+" separator not expected", i);
                         }
-                        state = stack.getLast() == StackValue.ARRAY? State.BEFORE_VALUE: State.BEFORE_KEY;
+                        if (++entries[depth - 1] >= maxEntries) throw exceeded("more than "+maxEntries+" entries", base + i);
+                        state = stack[depth - 1] == ARRAY? State.BEFORE_VALUE: State.BEFORE_KEY;
                     }
                     else if (c == ']') {
-                        if (stack.getLast() != StackValue.ARRAY) throw new RuntimeException("bad closing character "+c+" - not in array");
-                        stack.removeLast();
+                        if (depth == 0 || stack[depth - 1] != ARRAY) throw error("bad closing character "+c+" - not in array", i);
+                        depth--;
+                        skipNext = false;
                         handlers.handleArrayEnd();
-                        state = State.AFTER_VALUE;
+                        valueDone();
                     }
                     else if (c == '}') {
-                        if (stack.getLast() != StackValue.OBJECT) throw new RuntimeException("bad closing character "+c+" - not in object");
-                        stack.removeLast();
+                        if (depth == 0 || stack[depth - 1] != OBJECT) throw error("bad closing character "+c+" - not in object", i);
+                        depth--;
+                        skipNext = false;
                         handlers.handleObjectEnd();
-                        state = State.AFTER_VALUE;
+                        valueDone();
                     }
-                    else throw new RuntimeException("invalid character "+c+" after value");
+                    else throw error("invalid character "+c+" after value", i);
                     left = i;
                     i++;
                     break;
                 case BEFORE_KEY:
-                    if (ws.contains(c)) {
-                        /*pass*/
+                    if (is(c, WS)) {
+                        i = Scanning.whitespaceEnd(buf, i + 1, end) - 1;
                     }
                     else if (c == '"') {
                         state = State.IN_STRING;
                         stateInObjectKey = true;
+                        stateStringEscaped = false;
                     }
                     else if (c == '}') {
                         state = State.AFTER_VALUE;
@@ -265,9 +1351,22 @@ public class StreamParser {
                     left = i;
                     i++;
                     break;
+                case SKIPPING:
+                    if (!skip()) {
+                        break;
+                    }
+                    if (skipRest) {
+                        skipRest = false;
+                        state    = State.AFTER_VALUE;
+                    }
+                    else {
+                        handlers.handleSkipped();
+                        valueDone();
+                    }
+                    break;
                 case AFTER_KEY:
-                    if (ws.contains(c)) {
-                        /*pass*/
+                    if (is(c, WS)) {
+                        i = Scanning.whitespaceEnd(buf, i + 1, end) - 1;
                     }
                     else if (c == ':') {
                         state = State.BEFORE_VALUE;
@@ -276,7 +1375,7 @@ public class StreamParser {
                     i++;
                     break;
                 default:
-                    throw new RuntimeException("invalid");
+                    throw error("invalid", i);
             }
         }
     }
@@ -0,0 +1,583 @@
+package jl95.json;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A transform of JSON serials into JSON serials, as they are parsed - the stream-parser's events going through
+ * stages, one after another, and then straight into a {@link StreamWriter}, without building any nodes.
+ * <p>Stages {@link #drop(String...) drop} the values at paths, {@link #rename(String, String) rename} the keys at
+ * paths, {@link #replace(String, Node) replace} the values at paths or {@link #project(String...) project} the serial
+ * onto paths - the paths being as for the {@link PathExtractor}. Each stage works on the serial as the stages before
+ * it left it, e.g. a stage after a rename sees the key renamed. A value replaced is seen by the stages after as a
+ * whole, i.e. they do not go into it.</p>
+ * <p>Values dropped or replaced are skipped by the stream-parser, with nothing read into them. Strings, keys and
+ * numbers that go through untouched are written as they are in the serial, escapings and all, rather than resolved
+ * and escaped again. Nothing is kept but the way to the value at hand - so memory is the same, whatever the size of
+ * the serial.</p>
+ * <p>A transform is immutable - each stage added gives a transform like this one, but with the stage at the end. What
+ * is skipped is not checked for being valid JSON, and the output of a serial found invalid halfway is left
+ * halfway.</p>
+ */
+public final class StreamTransform {
+
+    private static final StreamTransform IDENTITY = new StreamTransform(Collections.emptyList());
+
+    private final List<Supplier<Stage>> stages;
+
+    private StreamTransform(List<Supplier<Stage>> stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * @return transform of no stages - that writes serials as they are, but for formatting
+     */
+    public static StreamTransform of() {
+        return IDENTITY;
+    }
+
+    private StreamTransform with(Supplier<Stage> stage) {
+        List<Supplier<Stage>> stages = new ArrayList<>(this.stages);
+        stages.add(stage);
+        return new StreamTransform(Collections.unmodifiableList(stages));
+    }
+    private static PathExtractor.Segment[][] compile(String... expressions) {
+        PathExtractor.Segment[][] paths = new PathExtractor.Segment[expressions.length][];
+        for (int p = 0; p < expressions.length; p++) {
+            paths[p] = PathExtractor.compile(expressions[p]);
+        }
+        return paths;
+    }
+
+    /**
+     * @param paths paths of the values to drop - of an object, along with their keys
+     * @return this transform, with a stage that drops values
+     */
+    public StreamTransform drop   (String... paths) {
+        PathExtractor.Segment[][] compiled = compile(paths);
+        return with(() -> new Drop(compiled));
+    }
+    /**
+     * @param path path of the keys to rename - which ends at a key, rather than at an index
+     * @param key  new key
+     * @return this transform, with a stage that renames keys
+     */
+    public StreamTransform rename (String path, String key) {
+        PathExtractor.Segment[][] compiled = compile(path);
+        PathExtractor.Segment[]   segments = compiled[0];
+        if (segments.length == 0 || (segments[segments.length - 1].key == null && !segments[segments.length - 1].wildcard)) {
+            throw new IllegalArgumentException("not a path to keys: "+path);
+        }
+        char[] chars = key.toCharArray();
+        return with(() -> new Rename(compiled, chars));
+    }
+    /**
+     * @param path  path of the values to replace
+     * @param value value to replace them with
+     * @return this transform, with a stage that replaces values
+     */
+    public StreamTransform replace(String path, Node value) {
+        PathExtractor.Segment[][] compiled = compile(path);
+        return with(() -> new Replace(compiled, value));
+    }
+    /**
+     * @param paths paths of the values to keep - whatever is not at, in or on the way to any of them is dropped
+     * @return this transform, with a stage that projects the serial onto paths
+     */
+    public StreamTransform project(String... paths) {
+        PathExtractor.Segment[][] compiled = compile(paths);
+        return with(() -> new Project(compiled));
+    }
+
+    /**
+     * transform a JSON serial, writing it to a stream-writer - without flushing it
+     */
+    public void   transform(String serial, StreamWriter writer) {
+        run(writer, (parser, run) -> parser.parse(serial, run));
+    }
+    /**
+     * @see #transform(String, StreamWriter)
+     */
+    public void   transform(Reader reader, StreamWriter writer) {
+        run(writer, (parser, run) -> parser.parse(reader, run));
+    }
+    /**
+     * @param utf8 JSON serial, encoded in UTF-8
+     * @see #transform(String, StreamWriter)
+     */
+    public void   transform(byte[] utf8, StreamWriter writer) {
+        run(writer, (parser, run) -> parser.parse(utf8, run));
+    }
+    /**
+     * transform a JSON serial read from an input stream, in UTF-8, writing it to an output stream, in UTF-8 and
+     * compactly - flushing it at the end
+     */
+    public void   transform(InputStream stream, OutputStream out) {
+        StreamWriter writer = StreamWriter.of(out);
+        run(writer, (parser, run) -> parser.parse(stream, StandardCharsets.UTF_8, run));
+        writer.flush();
+    }
+    /**
+     * @return the JSON serial transformed, written compactly
+     */
+    public String transform(String serial) {
+        StringBuilder sb     = new StringBuilder();
+        StreamWriter  writer = StreamWriter.of(sb, false);
+        transform(serial, writer);
+        writer.flush();
+        return sb.toString();
+    }
+
+    private void run(StreamWriter writer, BiConsumer<StreamParser, Run> parse) {
+        Run run = new Run(writer);
+        try {
+            parse.accept(run.parser, run);
+        }
+        finally {
+            run.parser.release();
+        }
+    }
+
+    /**
+     * events of a serial, as transformed so far - as the stream-parser's, but for values given whole
+     */
+    private interface Events extends StreamParser.SpanHandlers {
+
+        /**
+         * a value given whole, as by a replacement - in place of the events of it
+         */
+        void handleNode(Node node);
+    }
+
+    /**
+     * array or object on the way to the value at hand
+     */
+    private static final class Frame {
+
+        final boolean array;
+        final boolean matched; // whether it is itself at some path
+        final int[]   live;    // paths that go through it
+        int           index;   // of the next element, if an array
+
+        Frame(boolean array, boolean matched, int[] live) {
+            this.array   = array;
+            this.matched = matched;
+            this.live    = live;
+        }
+    }
+
+    /**
+     * stage of a transform - which follows where in the serial the events it is given are, as to its paths, and
+     * passes them on, transformed, to the next stage
+     * <p>A stage may take values, at the positions of which it asks the stage before - or the stream-parser, if the
+     * first - to skip them. Whatever of a value taken comes anyway is not passed on.</p>
+     */
+    private abstract static class Stage implements Events {
+
+        final PathExtractor.Segment[][] paths;
+        final List<Frame>               frames = new ArrayList<>();
+        final int[]                     candidates;     // paths that match as far as the next value
+        int                             candidateCount;
+        Events                          next;
+        Stage                           up;             // or null, if the first
+        StreamParser                    parser;
+        int                             within;         // number of arrays and objects open that are at some path
+        boolean                         matched;        // whether the next value is at some path
+        boolean                         onPath;         // whether some path goes through the next value
+        boolean                         take;           // whether the next value is taken
+        int                             takenDepth;     // arrays and objects open, of the value being taken
+        boolean                         skipAsked;      // whether the next stage asked to skip, while a value was taken
+
+        Stage(PathExtractor.Segment[][] paths) {
+            this.paths      = paths;
+            this.candidates = new int[paths.length];
+        }
+
+        /**
+         * @return whether to take the next value, at the position just found
+         */
+        abstract boolean takes();
+        /**
+         * pass on a key - unless its value is taken
+         */
+        void    key   (char[] buf, int offset, int length) {
+            if (!take) {
+                next.handleObjectKey(buf, offset, length);
+            }
+        }
+        /**
+         * @return whether to pass on a value, not taken, as it starts - for arrays and objects, it must
+         */
+        boolean starts(boolean container) {
+            return true;
+        }
+        /**
+         * a value taken has ended - and the position of the next value has been found
+         */
+        void    taken () {
+            if (skipAsked && !take) /* the next stage's next value comes after the one taken */ {
+                skipAsked = false;
+                skipUpstream();
+            }
+        }
+
+        final void begin(Events next, Stage up, StreamParser parser) {
+            this.next   = next;
+            this.up     = up;
+            this.parser = parser;
+            for (int p = 0; p < paths.length; p++) {
+                candidates[p] = p;
+            }
+            candidateCount = paths.length;
+            position();
+        }
+        private void skipUpstream() {
+            if (up != null) {
+                up.skipNextValue();
+            }
+            else {
+                parser.skipNextValue();
+            }
+        }
+        /**
+         * asked by the next stage: skip its next value
+         */
+        final void skipNextValue() {
+            if (take) /* which is not this stage's next value */ {
+                skipAsked = true;
+            }
+            else {
+                skipUpstream();
+            }
+        }
+        private void position() {
+            int depth = frames.size();
+            matched = false;
+            onPath  = false;
+            for (int k = 0; k < candidateCount; k++) {
+                if (paths[candidates[k]].length == depth) matched = true;
+                else                                      onPath  = true;
+            }
+            take = takes();
+            if (take) {
+                skipUpstream();
+            }
+        }
+        private void beforeKey() {
+            candidateCount = 0;
+            take           = false;
+        }
+        private void element(Frame array) {
+            int depth = frames.size();
+            candidateCount = 0;
+            for (int p: array.live) {
+                if (paths[p][depth - 1].matches(array.index)) {
+                    candidates[candidateCount++] = p;
+                }
+            }
+            position();
+        }
+        private void valueEnded() {
+            if (frames.isEmpty()) {
+                beforeKey();
+                return;
+            }
+            Frame parent = frames.get(frames.size() - 1);
+            if (parent.array) {
+                parent.index++;
+                element(parent);
+            }
+            else {
+                beforeKey();
+            }
+        }
+        /**
+         * @return whether to pass on a value of a single event
+         */
+        private boolean value(boolean skipped, boolean container) {
+            if (takenDepth > 0) {
+                return false;
+            }
+            if (take) {
+                valueEnded();
+                taken();
+                return false;
+            }
+            boolean pass = skipped || starts(container);
+            valueEnded();
+            return pass;
+        }
+        /**
+         * @return whether to pass on the start of an array or object
+         */
+        private boolean open(boolean array) {
+            if (takenDepth > 0) {
+                takenDepth++;
+                return false;
+            }
+            if (take) {
+                take       = false;
+                takenDepth = 1;
+                return false;
+            }
+            starts(true);
+            int   depth = frames.size();
+            int[] live  = new int[candidateCount];
+            int   n     = 0;
+            for (int k = 0; k < candidateCount; k++) {
+                if (paths[candidates[k]].length > depth) {
+                    live[n++] = candidates[k];
+                }
+            }
+            Frame frame = new Frame(array, matched, n == live.length? live: Arrays.copyOf(live, n));
+            frames.add(frame);
+            if (matched) {
+                within++;
+            }
+            if (array) {
+                element(frame);
+            }
+            else {
+                beforeKey();
+            }
+            return true;
+        }
+        /**
+         * @return whether to pass on the end of an array or object
+         */
+        private boolean close() {
+            if (takenDepth > 0) {
+                if (--takenDepth == 0) {
+                    valueEnded();
+                    taken();
+                }
+                return false;
+            }
+            take      = false; // of an element that there was not after all
+            skipAsked = false;
+            Frame frame = frames.remove(frames.size() - 1);
+            if (frame.matched) {
+                within--;
+            }
+            valueEnded();
+            return true;
+        }
+
+        @Override public void handleNull       () { if (value(false, false)) next.handleNull (); }
+        @Override public void handleTrue       () { if (value(false, false)) next.handleTrue (); }
+        @Override public void handleFalse      () { if (value(false, false)) next.handleFalse(); }
+        @Override public void handleNumber     (char[] buf, int offset, int length) { if (value(false, false)) next.handleNumber(buf, offset, length); }
+        @Override public void handleString     (char[] buf, int offset, int length) { if (value(false, false)) next.handleString(buf, offset, length); }
+        @Override public void handleSkipped    () { if (value(true,  false)) next.handleSkipped(); }
+        @Override public void handleNode       (Node node) {
+            boolean container = node.type() == Node.Type.LIST || node.type() == Node.Type.MAP;
+            if (value(false, container)) next.handleNode(node);
+        }
+        @Override public void handleArrayStart () { if (open(true))  next.handleArrayStart (); }
+        @Override public void handleObjectStart() { if (open(false)) next.handleObjectStart(); }
+        @Override public void handleArrayEnd   () { if (close())     next.handleArrayEnd   (); }
+        @Override public void handleObjectEnd  () { if (close())     next.handleObjectEnd  (); }
+        @Override public void handleObjectKey  (char[] buf, int offset, int length) {
+            if (takenDepth > 0) {
+                return;
+            }
+            Frame object = frames.get(frames.size() - 1);
+            int   depth  = frames.size();
+            candidateCount = 0;
+            for (int p: object.live) {
+                if (paths[p][depth - 1].matches(buf, offset, length)) {
+                    candidates[candidateCount++] = p;
+                }
+            }
+            position();
+            key(buf, offset, length);
+        }
+    }
+
+    private static final class Drop extends Stage {
+
+        Drop(PathExtractor.Segment[][] paths) {
+            super(paths);
+        }
+
+        @Override boolean takes() {
+            return matched;
+        }
+    }
+
+    private static final class Rename extends Stage {
+
+        final char[] key;
+
+        Rename(PathExtractor.Segment[][] paths, char[] key) {
+            super(paths);
+            this.key = key;
+        }
+
+        @Override boolean takes() {
+            return false;
+        }
+        @Override void    key  (char[] buf, int offset, int length) {
+            if (matched) {
+                next.handleObjectKey(key, 0, key.length);
+            }
+            else {
+                next.handleObjectKey(buf, offset, length);
+            }
+        }
+    }
+
+    private static final class Replace extends Stage {
+
+        final Node value;
+
+        Replace(PathExtractor.Segment[][] paths, Node value) {
+            super(paths);
+            this.value = value;
+        }
+
+        @Override boolean takes() {
+            return matched;
+        }
+        @Override void    key  (char[] buf, int offset, int length) {
+            next.handleObjectKey(buf, offset, length);
+        }
+        @Override void    taken() {
+            if (skipAsked) /* the next stage's next value is the replacement */ {
+                skipAsked = false;
+                next.handleSkipped();
+            }
+            else {
+                next.handleNode(value);
+            }
+        }
+    }
+
+    private static final class Project extends Stage {
+
+        char[]  deferredKey = new char[64]; // of a value on the way to some path - passed on if an array or object
+        int     deferredLength;
+        boolean deferred;
+
+        Project(PathExtractor.Segment[][] paths) {
+            super(paths);
+        }
+
+        @Override boolean takes () {
+            return !(matched || onPath || within > 0);
+        }
+        @Override void    key   (char[] buf, int offset, int length) {
+            if (take) {
+                return;
+            }
+            if (matched || within > 0) {
+                next.handleObjectKey(buf, offset, length);
+                return;
+            }
+            if (deferredKey.length < length) {
+                deferredKey = new char[Math.max(length, 2 * deferredKey.length)];
+            }
+            System.arraycopy(buf, offset, deferredKey, 0, length);
+            deferredLength = length;
+            deferred       = true;
+        }
+        @Override boolean starts(boolean container) {
+            if (matched || within > 0) {
+                return true;
+            }
+            if (deferred) {
+                deferred = false;
+                if (container) {
+                    next.handleObjectKey(deferredKey, 0, deferredLength);
+                }
+            }
+            return container;
+        }
+    }
+
+    /**
+     * handlers of the stream-parser's events - which go through the stages, and then to the writer
+     */
+    private final class Run implements StreamParser.SpanHandlers {
+
+        final StreamParser parser = StreamParser.acquire();
+        final StreamWriter writer;
+        final Events       first;
+        char[]             span;       // of the string or key being handled, as given by the parser
+        int                spanOffset;
+        int                spanLength;
+
+        Run(StreamWriter writer) {
+            this.writer = writer;
+            Stage[] made = new Stage[stages.size()];
+            for (int k = 0; k < made.length; k++) {
+                made[k] = stages.get(k).get();
+            }
+            Events output = new Output();
+            for (int k = 0; k < made.length; k++) /* from the first, such that stages ask to skip only of stages ready */ {
+                made[k].begin(k + 1 < made.length? made[k + 1]: output, k > 0? made[k - 1]: null, parser);
+            }
+            first = made.length > 0? made[0]: output;
+        }
+
+        /**
+         * @return whether a span is of the string or key being handled, as given by the parser - i.e. untouched
+         */
+        boolean untouched(char[] buf, int offset, int length) {
+            return buf == span && offset == spanOffset && length == spanLength;
+        }
+
+        @Override public void handleNull       () { first.handleNull       (); }
+        @Override public void handleTrue       () { first.handleTrue       (); }
+        @Override public void handleFalse      () { first.handleFalse      (); }
+        @Override public void handleNumber     (char[] buf, int offset, int length) { first.handleNumber(buf, offset, length); }
+        @Override public void handleArrayStart () { first.handleArrayStart (); }
+        @Override public void handleArrayEnd   () { first.handleArrayEnd   (); }
+        @Override public void handleObjectStart() { first.handleObjectStart(); }
+        @Override public void handleObjectEnd  () { first.handleObjectEnd  (); }
+        @Override public void handleSkipped    () { first.handleSkipped    (); }
+        @Override public void handleString     (char[] buf, int offset, int length) {
+            span = buf; spanOffset = offset; spanLength = length;
+            first.handleString(buf, offset, length);
+            span = null;
+        }
+        @Override public void handleObjectKey  (char[] buf, int offset, int length) {
+            span = buf; spanOffset = offset; spanLength = length;
+            first.handleObjectKey(buf, offset, length);
+            span = null;
+        }
+
+        /**
+         * end of the stages - the writer
+         */
+        private final class Output implements Events {
+
+            @Override public void handleNull       () { writer.writeNull       (); }
+            @Override public void handleTrue       () { writer.writeTrue       (); }
+            @Override public void handleFalse      () { writer.writeFalse      (); }
+            @Override public void handleNumber     (char[] buf, int offset, int length) { writer.writeNumber(buf, offset, length); }
+            @Override public void handleArrayStart () { writer.writeArrayStart (); }
+            @Override public void handleArrayEnd   () { writer.writeArrayEnd   (); }
+            @Override public void handleObjectStart() { writer.writeObjectStart(); }
+            @Override public void handleObjectEnd  () { writer.writeObjectEnd  (); }
+            @Override public void handleNode       (Node node) { NodeSerializer.serialize(node, writer); }
+            @Override public void handleSkipped    () { throw new AssertionError("value skipped that no stage took"); }
+            @Override public void handleString     (char[] buf, int offset, int length) {
+                if (untouched(buf, offset, length)) parser.writeToken(writer);
+                else                                writer.writeString(buf, offset, length);
+            }
+            @Override public void handleObjectKey  (char[] buf, int offset, int length) {
+                if (untouched(buf, offset, length)) parser.writeToken(writer);
+                else                                writer.writeKey(buf, offset, length);
+            }
+        }
+    }
+}
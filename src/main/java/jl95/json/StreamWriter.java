@@ -0,0 +1,481 @@
+package jl95.json;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A JSON stream-writer - the writing counterpart of the {@link StreamParser}.
+ * JSON elements are written one by one, as by the calls of the stream-parser's handlers, and separators,
+ * indentation and escapings are taken care of by the writer. Output goes through an internal buffer that is reused
+ * throughout and that is emptied into the target only when full or flushed - so remember to {@link #flush()}.
+ * <p>Top-level values written one after another are separated by new lines - i.e. as newline-delimited JSON.</p>
+ */
+public class StreamWriter implements Flushable {
+
+    private static final int       BUFFER_SIZE  = 8192;
+    private static final String    INDENT       = "  ";
+    private static final byte      ARRAY        = 0;
+    private static final byte      OBJECT       = 1;
+    private static final char[]    HEX          = "0123456789abcdef".toCharArray();
+    private static final boolean[] NEEDS_ESCAPE = new boolean[128];
+    private static final double[]  POW10        = new double[18];
+    private static final double    EXACT_LIMIT  = 9007199254740992.0; // 2^53
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            NEEDS_ESCAPE[c] = true;
+        }
+        NEEDS_ESCAPE['"']  = true;
+        NEEDS_ESCAPE['\\'] = true;
+        POW10[0] = 1;
+        for (int k = 1; k < POW10.length; k++) {
+            POW10[k] = 10 * POW10[k - 1];
+        }
+    }
+
+    /**
+     * target of the written characters
+     */
+    private interface Sink {
+        void write(char[] buf, int length) throws IOException;
+        void flush() throws IOException;
+    }
+    /**
+     * target of the written characters, as encoded in UTF-8
+     */
+    private static abstract class Utf8Sink implements Sink {
+        protected final byte[] bytes = new byte[3 * BUFFER_SIZE];
+        /**
+         * encode characters into the byte buffer - unpaired surrogates as '?', as does {@link String#getBytes}
+         * @return number of bytes
+         */
+        protected int encode(char[] buf, int length) {
+            int n = 0;
+            for (int k = 0; k < length; k++) {
+                char c = buf[k];
+                if (c < 0x80) {
+                    bytes[n++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    bytes[n++] = (byte) (0xC0 | (c >> 6));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+                else if (Character.isHighSurrogate(c) && k + 1 < length && Character.isLowSurrogate(buf[k + 1])) {
+                    int cp = Character.toCodePoint(c, buf[++k]);
+                    bytes[n++] = (byte) (0xF0 | (cp >> 18));
+                    bytes[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | ((cp >>  6) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | (cp & 0x3F));
+                }
+                else if (Character.isSurrogate(c)) {
+                    bytes[n++] = '?';
+                }
+                else {
+                    bytes[n++] = (byte) (0xE0 | (c >> 12));
+                    bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return n;
+        }
+    }
+
+    private final Sink      sink;
+    private final boolean   pretty;
+    private final char[]    buf      = new char[BUFFER_SIZE];
+    private       int       end      = 0;
+    private       byte[]    stack    = new byte   [16];
+    private       boolean[] nonEmpty = new boolean[16];
+    private       int       depth    = 0;
+    private       boolean   afterKey = false;
+    private       boolean   anyValue = false;
+
+    private StreamWriter(Sink sink, boolean pretty) {
+        this.sink   = sink;
+        this.pretty = pretty;
+    }
+
+    /**
+     * @param writer target
+     * @param pretty whether to write with new lines and indentation, rather than compactly
+     * @return a stream-writer to the given writer
+     */
+    public static StreamWriter of(Writer writer, boolean pretty) {
+        return new StreamWriter(new Sink() {
+            @Override public void write(char[] buf, int length) throws IOException { writer.write(buf, 0, length); }
+            @Override public void flush() throws IOException { writer.flush(); }
+        }, pretty);
+    }
+    /**
+     * @param writer target
+     * @return a stream-writer to the given writer, writing compactly
+     */
+    public static StreamWriter of(Writer writer) {
+        return of(writer, false);
+    }
+    /**
+     * @param stream target
+     * @param pretty whether to write with new lines and indentation, rather than compactly
+     * @return a stream-writer to the given output stream, encoding directly in UTF-8
+     */
+    public static StreamWriter of(OutputStream stream, boolean pretty) {
+        return new StreamWriter(new Utf8Sink() {
+            @Override public void write(char[] buf, int length) throws IOException { stream.write(bytes, 0, encode(buf, length)); }
+            @Override public void flush() throws IOException { stream.flush(); }
+        }, pretty);
+    }
+    /**
+     * @param stream target
+     * @return a stream-writer to the given output stream, encoding directly in UTF-8 and writing compactly
+     */
+    public static StreamWriter of(OutputStream stream) {
+        return of(stream, false);
+    }
+    /**
+     * @param buffer target - if it overflows, a {@link java.nio.BufferOverflowException} is thrown
+     * @param pretty whether to write with new lines and indentation, rather than compactly
+     * @return a stream-writer to the given byte buffer, encoding directly in UTF-8
+     */
+    public static StreamWriter of(ByteBuffer buffer, boolean pretty) {
+        return new StreamWriter(new Utf8Sink() {
+            @Override public void write(char[] buf, int length) { buffer.put(bytes, 0, encode(buf, length)); }
+            @Override public void flush() {}
+        }, pretty);
+    }
+    /**
+     * @param buffer target - if it overflows, a {@link java.nio.BufferOverflowException} is thrown
+     * @return a stream-writer to the given byte buffer, encoding directly in UTF-8 and writing compactly
+     */
+    public static StreamWriter of(ByteBuffer buffer) {
+        return of(buffer, false);
+    }
+    /**
+     * @param sb target
+     * @param pretty whether to write with new lines and indentation, rather than compactly
+     * @return a stream-writer to the given string builder
+     */
+    public static StreamWriter of(StringBuilder sb, boolean pretty) {
+        return new StreamWriter(new Sink() {
+            @Override public void write(char[] buf, int length) { sb.append(buf, 0, length); }
+            @Override public void flush() {}
+        }, pretty);
+    }
+
+    /**
+     * empty the internal buffer into the target - except for a trailing high surrogate, which is kept until its pair
+     * comes along, unless the buffer is flushed for good
+     */
+    private void flushBuffer(boolean keepHighSurrogate) {
+        int n = end;
+        if (keepHighSurrogate && n > 0 && Character.isHighSurrogate(buf[n - 1])) {
+            n--;
+        }
+        try {
+            sink.write(buf, n);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        System.arraycopy(buf, n, buf, 0, end - n);
+        end -= n;
+    }
+    private void require(int n) {
+        if (end + n > buf.length) {
+            flushBuffer(true);
+        }
+    }
+    private void write(char c) {
+        require(1);
+        buf[end++] = c;
+    }
+    private void writeRun(String s, int from, int to) {
+        while (from < to) {
+            require(1);
+            int n = Math.min(to - from, buf.length - end);
+            s.getChars(from, from + n, buf, end);
+            end  += n;
+            from += n;
+        }
+    }
+    private void writeRun(char[] s, int from, int to) {
+        while (from < to) {
+            require(1);
+            int n = Math.min(to - from, buf.length - end);
+            System.arraycopy(s, from, buf, end, n);
+            end  += n;
+            from += n;
+        }
+    }
+    private void writeEscaped(char c) {
+        require(6);
+        buf[end++] = '\\';
+        switch (c) {
+            case '"' : buf[end++] = '"';  break;
+            case '\\': buf[end++] = '\\'; break;
+            case '\b': buf[end++] = 'b';  break;
+            case '\f': buf[end++] = 'f';  break;
+            case '\n': buf[end++] = 'n';  break;
+            case '\r': buf[end++] = 'r';  break;
+            case '\t': buf[end++] = 't';  break;
+            default  :
+                buf[end++] = 'u';
+                buf[end++] = '0';
+                buf[end++] = '0';
+                buf[end++] = HEX[c >> 4];
+                buf[end++] = HEX[c & 0xF];
+        }
+    }
+    private void writeQuoted(String s) {
+        write('"');
+        int run = 0;
+        int len = s.length();
+        for (int k = 0; k < len; k++) {
+            char c = s.charAt(k);
+            if (c < 128 && NEEDS_ESCAPE[c]) {
+                writeRun(s, run, k);
+                writeEscaped(c);
+                run = k + 1;
+            }
+        }
+        writeRun(s, run, len);
+        write('"');
+    }
+    private void writeQuoted(char[] s, int offset, int length) {
+        write('"');
+        int run  = offset;
+        int stop = offset + length;
+        for (int k = offset; k < stop; k++) {
+            char c = s[k];
+            if (c < 128 && NEEDS_ESCAPE[c]) {
+                writeRun(s, run, k);
+                writeEscaped(c);
+                run = k + 1;
+            }
+        }
+        writeRun(s, run, stop);
+        write('"');
+    }
+    private void writeVerbatim(char[] s, int offset, int length) {
+        write('"');
+        writeRun(s, offset, offset + length);
+        write('"');
+    }
+    private void writeDigits(long x) /* x >= 0 */ {
+        require(19);
+        int n = 1;
+        for (long y = x / 10; y > 0; y /= 10) {
+            n++;
+        }
+        for (int k = end + n - 1; k >= end; k--) {
+            buf[k] = (char) ('0' + x % 10);
+            x /= 10;
+        }
+        end += n;
+    }
+    private void newLine() {
+        write('\n');
+        for (int k = 0; k < depth; k++) {
+            writeRun(INDENT, 0, INDENT.length());
+        }
+    }
+    /**
+     * separate the next value or key from the previous one, at the current depth
+     */
+    private void separate() {
+        if (nonEmpty[depth - 1]) {
+            write(',');
+        }
+        nonEmpty[depth - 1] = true;
+        if (pretty) {
+            newLine();
+        }
+    }
+    private void beforeValue() {
+        if (afterKey) {
+            afterKey = false;
+        }
+        else if (depth > 0) {
+            if (stack[depth - 1] == OBJECT) throw new RuntimeException("expected a key, not a value, in object");
+            separate();
+        }
+        else if (anyValue) {
+            write('\n');
+        }
+        anyValue = true;
+    }
+    private void beforeKey() {
+        if (depth == 0 || stack[depth - 1] != OBJECT || afterKey) throw new RuntimeException("key not expected");
+        separate();
+    }
+    private void keyWritten() {
+        write(':');
+        if (pretty) {
+            write(' ');
+        }
+        afterKey = true;
+    }
+    private void push(byte kind) {
+        if (depth == stack.length) {
+            stack    = Arrays.copyOf(stack,    2 * depth);
+            nonEmpty = Arrays.copyOf(nonEmpty, 2 * depth);
+        }
+        stack   [depth] = kind;
+        nonEmpty[depth] = false;
+        depth++;
+    }
+    private void pop(byte kind, char c) {
+        if (depth == 0 || stack[depth - 1] != kind || afterKey) throw new RuntimeException("bad closing character "+c);
+        depth--;
+        if (pretty && nonEmpty[depth]) {
+            newLine();
+        }
+        write(c);
+    }
+
+    public void writeNull       () {
+        beforeValue();
+        writeRun("null", 0, 4);
+    }
+    /**
+     * write a number, given as its representation - which is written as is
+     */
+    public void writeNumber     (String nRepr) {
+        beforeValue();
+        writeRun(nRepr, 0, nRepr.length());
+    }
+    /**
+     * write a number, given as its representation in a span of characters - which is written as is
+     */
+    public void writeNumber     (char[] buf, int offset, int length) {
+        beforeValue();
+        writeRun(buf, offset, offset + length);
+    }
+    public void writeNumber     (long x) {
+        beforeValue();
+        if (x == Long.MIN_VALUE) {
+            writeRun("-9223372036854775808", 0, 20);
+            return;
+        }
+        if (x < 0) {
+            write('-');
+            x = -x;
+        }
+        writeDigits(x);
+    }
+    /**
+     * write a number, in the shortest decimal notation that reads back as the same double - always with a decimal
+     * point, for it to read back as a double rather than as an integer
+     * <p>Numbers that are short enough are formatted without allocating; the others (very large or very small
+     * magnitudes, or many digits) fall back on {@link Double#toString(double)}.</p>
+     */
+    public void writeNumber     (double x) {
+        if (Double.isNaN(x) || Double.isInfinite(x)) throw new RuntimeException("number not representable in JSON: "+x);
+        beforeValue();
+        boolean negative = Double.doubleToRawLongBits(x) < 0;
+        double  a        = Math.abs(x);
+        for (int k = 0; k < POW10.length; k++) {
+            double scaled = a * POW10[k];
+            if (scaled >= EXACT_LIMIT) {
+                break;
+            }
+            long m = (long) Math.rint(scaled);
+            if (m / POW10[k] == a) /* m * 10^-k reads back as a, since both m and 10^k are exact */ {
+                if (negative) {
+                    write('-');
+                }
+                long integral = m / (long) POW10[k];
+                writeDigits(integral);
+                write('.');
+                if (k == 0) {
+                    write('0');
+                    return;
+                }
+                long fraction = m - integral * (long) POW10[k];
+                for (long p = (long) POW10[k - 1]; p > fraction && p > 1; p /= 10) {
+                    write('0');
+                }
+                writeDigits(fraction);
+                return;
+            }
+        }
+        String repr = Double.toString(x);
+        writeRun(repr, 0, repr.length());
+    }
+    public void writeString     (String s) {
+        beforeValue();
+        writeQuoted(s);
+    }
+    public void writeString     (char[] buf, int offset, int length) {
+        beforeValue();
+        writeQuoted(buf, offset, length);
+    }
+    /**
+     * write a string, given as it is in a JSON serial between its quotes - escapings and all - which is written as is
+     */
+    void        writeStringVerbatim(char[] buf, int offset, int length) {
+        beforeValue();
+        writeVerbatim(buf, offset, length);
+    }
+    public void writeTrue       () {
+        beforeValue();
+        writeRun("true", 0, 4);
+    }
+    public void writeFalse      () {
+        beforeValue();
+        writeRun("false", 0, 5);
+    }
+    public void writeBoolean    (boolean x) {
+        if (x) writeTrue(); else writeFalse();
+    }
+    public void writeArrayStart () {
+        beforeValue();
+        write('[');
+        push(ARRAY);
+    }
+    public void writeArrayEnd   () {
+        pop(ARRAY, ']');
+    }
+    public void writeObjectStart() {
+        beforeValue();
+        write('{');
+        push(OBJECT);
+    }
+    public void writeObjectEnd  () {
+        pop(OBJECT, '}');
+    }
+    public void writeKey        (String k) {
+        beforeKey();
+        writeQuoted(k);
+        keyWritten();
+    }
+    public void writeKey        (char[] buf, int offset, int length) {
+        beforeKey();
+        writeQuoted(buf, offset, length);
+        keyWritten();
+    }
+    /**
+     * write a key, given as it is in a JSON serial between its quotes - escapings and all - which is written as is
+     */
+    void        writeKeyVerbatim(char[] buf, int offset, int length) {
+        beforeKey();
+        writeVerbatim(buf, offset, length);
+        keyWritten();
+    }
+
+    /**
+     * empty the internal buffer into the target, and flush the target
+     */
+    @Override public void flush() {
+        flushBuffer(false);
+        try {
+            sink.flush();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jl95.json;
+
+/**
+ * A bounded cache to canonicalize strings - such that repeated object keys (and enum-like values) across a serial,
+ * or across serials, share one {@link String} instead of each having its own.
+ * Strings are looked up by their characters, as spans given by the stream-parser, so that a hit allocates nothing.
+ * <p>The cache is a table of fixed size, 2-way set-associative: a string may live at one of 2 slots given by its
+ * hash. On a miss, the new string takes the first slot and whatever was there is moved to the second, evicting what
+ * was there - i.e. of the strings that collide, the 2 most recently missed are kept.</p>
+ * <p>A cache may be shared across threads: slots only ever hold complete, immutable strings, so concurrent lookups
+ * at worst miss - and evict each other's strings - where a single thread would have hit.</p>
+ */
+public final class StringCache {
+
+    private final String[] table;
+    private final int      mask;
+    private final int      maxLength;
+
+    /**
+     * @param capacity  number of strings that the cache may hold - rounded up to a power of 2
+     * @param maxLength length of the longest string to cache - longer ones are not looked up, nor cached
+     */
+    public StringCache(int capacity, int maxLength) {
+        int size = capacity <= 2? 2: Integer.highestOneBit(capacity - 1) << 1;
+        this.table     = new String[size];
+        this.mask      = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    private static boolean matches(String s, int hash, char[] buf, int offset, int length) {
+        if (s == null || s.length() != length || s.hashCode() != hash) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (s.charAt(k) != buf[offset + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the cached string with the given characters or - if there is none - a new one, which is cached
+     */
+    public String get(char[] buf, int offset, int length) {
+        if (length > maxLength) {
+            return new String(buf, offset, length);
+        }
+        int hash = 0; // as String.hashCode, which strings keep computed - to compare cheaply
+        for (int k = offset; k < offset + length; k++) {
+            hash = 31 * hash + buf[k];
+        }
+        int    slot   = (hash ^ (hash >>> 16)) & mask & ~1;
+        String first  = table[slot];
+        if (matches(first,  hash, buf, offset, length)) {
+            return first;
+        }
+        String second = table[slot + 1];
+        if (matches(second, hash, buf, offset, length)) {
+            return second;
+        }
+        String s = new String(buf, offset, length);
+        table[slot + 1] = first;
+        table[slot]     = s;
+        return s;
+    }
+}
@@ -0,0 +1,231 @@
+package jl95.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A structural index of a JSON serial, recorded in one pass of the stream-parser: a "tape" of entries, one per token,
+ * each with the token's type and where it is in the serial - from which values are read only when asked for.
+ * <p>Every entry is a long of the token's type (high half) and offset (low half), with an int alongside:</p>
+ * <ul>
+ *     <li>for a scalar, key or string, the length of its representation (within quotes, for strings and keys);</li>
+ *     <li>for the start of an array or object, the index of the entry of its end - as to skip over it;</li>
+ *     <li>for the end of an array or object, the number of its elements / entries.</li>
+ * </ul>
+ * The entries of an object alternate keys and values.
+ */
+final class Tape {
+
+    static final int NULL           = 0;
+    static final int TRUE           = 1;
+    static final int FALSE          = 2;
+    static final int NUMBER         = 3;
+    static final int STRING         = 4;
+    static final int STRING_ESCAPED = 5;
+    static final int KEY            = 6;
+    static final int KEY_ESCAPED    = 7;
+    static final int ARRAY          = 8;
+    static final int ARRAY_END      = 9;
+    static final int OBJECT         = 10;
+    static final int OBJECT_END     = 11;
+
+    final   char[] src;
+    private long[] entries;
+    private int[]  aux;
+    private int    size;
+
+    private Tape(char[] src) {
+        this.src     = src;
+        this.entries = new long[16 + src.length / 8];
+        this.aux     = new int [entries.length];
+    }
+
+    /**
+     * @param src serial - kept by the tape, as is, so not to be modified
+     */
+    static Tape of(char[] src) {
+        Tape         tape   = new Tape(src);
+        StreamParser parser = StreamParser.acquire();
+        try {
+            parser.parse(src, tape.handlers(parser));
+        }
+        finally {
+            parser.release();
+        }
+        return tape;
+    }
+
+    private int  add(int type, int offset, int length) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, 2 * size);
+            aux     = Arrays.copyOf(aux,     2 * size);
+        }
+        entries[size] = ((long) type << 32) | offset;
+        aux    [size] = length;
+        return size++;
+    }
+
+    private StreamParser.SpanHandlers handlers(StreamParser parser) {
+        return new StreamParser.SpanHandlers() {
+
+            private int[] open   = new int[16]; // entries of the arrays and objects being parsed
+            private int[] counts = new int[16]; // and how many elements / entries each has, so far
+            private int   depth  = 0;
+
+            private void value() {
+                if (depth > 0) {
+                    counts[depth - 1]++;
+                }
+            }
+            private void start(int type) {
+                value();
+                if (depth == open.length) {
+                    open   = Arrays.copyOf(open,   2 * depth);
+                    counts = Arrays.copyOf(counts, 2 * depth);
+                }
+                open  [depth] = add(type, 0, 0);
+                counts[depth] = 0;
+                depth++;
+            }
+            private void end(int type) {
+                depth--;
+                aux[open[depth]] = add(type, 0, counts[depth]);
+            }
+            private void string(char[] buf, int plainType) {
+                // strings without escapings are given in place, as the serial is parsed in place
+                int offset = (int) parser.tokenStart() + 1;
+                add(buf == src? plainType: plainType + 1, offset, (int) parser.tokenEnd() - offset);
+            }
+
+            @Override public void handleNull        () { value(); add(NULL,  0, 0); }
+            @Override public void handleTrue        () { value(); add(TRUE,  0, 0); }
+            @Override public void handleFalse       () { value(); add(FALSE, 0, 0); }
+            @Override public void handleNumber      (char[] buf, int offset, int length) { value(); add(NUMBER, offset, length); }
+            @Override public void handleString      (char[] buf, int offset, int length) { value(); string(buf, STRING); }
+            @Override public void handleObjectKey   (char[] buf, int offset, int length) { string(buf, KEY); }
+            @Override public void handleArrayStart  () { start(ARRAY);  }
+            @Override public void handleArrayEnd    () { end(ARRAY_END);  }
+            @Override public void handleObjectStart () { start(OBJECT); }
+            @Override public void handleObjectEnd   () { end(OBJECT_END); }
+        };
+    }
+
+    int  type  (int k) { return (int) (entries[k] >>> 32); }
+    int  offset(int k) { return (int)  entries[k]; }
+    int  length(int k) { return aux[k]; }
+
+    /**
+     * @return index of the entry after the value at entry k - skipping over it, if an array or object
+     */
+    int  next  (int k) {
+        int type = type(k);
+        return type == ARRAY || type == OBJECT? aux[k] + 1: k + 1;
+    }
+
+    /**
+     * @return number of elements / entries of the array or object at entry k
+     */
+    int  size  (int k) {
+        return aux[aux[k]];
+    }
+
+    /**
+     * @return entry of the i-th element of the array at entry k
+     */
+    int  element(int k, int i) {
+        return element(k, i, 0, k + 1);
+    }
+
+    /**
+     * @return entry of the i-th element of the array at entry k, walking from its j-th element, at entry e - j being
+     * no greater than i
+     */
+    int  element(int k, int i, int j, int e) {
+        if (i < 0 || i >= size(k)) throw new IndexOutOfBoundsException("index "+i+", size "+size(k));
+        for (; j < i; j++) {
+            e = next(e);
+        }
+        return e;
+    }
+
+    /**
+     * @return whether the number at entry k fits a long - i.e. is integral and in range, as when building
+     */
+    boolean fitsLong(int k) {
+        return Numbers.fitsLong(src, offset(k), length(k));
+    }
+
+    /**
+     * @return entry of the value mapped by a key in the object at entry k - of the last, if the key is repeated, as
+     * when building - or -1 if there is none
+     */
+    int  value(int k, String key) {
+        int found = -1;
+        for (int e = k + 1; e < aux[k]; e = next(e + 1)) {
+            if (keyEquals(e, key)) {
+                found = e + 1;
+            }
+        }
+        return found;
+    }
+
+    private boolean keyEquals(int k, String key) {
+        if (type(k) == KEY_ESCAPED) {
+            return string(k).equals(key);
+        }
+        int offset = offset(k);
+        int length = length(k);
+        if (length != key.length()) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (src[offset + j] != key.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the string or key at entry k, with its escapings resolved
+     */
+    String string(int k) {
+        int offset = offset(k);
+        int length = length(k);
+        if (type(k) == STRING || type(k) == KEY) {
+            return new String(src, offset, length);
+        }
+        char[] dst = new char[length];
+        return new String(dst, 0, StreamParser.resolveEscapings(src, offset, length, dst, 0));
+    }
+
+    /**
+     * @return node of the value at entry k - and, if an array or object, of everything in it
+     */
+    Node node(int k) {
+        switch (type(k)) {
+            case NULL          : return Node.Null();
+            case TRUE          : return Node.Bool(true);
+            case FALSE         : return Node.Bool(false);
+            case NUMBER        : return NodeBuilder.number(src, offset(k), length(k));
+            case STRING        :
+            case STRING_ESCAPED: return Node.String(string(k));
+            case ARRAY         :
+                List<Node> l = new ArrayList<>(size(k));
+                for (int e = k + 1; e < aux[k]; e = next(e)) {
+                    l.add(node(e));
+                }
+                return Node.List(l);
+            case OBJECT        :
+                Map<String, Node> m = new HashMap<>();
+                for (int e = k + 1; e < aux[k]; e = next(e + 1)) {
+                    m.put(string(e), node(e + 1));
+                }
+                return Node.Map(m);
+            default            : throw new AssertionError("not a value at entry "+k);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package jl95.json;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * A pull-parser - as opposed to the {@link StreamParser stream-parser}, which it runs one token at a time: rather than
+ * calling back handlers, it gives the tokens of a JSON serial as they are asked for, with {@link #nextToken()}.
+ * <p>Reading may stop at any token, without reading the rest of the serial. Numbers are read as primitives, and
+ * strings and keys may be compared without being built.</p>
+ * <p>What is read of the current token - e.g. with {@link #currentString()} - is read from the parser's buffer, and
+ * so only until the next token.</p>
+ */
+public final class TokenReader {
+
+    public enum Token {
+        NULL,
+        NUMBER,
+        STRING,
+        TRUE,
+        FALSE,
+        ARRAY_START,
+        ARRAY_END,
+        OBJECT_START,
+        OBJECT_END,
+        KEY;
+    }
+
+    private final StreamParser parser = new StreamParser();
+    private       Token        token;
+    private       char[]       buf;
+    private       int          offset;
+    private       int          length;
+
+    private final StreamParser.SpanHandlers handlers = new StreamParser.SpanHandlers() {
+
+        private void token(Token t) {
+            token = t;
+            parser.pause();
+        }
+        private void token(Token t, char[] buf, int offset, int length) {
+            TokenReader.this.buf    = buf;
+            TokenReader.this.offset = offset;
+            TokenReader.this.length = length;
+            token(t);
+        }
+
+        @Override public void handleNull       () { token(Token.NULL); }
+        @Override public void handleNumber     (char[] buf, int offset, int length) { token(Token.NUMBER, buf, offset, length); }
+        @Override public void handleString     (char[] buf, int offset, int length) { token(Token.STRING, buf, offset, length); }
+        @Override public void handleTrue       () { token(Token.TRUE); }
+        @Override public void handleFalse      () { token(Token.FALSE); }
+        @Override public void handleArrayStart () { token(Token.ARRAY_START); }
+        @Override public void handleArrayEnd   () { token(Token.ARRAY_END); }
+        @Override public void handleObjectStart() { token(Token.OBJECT_START); }
+        @Override public void handleObjectEnd  () { token(Token.OBJECT_END); }
+        @Override public void handleObjectKey  (char[] buf, int offset, int length) { token(Token.KEY, buf, offset, length); }
+    };
+
+    private TokenReader() {}
+
+    /**
+     * @param serial JSON serial
+     */
+    public static TokenReader of(String serial) {
+        TokenReader reader = new TokenReader();
+        reader.parser.beginPulling(serial, reader.handlers);
+        return reader;
+    }
+
+    /**
+     * @param reader reader of the JSON serial - read in chunks, as tokens are asked for, and not closed
+     */
+    public static TokenReader of(Reader reader) {
+        TokenReader tokens = new TokenReader();
+        tokens.parser.beginPulling(reader, tokens.handlers);
+        return tokens;
+    }
+
+    /**
+     * @param utf8 JSON serial, encoded in UTF-8
+     */
+    public static TokenReader of(byte[] utf8) {
+        return of(ByteBuffer.wrap(utf8));
+    }
+
+    /**
+     * @param utf8 JSON serial, encoded in UTF-8, from the buffer's position to its limit - which are left unchanged
+     */
+    public static TokenReader of(ByteBuffer utf8) {
+        TokenReader reader = new TokenReader();
+        reader.parser.beginPulling(utf8, reader.handlers);
+        return reader;
+    }
+
+    /**
+     * @return the next token - or null, at the end of the serial
+     * @throws StreamParser.ParseException if the serial is found not to be valid JSON
+     */
+    public Token   nextToken() {
+        token = null;
+        parser.pull();
+        return token;
+    }
+
+    /**
+     * @return the current token - the last one given by {@link #nextToken()}
+     */
+    public Token   currentToken() {
+        return token;
+    }
+
+    /**
+     * at the start of an array or object, skip the rest of it - such that the current token becomes its end
+     * <p>Skipping is a quick scan for the array's or object's end, balancing brackets and quotes, so what is skipped
+     * is not checked for being valid JSON.</p>
+     */
+    public void    skipChildren() {
+        if (token != Token.ARRAY_START && token != Token.OBJECT_START) {
+            return;
+        }
+        parser.skipRest();
+        nextToken();
+    }
+
+    /**
+     * @return the current string or key - or the representation of the current number
+     */
+    public String  currentString() {
+        check(token == Token.STRING || token == Token.KEY || token == Token.NUMBER, "STRING, KEY or NUMBER");
+        return new String(buf, offset, length);
+    }
+
+    /**
+     * @return whether the current string or key is the given one - without building it
+     */
+    public boolean currentStringEquals(String s) {
+        check(token == Token.STRING || token == Token.KEY, "STRING or KEY");
+        if (s.length() != length) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (buf[offset + k] != s.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the current number, if an integer within range of a long
+     */
+    public long    currentLong() {
+        check(token == Token.NUMBER, "NUMBER");
+        return Numbers.parseLong(buf, offset, length);
+    }
+
+    /**
+     * @return the current number
+     */
+    public double  currentDouble() {
+        check(token == Token.NUMBER, "NUMBER");
+        return Numbers.parseDouble(buf, offset, length);
+    }
+
+    /**
+     * @return the current number, if an integer - of any size
+     */
+    public BigInteger currentBigInteger() {
+        check(token == Token.NUMBER, "NUMBER");
+        return Numbers.parseBigInteger(buf, offset, length);
+    }
+
+    /**
+     * @return the current number, exactly
+     */
+    public BigDecimal currentBigDecimal() {
+        check(token == Token.NUMBER, "NUMBER");
+        return Numbers.parseBigDecimal(buf, offset, length);
+    }
+
+    /**
+     * @return the current boolean
+     */
+    public boolean currentBoolean() {
+        check(token == Token.TRUE || token == Token.FALSE, "TRUE or FALSE");
+        return token == Token.TRUE;
+    }
+
+    private void   check(boolean ok, String expected) {
+        if (!ok) throw new RuntimeException("current token not a "+expected+", but "+token);
+    }
+}
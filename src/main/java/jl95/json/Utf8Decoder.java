@@ -0,0 +1,147 @@
+package jl95.json;
+
+/**
+ * An incremental UTF-8 decoder.
+ * Bytes are given in chunks and decoded into characters as asked for - a multi-byte sequence split between chunks
+ * is carried over to the next chunk. Malformed input is rejected rather than replaced, with a
+ * {@link MalformedException} - only once the characters before it are decoded, such that whoever decodes may tell
+ * at which character it is.
+ */
+final class Utf8Decoder {
+
+    /**
+     * malformed input - without a position, which only whoever decodes knows
+     */
+    static final class MalformedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        MalformedException(String message) {
+            super(message);
+        }
+    }
+
+    private byte[] src;
+    private int    pos;
+    private int    limit;
+    private final byte[] pending      = new byte[4];
+    private       int    pendingCount = 0;
+    private       boolean failed;      // met with malformed input, right after the characters last decoded
+
+    private static MalformedException malformed() {
+        return new MalformedException("malformed UTF-8 input");
+    }
+    private static int sequenceLength(byte b) {
+        if ((b & 0xE0) == 0xC0) return 2;
+        if ((b & 0xF0) == 0xE0) return 3;
+        if ((b & 0xF8) == 0xF0) return 4;
+        throw malformed();
+    }
+    /**
+     * decode a whole multi-byte sequence
+     * @return number of characters written - 1 or 2 (for a surrogate pair)
+     */
+    private static int decodeSequence(byte[] src, int at, int n, char[] dst, int dstAt) {
+        int cp;
+        switch (n) {
+            case 2:
+                cp = (src[at] & 0x1F);
+                break;
+            case 3:
+                cp = (src[at] & 0x0F);
+                break;
+            default:
+                cp = (src[at] & 0x07);
+        }
+        for (int k = 1; k < n; k++) {
+            byte b = src[at + k];
+            if ((b & 0xC0) != 0x80) throw malformed();
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        switch (n) {
+            case 2:
+                if (cp < 0x80) throw malformed();
+                dst[dstAt] = (char) cp;
+                return 1;
+            case 3:
+                if (cp < 0x800 || Character.isSurrogate((char) cp)) throw malformed();
+                dst[dstAt] = (char) cp;
+                return 1;
+            default:
+                if (cp < 0x10000 || cp > Character.MAX_CODE_POINT) throw malformed();
+                dst[dstAt]     = Character.highSurrogate(cp);
+                dst[dstAt + 1] = Character.lowSurrogate (cp);
+                return 2;
+        }
+    }
+
+    /**
+     * give the next chunk of bytes to decode - to be called only once the previous chunk is used up
+     */
+    public void    feed(byte[] src, int offset, int length) {
+        this.src   = src;
+        this.pos   = offset;
+        this.limit = offset + length;
+    }
+    /**
+     * @return whether the bytes given so far end in the middle of a multi-byte sequence
+     */
+    public boolean isPending() {
+        return pendingCount > 0;
+    }
+    /**
+     * decode as much of the current chunk as fits in the given space - at least 2 characters, so that a surrogate
+     * pair always fits
+     * @return number of characters written - 0 if (and only if) the chunk is used up
+     * @throws MalformedException if the input is malformed right at the next character to decode
+     */
+    public int     decode(char[] dst, int offset, int length) {
+        if (failed) throw malformed();
+        int dp   = offset;
+        int dEnd = offset + length;
+        if (pendingCount > 0) {
+            int n = sequenceLength(pending[0]);
+            while (pendingCount < n && pos < limit) {
+                pending[pendingCount++] = src[pos++];
+            }
+            if (pendingCount < n || dEnd - dp < 2) {
+                return 0;
+            }
+            dp += decodeSequence(pending, 0, n, dst, dp);
+            pendingCount = 0;
+        }
+        byte[] src = this.src;
+        int    sp  = pos;
+        int    sEnd= limit;
+        try {
+            while (dp < dEnd && sp < sEnd) {
+                byte b = src[sp];
+                if (b >= 0) /* ASCII */ {
+                    dst[dp++] = (char) b;
+                    sp++;
+                    continue;
+                }
+                int n = sequenceLength(b);
+                if (sp + n > sEnd) /* split between chunks */ {
+                    while (sp < sEnd) {
+                        pending[pendingCount++] = src[sp++];
+                    }
+                    break;
+                }
+                if (dEnd - dp < 2) {
+                    break;
+                }
+                dp += decodeSequence(src, sp, n, dst, dp);
+                sp += n;
+            }
+        }
+        catch (MalformedException ex) {
+            if (dp == offset) {
+                throw ex;
+            }
+            failed = true; // at the next call - once the characters before are given
+        }
+        pos = sp;
+        return dp - offset;
+    }
+}
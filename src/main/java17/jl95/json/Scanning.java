@@ -0,0 +1,96 @@
+package jl95.json;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Bulk scanning of the stream-parser's buffer - over the stretches of it that call for nothing but to be passed: the
+ * bodies of strings, and runs of whitespace.
+ * <p>This is the version for Java 17 and after, which scans as many characters at a time as fit a vector of the
+ * machine - if the {@code jdk.incubator.vector} module is there, i.e. given to the JVM with
+ * {@code --add-modules jdk.incubator.vector}. If not, it scans as the baseline does, with plain loops.</p>
+ */
+final class Scanning {
+
+    private static final boolean VECTORS = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    // least length of a stretch to scan by vectors - not loading the vector classes at all, if not to use them
+    private static final int     LEAST   = VECTORS? Vectors.SPECIES.length(): Integer.MAX_VALUE;
+
+    private Scanning() {}
+
+    /**
+     * @return whether scanning is by vectors - i.e. whether the vector module is there
+     */
+    static boolean vectors() {
+        return VECTORS;
+    }
+
+    /**
+     * vector scanning - in a class of its own, as to be loaded only if the vector module is there
+     */
+    private static final class Vectors {
+
+        static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+        static int stringEnd    (char[] buf, int from, int to) {
+            int k = from;
+            for (int last = to - SPECIES.length(); k <= last; k += SPECIES.length()) {
+                ShortVector       v    = ShortVector.fromCharArray(SPECIES, buf, k);
+                VectorMask<Short> stop = v.eq((short) '"').or(v.eq((short) '\\'));
+                if (stop.anyTrue()) {
+                    return k + stop.firstTrue();
+                }
+            }
+            return plainStringEnd(buf, k, to);
+        }
+
+        static int whitespaceEnd(char[] buf, int from, int to) {
+            int k = from;
+            for (int last = to - SPECIES.length(); k <= last; k += SPECIES.length()) {
+                ShortVector       v  = ShortVector.fromCharArray(SPECIES, buf, k);
+                VectorMask<Short> ws = v.eq((short) ' ').or(v.eq((short) '\n')).or(v.eq((short) '\t')).or(v.eq((short) '\r'));
+                if (!ws.allTrue()) {
+                    return k + ws.not().firstTrue();
+                }
+            }
+            return plainWhitespaceEnd(buf, k, to);
+        }
+    }
+
+    /**
+     * @return position of the first quote or backslash at or after {@code from} and before {@code to} - or
+     * {@code to}, if none
+     */
+    static int stringEnd    (char[] buf, int from, int to) {
+        return to - from >= LEAST? Vectors.stringEnd(buf, from, to): plainStringEnd(buf, from, to);
+    }
+
+    /**
+     * @return position of the first character other than whitespace at or after {@code from} and before {@code to}
+     * - or {@code to}, if none
+     */
+    static int whitespaceEnd(char[] buf, int from, int to) {
+        return to - from >= LEAST? Vectors.whitespaceEnd(buf, from, to): plainWhitespaceEnd(buf, from, to);
+    }
+
+    private static int plainStringEnd    (char[] buf, int from, int to) {
+        for (int k = from; k < to; k++) {
+            char c = buf[k];
+            if (c == '"' || c == '\\') {
+                return k;
+            }
+        }
+        return to;
+    }
+
+    private static int plainWhitespaceEnd(char[] buf, int from, int to) {
+        for (int k = from; k < to; k++) {
+            char c = buf[k];
+            if (c != ' ' && c != '\n' && c != '\t' && c != '\r') {
+                return k;
+            }
+        }
+        return to;
+    }
+}
@@ -0,0 +1,122 @@
+package jl95.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BinaryTest {
+
+    private static final String repr = "{\"aaa\":\"zzz\",\"000\":123,\"something\":{\"in the way\":[null,-42,4.25e-3,[],true]," +
+                                       "\"she\":\"kn\\\"ows\\\\\\n\\u0001caf\\u00e9 \\ud83d\\ude00\",\"empty\":{}},\"true\":false}";
+
+    private static Node records(int n) {
+        List<Node> records = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            Map<String, Node> m = new LinkedHashMap<>();
+            m.put("id",     Node.Long(k - n / 2));
+            m.put("name",   Node.String("record "+k));
+            m.put("score",  Node.Double(k / 8.0));
+            m.put("active", Node.Bool(k % 3 == 0));
+            m.put("tags",   Node.List(Arrays.asList(Node.String("a"), Node.Null())));
+            records.add(Node.Map(m));
+        }
+        return Node.List(records);
+    }
+
+    @org.junit.Test
+    public void testRoundTrip() {
+        for (Node node: Arrays.asList(NodeBuilder.build(repr), records(1000), Node.Null(), Node.Long(Long.MIN_VALUE),
+                                      Node.Long(Long.MAX_VALUE), Node.Double(-0.0), Node.String(""), Node.List(), Node.Map())) {
+            org.junit.Assert.assertEquals(node, BinaryReader.read(BinaryWriter.write(node)));
+            org.junit.Assert.assertEquals(node, BinaryReader.read(BinaryWriter.write(node, true)));
+        }
+        Node node = records(1000);
+        byte[] plain      = BinaryWriter.write(node);
+        byte[] dictionary = BinaryWriter.write(node, true);
+        org.junit.Assert.assertTrue(plain.length < NodeSerializer.serialize(node).length());
+        org.junit.Assert.assertTrue(dictionary.length < plain.length);
+    }
+    @org.junit.Test
+    public void testHandlers() {
+        Map<String, Node> inner = new LinkedHashMap<>();
+        inner.put("in the way", Node.List(Arrays.asList(Node.Null(), Node.Long(-42), Node.Double(42.5), Node.List(), Node.Bool(true))));
+        inner.put("she",        Node.String("kn\"ows\\\n\u0001café 😀"));
+        inner.put("empty",      Node.Map());
+        Map<String, Node> outer = new LinkedHashMap<>();
+        outer.put("aaa",       Node.String("zzz"));
+        outer.put("something", Node.Map(inner));
+        outer.put("true",      Node.Bool(false));
+        Node node = Node.Map(outer);
+        Recorder expected = new Recorder();
+        new StreamParser().parse(NodeSerializer.serialize(node), expected);
+        for (boolean dictionary: new boolean[] {false, true}) {
+            Recorder actual = new Recorder();
+            BinaryReader.of(BinaryWriter.write(node, dictionary)).read(actual);
+            org.junit.Assert.assertEquals(expected.events, actual.events);
+        }
+    }
+    @org.junit.Test
+    public void testSkip() {
+        Node node = NodeBuilder.build("[{\"a\":[1,2,{\"b\":3}]},\"x\",4]");
+        BinaryReader reader = BinaryReader.of(BinaryWriter.write(node, true));
+        Recorder r = new Recorder() {
+            @Override public void handleArrayStart() {
+                super.handleArrayStart();
+                if (events.size() == 1) reader.skipNextValue();
+            }
+        };
+        reader.read(r);
+        org.junit.Assert.assertEquals(Arrays.asList("[", "skipped", "string:x", "number:4", "]"), r.events);
+    }
+    @org.junit.Test
+    public void testMalformed() {
+        byte[] serial = BinaryWriter.write(NodeBuilder.build(repr), true);
+        for (int n = 0; n < serial.length; n++) {
+            try {
+                BinaryReader.read(Arrays.copyOf(serial, n));
+                org.junit.Assert.fail("should not be able to read a serial cut at "+n);
+            } catch (StreamParser.ParseException ex) {/* as expected */}
+        }
+        for (byte[] bad: new byte[][] {{'J', 'X', 1, 0, 0}, {'J', 'B', 9, 0, 0}, {'J', 'B', 1, 0, 42}, {'J', 'B', 1, 0, 0, 0},
+                                       {'J', 'B', 1, 0, 6, 2, 2, 0, 0}, {'J', 'B', 1, 0, 5, (byte) 0x80}}) {
+            try {
+                BinaryReader.read(bad);
+                org.junit.Assert.fail("should not be able to read "+Arrays.toString(bad));
+            } catch (StreamParser.ParseException ex) {/* as expected */}
+        }
+    }
+    @org.junit.Test
+    public void testMalformedUtf8() {
+        // rejected at the start of the string - or at its end, if cut short - whether read as nodes or with handlers
+        byte[][] bad      = {{'J', 'B', 1, 0, 5, 2, (byte) 0xC3, 'x'},                            // string
+                             {'J', 'B', 1, 0, 7, 5, 1, 2, (byte) 0xC3, 'x', 0},                   // key
+                             {'J', 'B', 1, 1, 1, 2, (byte) 0xC3, 'x', 7, 3, 1, 0, 0},             // key in the dictionary
+                             {'J', 'B', 1, 0, 5, 3, 'x', (byte) 0xED, (byte) 0xA0},               // surrogate, cut short
+                             {'J', 'B', 1, 0, 5, 4, 'x', (byte) 0xED, (byte) 0xA0, (byte) 0x80}}; // surrogate, encoded
+        long[]   expected = {6, 8, 6, 9, 6};
+        for (int k = 0; k < bad.length; k++) {
+            try {
+                BinaryReader.read(bad[k]);
+                org.junit.Assert.fail("should not be able to read "+Arrays.toString(bad[k]));
+            } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(expected[k], ex.position()); }
+            try {
+                BinaryReader.of(bad[k]).read(new Recorder());
+                org.junit.Assert.fail("should not be able to read "+Arrays.toString(bad[k]));
+            } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(expected[k], ex.position()); }
+        }
+    }
+    @org.junit.Test
+    public void testUnpairedSurrogates() {
+        // written as '?', as by String.getBytes - and by the stream-writer
+        for (String s: new String[] {"\ud800x", "x\ude00", "\ude00\ud83d", "\ud83d\ude00\ud83d"}) {
+            Node expected = Node.String(new String(s.getBytes(java.nio.charset.StandardCharsets.UTF_8), java.nio.charset.StandardCharsets.UTF_8));
+            org.junit.Assert.assertEquals(expected, BinaryReader.read(BinaryWriter.write(Node.String(s))));
+            Map<String, Node> m = new LinkedHashMap<>();
+            m.put(s, Node.String(s));
+            org.junit.Assert.assertEquals(Node.Map(java.util.Collections.singletonMap(expected.asString(), expected)),
+                                          BinaryReader.read(BinaryWriter.write(Node.Map(m), true)));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package jl95.json;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class BinderTest {
+
+    enum Kind { A, B }
+
+    static class Item {
+        private String       name;
+        private long         id;
+        private int          count;
+        private double       price;
+        private boolean      active;
+        private Integer      boxed;
+        private Kind         kind;
+        private List<Item>   children;
+        private Map<String, List<Long>> groups;
+        private Node         extra;
+        private Object       any;
+        private BigDecimal   exact;
+        private transient int ignored;
+    }
+
+    static final class Point /* as a record would be */ {
+        private final int    x;
+        private final int    y;
+        private final String label;
+        Point(int x, int y, String label) {
+            this.x     = x;
+            this.y     = y;
+            this.label = label;
+        }
+    }
+
+    static class Shape {
+        List<Point> points;
+    }
+
+    @org.junit.Test
+    public void testObject() {
+        Item item = Binder.of(Item.class).bind("{\"name\":\"n\\\"1\",\"id\":12345678901,\"count\":3,\"price\":2.5,\"active\":true," +
+                                               "\"boxed\":null,\"kind\":\"B\",\"unknown\":{\"deep\":[1,{\"x\":\"}\"}]},\"ignored\":4," +
+                                               "\"children\":[{\"name\":\"c\",\"id\":2,\"children\":[]}],\"groups\":{\"g\":[1,2]}," +
+                                               "\"extra\":{\"k\":[true]},\"any\":[1,1.5,\"s\",{\"m\":null}],\"exact\":0.1}");
+        org.junit.Assert.assertEquals("n\"1",        item.name);
+        org.junit.Assert.assertEquals(12345678901L,  item.id);
+        org.junit.Assert.assertEquals(3,             item.count);
+        org.junit.Assert.assertEquals(2.5,           item.price, 0);
+        org.junit.Assert.assertTrue  (               item.active);
+        org.junit.Assert.assertNull  (               item.boxed);
+        org.junit.Assert.assertEquals(Kind.B,        item.kind);
+        org.junit.Assert.assertEquals(0,             item.ignored);
+        org.junit.Assert.assertEquals(1,             item.children.size());
+        org.junit.Assert.assertEquals("c",           item.children.get(0).name);
+        org.junit.Assert.assertEquals(2,             item.children.get(0).id);
+        org.junit.Assert.assertEquals(Collections.emptyList(), item.children.get(0).children);
+        org.junit.Assert.assertEquals(Arrays.asList(1L, 2L),   item.groups.get("g"));
+        org.junit.Assert.assertEquals(NodeBuilder.build("{\"k\":[true]}"), item.extra);
+        org.junit.Assert.assertEquals(Arrays.asList(1L, 1.5, "s", Collections.singletonMap("m", null)), item.any);
+        org.junit.Assert.assertEquals(new BigDecimal("0.1"), item.exact);
+    }
+    @org.junit.Test
+    public void testRecord() {
+        Shape shape = Binder.of(Shape.class).bind("{\"points\":[{\"x\":1,\"y\":2,\"label\":\"a\"},{\"y\":4}]}");
+        org.junit.Assert.assertEquals(2,   shape.points.size());
+        org.junit.Assert.assertEquals(1,   shape.points.get(0).x);
+        org.junit.Assert.assertEquals(2,   shape.points.get(0).y);
+        org.junit.Assert.assertEquals("a", shape.points.get(0).label);
+        org.junit.Assert.assertEquals(0,   shape.points.get(1).x); // absent, as by default
+        org.junit.Assert.assertEquals(4,   shape.points.get(1).y);
+        org.junit.Assert.assertNull  (     shape.points.get(1).label);
+    }
+    @org.junit.Test
+    public void testCached() {
+        org.junit.Assert.assertSame(Binder.of(Item.class), Binder.of(Item.class));
+        org.junit.Assert.assertEquals(Long.valueOf(7), Binder.of(Long.class).bind("7"));
+    }
+    @org.junit.Test
+    public void testMismatch() {
+        for (String invalid: new String[] {"{\"count\":\"3\"}", "{\"count\":1.5}", "{\"count\":3000000000}", "{\"id\":null}",
+                                           "{\"kind\":\"C\"}", "{\"children\":{}}", "[]"}) {
+            try {
+                Binder.of(Item.class).bind(invalid);
+                org.junit.Assert.fail("should not be able to bind "+invalid);
+            } catch (RuntimeException ex) {/* as expected */}
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package jl95.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FeedParserTest {
+
+    private static final String SERIAL = "{\"café 😀\":[-12.5e+3, true, false, null, \"a\\\"b\\u00e9\\ud83d\\ude00\\n\"]," +
+                                         " \"n\" : 1234567890 , \"o\":{\"x\":{}, \"y\":[]}}";
+
+    private static List<String> eventsOf(String serial) {
+        Recorder r = new Recorder();
+        new StreamParser().parse(serial, r);
+        return r.events;
+    }
+
+    @org.junit.Test
+    public void testBytesOneByOne() {
+        // split everywhere - within multi-byte sequences, escapings, numbers and words
+        byte[]     utf8   = SERIAL.getBytes(StandardCharsets.UTF_8);
+        Recorder   r      = new Recorder();
+        FeedParser parser = FeedParser.of(r);
+        for (byte b: utf8) {
+            parser.feed(ByteBuffer.wrap(new byte[] {b}));
+        }
+        parser.endOfInput();
+        org.junit.Assert.assertEquals(eventsOf(SERIAL), r.events);
+    }
+    @org.junit.Test
+    public void testChunks() {
+        byte[] utf8 = SERIAL.getBytes(StandardCharsets.UTF_8);
+        for (int size = 1; size <= utf8.length; size++) {
+            Recorder   r      = new Recorder();
+            FeedParser parser = FeedParser.of(r);
+            ByteBuffer direct = ByteBuffer.allocateDirect(size);
+            for (int at = 0; at < utf8.length; at += size) {
+                direct.clear();
+                direct.put(utf8, at, Math.min(size, utf8.length - at)).flip();
+                parser.feed(direct);
+                org.junit.Assert.assertFalse(direct.hasRemaining());
+            }
+            parser.endOfInput();
+            org.junit.Assert.assertEquals(eventsOf(SERIAL), r.events);
+        }
+        for (int size = 1; size <= SERIAL.length(); size++) {
+            Recorder   r      = new Recorder();
+            FeedParser parser = FeedParser.of(r);
+            char[]     chars  = SERIAL.toCharArray();
+            for (int at = 0; at < chars.length; at += size) {
+                parser.feed(chars, at, Math.min(size, chars.length - at));
+            }
+            parser.endOfInput();
+            org.junit.Assert.assertEquals(eventsOf(SERIAL), r.events);
+        }
+    }
+    @org.junit.Test
+    public void testEventsAsSoonAsComplete() {
+        Recorder   r      = new Recorder();
+        FeedParser parser = FeedParser.of(r);
+        parser.feed("[1, tr".toCharArray());
+        org.junit.Assert.assertEquals(Arrays.asList("[", "number:1"), r.events);
+        parser.feed("ue, \"ab".toCharArray());
+        org.junit.Assert.assertEquals(Arrays.asList("[", "number:1", "true"), r.events);
+        parser.feed("c\", 42".toCharArray());
+        org.junit.Assert.assertEquals(Arrays.asList("[", "number:1", "true", "string:abc"), r.events);
+        parser.feed("]".toCharArray());
+        org.junit.Assert.assertEquals(Arrays.asList("[", "number:1", "true", "string:abc", "number:42", "]"), r.events);
+        parser.endOfInput();
+        // a number at the very end is only complete at the end of input
+        Recorder   r2      = new Recorder();
+        FeedParser parser2 = FeedParser.of(r2);
+        parser2.feed("12".toCharArray());
+        parser2.feed("34".toCharArray());
+        org.junit.Assert.assertEquals(Arrays.asList(), r2.events);
+        parser2.endOfInput();
+        org.junit.Assert.assertEquals(Arrays.asList("number:1234"), r2.events);
+    }
+    @org.junit.Test
+    public void testMultipleDocuments() {
+        Recorder   r      = new Recorder();
+        FeedParser parser = FeedParser.of(r).multipleDocuments(true);
+        parser.feed(ByteBuffer.wrap("{\"a\":1}\n{\"a\"".getBytes(StandardCharsets.UTF_8)));
+        org.junit.Assert.assertEquals(Arrays.asList("{", "key:a", "number:1", "}", "end", "{", "key:a"), r.events);
+        parser.feed(ByteBuffer.wrap(":2}\n".getBytes(StandardCharsets.UTF_8)));
+        parser.endOfInput();
+        org.junit.Assert.assertEquals(Arrays.asList("{", "key:a", "number:1", "}", "end", "{", "key:a", "number:2", "}", "end"), r.events);
+    }
+    @org.junit.Test
+    public void testSkipAndStop() {
+        List<String> seen   = new ArrayList<>();
+        FeedParser[] parser = new FeedParser[1];
+        parser[0] = FeedParser.of(new Recorder() {
+            @Override public void handleObjectKey(String k) {
+                seen.add(k);
+                if (k.equals("skip")) parser[0].skipNextValue();
+                if (k.equals("stop")) parser[0].stop();
+            }
+            @Override public void handleSkipped() { seen.add("skipped"); }
+        });
+        parser[0].feed("{\"skip\":[1,{\"".toCharArray());
+        parser[0].feed("x\":\"]}\"}],\"stop\":".toCharArray());
+        parser[0].feed("not even JSON é".toCharArray());
+        parser[0].feed(ByteBuffer.wrap(new byte[] {(byte) 0xC3}));
+        parser[0].endOfInput();
+        org.junit.Assert.assertEquals(Arrays.asList("skip", "skipped", "stop"), seen);
+    }
+    @org.junit.Test
+    public void testInvalid() {
+        FeedParser parser = FeedParser.of(new Recorder());
+        parser.feed("[1,".toCharArray());
+        try {
+            parser.feed("}".toCharArray());
+            org.junit.Assert.fail("should have failed");
+        } catch (StreamParser.ParseException ex) {
+            org.junit.Assert.assertEquals(3, ex.position());
+        }
+        try {
+            parser.feed("1]".toCharArray());
+            org.junit.Assert.fail("should have failed, for having failed already");
+        } catch (IllegalStateException ex) {/* as expected */}
+        // cut short
+        FeedParser cut = FeedParser.of(new Recorder());
+        cut.feed("[\"ab".toCharArray());
+        try {
+            cut.endOfInput();
+            org.junit.Assert.fail("should have failed");
+        } catch (StreamParser.ParseException ex) {/* as expected */}
+        // cut in the middle of a UTF-8 sequence
+        FeedParser mid = FeedParser.of(new Recorder());
+        mid.feed(ByteBuffer.wrap(new byte[] {'"', (byte) 0xE2, (byte) 0x82}));
+        try {
+            mid.feed("\"".toCharArray());
+            org.junit.Assert.fail("should have failed");
+        } catch (IllegalStateException ex) {/* as expected */}
+        FeedParser mid2 = FeedParser.of(new Recorder());
+        mid2.feed(ByteBuffer.wrap(new byte[] {'"', (byte) 0xE2, (byte) 0x82}));
+        try {
+            mid2.endOfInput();
+            org.junit.Assert.fail("should have failed");
+        } catch (StreamParser.ParseException ex) {
+            org.junit.Assert.assertEquals(1, ex.position());
+        }
+        // malformed UTF-8 - at once, or split between chunks, of buffers on the heap or not
+        for (boolean direct: new boolean[] {false, true}) {
+            for (byte[][] chunks: new byte[][][] {{{'[', '"', 'a', 'b', (byte) 0xFF}},
+                                                  {{'[', '"', 'a', 'b', (byte) 0xE2}, {(byte) 0x82, 'x'}}}) {
+                FeedParser malformed = FeedParser.of(new Recorder());
+                try {
+                    for (byte[] chunk: chunks) {
+                        ByteBuffer bytes = direct? ByteBuffer.allocateDirect(chunk.length): ByteBuffer.allocate(chunk.length);
+                        bytes.put(chunk).flip();
+                        malformed.feed(bytes);
+                    }
+                    org.junit.Assert.fail("should have failed");
+                } catch (StreamParser.ParseException ex) {
+                    org.junit.Assert.assertEquals(4, ex.position());
+                }
+            }
+        }
+        // no more after the end
+        FeedParser ended = FeedParser.of(new Recorder());
+        ended.feed("1".toCharArray());
+        ended.endOfInput();
+        try {
+            ended.feed("2".toCharArray());
+            org.junit.Assert.fail("should have failed");
+        } catch (IllegalStateException ex) {/* as expected */}
+        try {
+            ended.limits(ParseLimits.NONE);
+            org.junit.Assert.fail("should have failed");
+        } catch (IllegalStateException ex) {/* as expected */}
+    }
+    @org.junit.Test
+    public void testLimits() {
+        FeedParser parser = FeedParser.of(new Recorder()).limits(ParseLimits.NONE.maxStringLength(3).maxInputLength(100));
+        parser.feed("[\"ab".toCharArray());
+        try {
+            parser.feed("cde\"]".toCharArray());
+            org.junit.Assert.fail("should have exceeded");
+        } catch (ParseLimits.ExceededException ex) {
+            org.junit.Assert.assertEquals(5, ex.position());
+        }
+        FeedParser input = FeedParser.of(new Recorder()).limits(ParseLimits.NONE.maxInputLength(10));
+        input.feed("[1,2,3,".toCharArray());
+        try {
+            input.feed("4,5,6]".toCharArray());
+            org.junit.Assert.fail("should have exceeded");
+        } catch (ParseLimits.ExceededException ex) {
+            org.junit.Assert.assertEquals(10, ex.position());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package jl95.json;
+
+public class LazyNodeTest {
+
+    private static final String repr = "{\"aaa\":\"zzz\",\"000\":123,\"something\":{\"in the way\":[null,42,4.25,[],true]," +
+                                       "\"s\\\"he\":\"kn\\\"ows\\u00e9\",\"empty\":{}},\"true\":false,\"aaa\":\"again\"}";
+
+    @org.junit.Test
+    public void testToNode() {
+        org.junit.Assert.assertEquals(NodeBuilder.build(repr), LazyNode.parse(repr).toNode());
+        for (String scalar: new String[] {"null", "true", "1", "1.5", "\"\\\\x\""}) {
+            org.junit.Assert.assertEquals(NodeBuilder.build(scalar), LazyNode.parse(scalar).toNode());
+        }
+    }
+    @org.junit.Test
+    public void testNavigate() {
+        LazyNode node = LazyNode.parse(repr);
+        org.junit.Assert.assertEquals(Node.Type.MAP, node.type());
+        org.junit.Assert.assertEquals(5,       node.size());
+        org.junit.Assert.assertEquals("again", node.getItem("aaa").asString()); // the last of repeated keys, as when building
+        org.junit.Assert.assertEquals(123L,    (long) node.getItem("000").asLong());
+        org.junit.Assert.assertEquals(false,   node.getItem("true").asBoolean());
+        org.junit.Assert.assertNull  (         node.getItem("nothing"));
+        LazyNode list = node.getItem("something").getItem("in the way");
+        org.junit.Assert.assertEquals(Node.Type.LIST,   list.type());
+        org.junit.Assert.assertEquals(5,                list.size());
+        org.junit.Assert.assertEquals(Node.Type.NULL,   list.get(0).type());
+        org.junit.Assert.assertEquals(Node.Type.LONG,   list.get(1).type());
+        org.junit.Assert.assertEquals(4.25,             list.get(2).asDouble(), 0);
+        org.junit.Assert.assertEquals(0,                list.get(3).size());
+        org.junit.Assert.assertEquals(true,             list.get(4).asBoolean());
+        org.junit.Assert.assertEquals("kn\"owsé",       node.getItem("something").getItem("s\"he").asString());
+        org.junit.Assert.assertEquals(Node.Map(),       node.getItem("something").getItem("empty").toNode());
+        try {
+            list.get(5);
+            org.junit.Assert.fail("should not be able to get past the end of a list");
+        } catch (IndexOutOfBoundsException ex) {/* as expected */}
+        try {
+            list.getItem("x");
+            org.junit.Assert.fail("should not be able to get an item of a list");
+        } catch (RuntimeException ex) {/* as expected */}
+    }
+    @org.junit.Test
+    public void testLarge() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int k = 0; k < 10000; k++) {
+            sb.append(k == 0? "": ",").append("{\"id\":").append(k).append(",\"tags\":[\"a\",\"b\"],\"name\":\"n").append(k).append("\"}");
+        }
+        String   serial = sb.append("]").toString();
+        LazyNode node   = LazyNode.parse(serial);
+        org.junit.Assert.assertEquals(10000,  node.size());
+        org.junit.Assert.assertEquals("n9876",node.get(9876).getItem("name").asString());
+        org.junit.Assert.assertEquals(NodeBuilder.build(serial), node.toNode());
+    }
+    @org.junit.Test
+    public void testInOrder() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int k = 0; k < 10000; k++) {
+            sb.append(k == 0? "": ",").append(k % 2 == 0? "["+k+",["+k+"]]": Integer.toString(k));
+        }
+        LazyNode node = LazyNode.parse(sb.append("]").toString());
+        for (int k = 0; k < node.size(); k++) /* with a nested list gotten between elements */ {
+            LazyNode element = node.get(k);
+            org.junit.Assert.assertEquals(k, (long) (k % 2 == 0? element.get(1).get(0): element).asLong());
+        }
+        for (int k: new int[] {9999, 5000, 5000, 7, 8, 0, 9998}) /* backwards, and again, as well */ {
+            org.junit.Assert.assertEquals(k, (long) (k % 2 == 0? node.get(k).get(0): node.get(k)).asLong());
+        }
+    }
+    @org.junit.Test
+    public void testNumberType() {
+        LazyNode node = LazyNode.parse("[0,-12,9223372036854775807,9223372036854775808,1.0,1e2,-0.5E-3]");
+        Node.Type[] expected = {Node.Type.LONG, Node.Type.LONG, Node.Type.LONG, Node.Type.DOUBLE, Node.Type.DOUBLE, Node.Type.DOUBLE, Node.Type.DOUBLE};
+        for (int k = 0; k < expected.length; k++) {
+            org.junit.Assert.assertEquals(expected[k],                 node.get(k).type());
+            org.junit.Assert.assertEquals(node.get(k).toNode().type(), node.get(k).type());
+        }
+    }
+    @org.junit.Test
+    public void testInvalid() {
+        for (String invalid: new String[] {"[1,", "{\"a\" 1}", "[tru]", "\"\\x\""}) {
+            try {
+                LazyNode.parse(invalid);
+                org.junit.Assert.fail("should not be able to parse "+invalid);
+            } catch (StreamParser.ParseException ex) {/* as expected */}
+        }
+    }
+}
@@ -39,6 +39,21 @@ public class NodeBuilderTest {
         org.junit.Assert.assertNotEquals(Node.Double(42.42).asDouble(), NodeBuilder.build("24.24").asDouble());
     }
     @org.junit.Test
+    public void testNumberSigned() {
+        org.junit.Assert.assertEquals   (Node.Long(-4242),               NodeBuilder.build("-4242"));
+        org.junit.Assert.assertEquals   (Node.Double(-42.42e3),          NodeBuilder.build("-42.42e3"));
+        org.junit.Assert.assertEquals   (Node.Double(1e-9),              NodeBuilder.build("1E-9"));
+        org.junit.Assert.assertEquals   (Node.Long(Long.MIN_VALUE),      NodeBuilder.build("-9223372036854775808"));
+        org.junit.Assert.assertEquals   (Node.Double(9223372036854775808.0), NodeBuilder.build("9223372036854775808")); // beyond a long
+        for (String invalid: new String[] {"-", "01", "1.", ".5", "1e", "1e+", "--1", "1.2.3", "+1", "[1-2]"}) {
+            try {
+                NodeBuilder.build(invalid);
+                org.junit.Assert.fail("should not be able to parse "+invalid);
+            }
+            catch (StreamParser.ParseException ex) {/* as expected */}
+        }
+    }
+    @org.junit.Test
     public void testNumberPadded() {
         org.junit.Assert.assertEquals   (Node.Long(4242).asLong(), NodeBuilder.build("     4242    ").asLong());
         try {
@@ -80,6 +95,24 @@ public class NodeBuilderTest {
         }
     }
     @org.junit.Test
+    public void testStringEscaped() {
+        org.junit.Assert.assertEquals   ("a/b\f\n\r\tc",   NodeBuilder.build("\"a\\/b\\f\\n\\r\\tc\"").asString());
+        org.junit.Assert.assertEquals   ("caf\u00e9",        NodeBuilder.build("\"caf\\u00e9\"")       .asString());
+        org.junit.Assert.assertEquals   ("caf\u00e9",        NodeBuilder.build("\"caf\\u00E9\"")       .asString());
+        org.junit.Assert.assertEquals   ("\ud83d\ude00!",    NodeBuilder.build("\"\\ud83d\\ude00!\"").asString());
+        org.junit.Assert.assertEquals   ("\\n\n",           NodeBuilder.build("\"\\\\n\\n\"")     .asString());
+        org.junit.Assert.assertEquals   ("k\"", NodeBuilder.build("{\"k\\\"\":1}").asMap().keySet().iterator().next());
+        for (String repr: new String[] {
+            "\"\\u12\"",
+            "\"\\u12g4\"",
+        }) {
+            try {
+                NodeBuilder.build(repr);
+                org.junit.Assert.fail("parsing should have failed for: "+repr);
+            } catch (Exception ex) {/* as expected */}
+        }
+    }
+    @org.junit.Test
     public void testStringPadded() {
         org.junit.Assert.assertEquals   (Node.String("foobar") .asString(), NodeBuilder.build("     \"foobar\"     ").asString());
     }
@@ -144,4 +177,177 @@ public class NodeBuilderTest {
         ));
         org.junit.Assert.assertEquals   (array.asList(), NodeBuilder.build("{ \r\n\"aaa\":\"zzz\", \"000\":123, \n\"something\":{\"in the way\":\n\n\r\t[null, 42],\"she\":\"knows\"} ,\"true\":false}").asList());
     }
+    @org.junit.Test
+    public void testReader() {
+        String repr = "{\"foo\":[\"bar\", 42, 4.2, null, true]}";
+        org.junit.Assert.assertEquals(NodeBuilder.build(repr), NodeBuilder.build(new java.io.StringReader(repr)));
+    }
+    @org.junit.Test
+    public void testCaches() {
+        String repr = "[{\"id\":1,\"status\":\"NEW\",\"note\":\"a long note\"},{\"id\":2,\"status\":\"NEW\",\"note\":\"a long note\"}]";
+        StringCache keyCache   = new StringCache(64, 16);
+        StringCache valueCache = new StringCache(64, 8);
+        Node node = NodeBuilder.build(repr, keyCache, valueCache);
+        org.junit.Assert.assertEquals(NodeBuilder.build(repr), node);
+        Map<String, Node> a = node.get(0).asMap();
+        Map<String, Node> b = node.get(1).asMap();
+        String aKey = null, bKey = null;
+        for (String k: a.keySet()) if (k.equals("status")) aKey = k;
+        for (String k: b.keySet()) if (k.equals("status")) bKey = k;
+        org.junit.Assert.assertSame   (aKey, bKey);
+        org.junit.Assert.assertSame   (a.get("status").asString(), b.get("status").asString());
+        org.junit.Assert.assertNotSame(a.get("note")  .asString(), b.get("note")  .asString());
+        org.junit.Assert.assertSame   (aKey, NodeBuilder.build("{\"status\":null}", keyCache, null).asMap().keySet().iterator().next());
+    }
+    @org.junit.Test
+    public void testBuildEach() {
+        List<Node> expected = toArrayList(NodeBuilder.build("{\"a\":1}"), NodeBuilder.build("[2]"), Node.Long(3), Node.String("4"), Node.Bool(true), Node.Null());
+        for (String repr: new String[] {
+            "{\"a\":1}\n[2]\n3\n\"4\"\ntrue\nnull\n",
+            " {\"a\":1}[2] 3\"4\"true null",
+        }) {
+            List<Node> documents = new ArrayList<>();
+            NodeBuilder.buildEach(repr, documents::add);
+            org.junit.Assert.assertEquals(expected, documents);
+            documents.clear();
+            NodeBuilder.buildEach(new java.io.StringReader(repr), documents::add);
+            org.junit.Assert.assertEquals(expected, documents);
+        }
+        List<Node> documents = new ArrayList<>();
+        NodeBuilder.buildEach("  \n ", documents::add);
+        org.junit.Assert.assertTrue(documents.isEmpty());
+        try {
+            NodeBuilder.buildEach("[1]\n[2", documents::add);
+            org.junit.Assert.fail("parsing should have failed for an unclosed document");
+        } catch (Exception ex) {/* as expected */}
+    }
+    @org.junit.Test
+    public void testBuildEachParallel() {
+        StringBuilder sb = new StringBuilder();
+        List<Node> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"caf\u00e9 ").append(i).append("\"}\n");
+            expected.add(NodeBuilder.build("{\"id\":"+i+",\"name\":\"caf\u00e9 "+i+"\"}"));
+        }
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            org.junit.Assert.assertEquals(expected, NodeBuilder.buildEach(sb.toString(), pool));
+            org.junit.Assert.assertEquals(expected, NodeBuilder.buildEach(sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8), pool));
+            java.util.Set<Node> unordered = java.util.concurrent.ConcurrentHashMap.newKeySet();
+            NodeBuilder.buildEach(sb.toString(), pool, unordered::add);
+            org.junit.Assert.assertEquals(new java.util.HashSet<>(expected), unordered);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+    @org.junit.Test
+    public void testBuildEachParallelErrorPosition() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"caf\u00e9 \ud83d\ude00 ").append(i).append("\"}\n");
+        }
+        sb.append("{\"a\":x}\n");
+        String repr = sb.toString();
+        long expected = -1;
+        try {
+            NodeBuilder.buildEach(repr, node -> {});
+            org.junit.Assert.fail("parsing should have failed");
+        } catch (StreamParser.ParseException ex) { expected = ex.position(); }
+        org.junit.Assert.assertEquals(repr.lastIndexOf('x'), expected);
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            try {
+                NodeBuilder.buildEach(repr, pool);
+                org.junit.Assert.fail("parsing should have failed");
+            } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(expected, ex.position()); }
+            try {
+                NodeBuilder.buildEach(repr, pool, node -> {});
+                org.junit.Assert.fail("parsing should have failed");
+            } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(expected, ex.position()); }
+            try {
+                NodeBuilder.buildEach(repr.getBytes(java.nio.charset.StandardCharsets.UTF_8), pool);
+                org.junit.Assert.fail("parsing should have failed");
+            } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(expected, ex.position()); }
+            try {
+                NodeBuilder.buildEach(repr.getBytes(java.nio.charset.StandardCharsets.UTF_8), pool, node -> {});
+                org.junit.Assert.fail("parsing should have failed");
+            } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(expected, ex.position()); }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+    @org.junit.Test
+    public void testBuildParallel() {
+        StringBuilder sb = new StringBuilder(" [");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i == 0? "": " ,").append(i % 3 == 0? "{\"id\":"+i+",\"s\":\"],\\\"{,\",\"l\":[1,[2,{}]]}": i % 3 == 1? Integer.toString(i): "\"x\"");
+        }
+        sb.append("] ");
+        String repr = sb.toString();
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            org.junit.Assert.assertEquals(NodeBuilder.build(repr), NodeBuilder.build(repr, pool));
+            org.junit.Assert.assertEquals(NodeBuilder.build("[]"),     NodeBuilder.build("[]", pool));
+            org.junit.Assert.assertEquals(NodeBuilder.build("{\"a\":[1,2]}"), NodeBuilder.build("{\"a\":[1,2]}", pool));
+            for (String invalid: new String[] {
+                repr.substring(0, repr.indexOf(" ,", repr.length() * 3 / 4) + 2) + "tru " + repr.substring(repr.indexOf(" ,", repr.length() * 3 / 4) + 2),
+                repr.replace("] ", "")
+            }) {
+                long expected = -1;
+                try {
+                    NodeBuilder.build(invalid);
+                    org.junit.Assert.fail("parsing should have failed");
+                } catch (StreamParser.ParseException ex) { expected = ex.position(); }
+                try {
+                    NodeBuilder.build(invalid, pool);
+                    org.junit.Assert.fail("parsing should have failed");
+                } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(expected, ex.position()); }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+    @org.junit.Test
+    public void testBuildParallelEmptyElements() {
+        String eight = "1,2,3,4,5,6,7,8";
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            for (String repr: new String[] {"[1,2,]", "["+eight+",]", "["+eight+" , ]", "["+eight+",,]", "[1,,2]",
+                                            "[1,2,,3,4,5,6,7,8]", "[,1]", "[ ,"+eight+"]", "[,]", "[1,2, ]"}) {
+                String expected;
+                String actual;
+                try { expected = NodeBuilder.build(repr      ).toString(); } catch (StreamParser.ParseException ex) { expected = ex.getMessage(); }
+                try { actual   = NodeBuilder.build(repr, pool).toString(); } catch (StreamParser.ParseException ex) { actual   = ex.getMessage(); }
+                org.junit.Assert.assertEquals(repr, expected, actual);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+    @org.junit.Test
+    public void testBuildAll() {
+        List<String> reprs = new ArrayList<>();
+        List<Node> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String repr = "{\"id\":"+i+",\"tags\":[\"a\",\"b\\n\"],\"deep\":"+String.join("", java.util.Collections.nCopies(i % 40, "["))+i+String.join("", java.util.Collections.nCopies(i % 40, "]"))+"}";
+            reprs.add(repr);
+            expected.add(NodeBuilder.build(repr));
+        }
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(8);
+        try {
+            org.junit.Assert.assertEquals(expected, NodeBuilder.buildAll(reprs, executor));
+            reprs.set(250, "{\"id\":}");
+            try {
+                NodeBuilder.buildAll(reprs, executor);
+                org.junit.Assert.fail("parsing should have failed");
+            } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(6, ex.position()); }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package jl95.json;
+
+import java.util.Random;
+
+public class NodePatchTest {
+
+    private static Node json(String serial) {
+        return NodeBuilder.build(serial.replace('\'', '"'));
+    }
+
+    @org.junit.Test
+    public void testDiff() {
+        String[][] pairs = new String[][] {
+            {"{'a':1,'b':[1,2,3],'c':{'d':'x'}}", "{'a':1,'b':[1,3],'c':{'d':'y','e':null}}"},
+            {"[1,2,3,4,5]",                       "[0,1,2,4,5,6]"},
+            {"[1,2,3]",                           "[]"},
+            {"{'a/b':1,'m~n':2}",                 "{'a/b':3}"},
+            {"{'a':[1]}",                         "{'a':{'0':1}}"},
+            {"1",                                 "'x'"},
+            {"{'a':1}",                           "{'a':1}"}
+        };
+        for (String[] pair: pairs) {
+            Node source = json(pair[0]);
+            Node target = json(pair[1]);
+            Node patch  = NodePatch.diff(source, target);
+            org.junit.Assert.assertEquals(pair[0]+" -> "+pair[1], target, NodePatch.apply(patch, source));
+            org.junit.Assert.assertEquals(json(pair[0]), source); // as it was
+            org.junit.Assert.assertEquals(target, NodePatch.apply(NodePatch.diff(source.freeze(), target.freeze()), source.freeze()));
+        }
+        org.junit.Assert.assertEquals(json("[]"), NodePatch.diff(json("{'a':[1,2]}"), json("{'a':[1,2]}")));
+        org.junit.Assert.assertEquals(json("[{'op':'replace','path':'/a~1b','value':3},{'op':'remove','path':'/m~0n'}]"),
+                                      NodePatch.diff(json("{'a/b':1,'m~n':2}"), json("{'a/b':3}")));
+    }
+    @org.junit.Test
+    public void testDiffRandom() {
+        Random r = new Random(42);
+        for (int k = 0; k < 200; k++) {
+            Node source = random(r, 4);
+            Node target = r.nextBoolean()? random(r, 4): mutate(r, source.deepCopy());
+            org.junit.Assert.assertEquals(target, NodePatch.apply(NodePatch.diff(source, target), source));
+        }
+    }
+    private static Node random(Random r, int depth) {
+        switch (depth == 0? r.nextInt(3): r.nextInt(5)) {
+            case 0 : return Node.Long(r.nextInt(4));
+            case 1 : return Node.String(Character.toString((char) ('a' + r.nextInt(3))));
+            case 2 : return Node.Null();
+            case 3 :
+                Node list = Node.List();
+                for (int i = r.nextInt(5); i > 0; i--) list.add(random(r, depth - 1));
+                return list;
+            default:
+                Node map = Node.Map();
+                for (int i = r.nextInt(5); i > 0; i--) map.setItem(Character.toString((char) ('k' + r.nextInt(4))), random(r, depth - 1));
+                return map;
+        }
+    }
+    private static Node mutate(Random r, Node x) {
+        if (x.type() == Node.Type.LIST && !x.asList().isEmpty()) {
+            int i = r.nextInt(x.asList().size());
+            switch (r.nextInt(3)) {
+                case 0 : x.asList().remove(i);            break;
+                case 1 : x.asList().add(i, random(r, 2)); break;
+                default: x.set(i, mutate(r, x.get(i)));    break;
+            }
+            return x;
+        }
+        if (x.type() == Node.Type.MAP && !x.asMap().isEmpty()) {
+            String key = x.asMap().keySet().iterator().next();
+            x.setItem(key, mutate(r, x.getItem(key)));
+            return x;
+        }
+        return random(r, 2);
+    }
+    @org.junit.Test
+    public void testFrozenShared() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i == 0? "": ",").append("'k").append(i).append("':{'v':[").append(i).append(",{'w':'x'}]}");
+        }
+        Node source = json(sb.append("}").toString()).freeze();
+        Node patch  = json("[{'op':'replace','path':'/k7/v/0','value':-7},{'op':'add','path':'/k8/v/-','value':8}]");
+        Node target = NodePatch.apply(patch, source);
+        org.junit.Assert.assertTrue  (target.isFrozen());
+        org.junit.Assert.assertSame  (source.getItem("k9"), target.getItem("k9"));
+        org.junit.Assert.assertSame  (source.getItem("k7").getItem("v").get(1), target.getItem("k7").getItem("v").get(1));
+        org.junit.Assert.assertEquals(Node.Long(-7), target.getItem("k7").getItem("v").get(0));
+        org.junit.Assert.assertEquals(3, target.getItem("k8").getItem("v").asList().size());
+        org.junit.Assert.assertEquals(2, NodePatch.diff(source, target).asList().size());
+    }
+    @org.junit.Test
+    public void testApply() {
+        Node document = json("{'a':{'b':[1,2]},'c':'x'}");
+        org.junit.Assert.assertEquals(json("{'a':{'b':[1,2]},'d':{'b':[1,2]},'e':'x'}"),
+                                      NodePatch.apply(json("[{'op':'test','path':'/c','value':'x'},{'op':'copy','from':'/a','path':'/d'},{'op':'move','from':'/c','path':'/e'}]"), document));
+        org.junit.Assert.assertEquals(json("{'a':{'b':[0,1,2]}}"),
+                                      NodePatch.apply(json("[{'op':'add','path':'/a/b/0','value':0},{'op':'remove','path':'/c'}]"), document));
+        org.junit.Assert.assertEquals(json("[]"), NodePatch.apply(json("[{'op':'replace','path':'','value':[]}]"), document));
+        for (String invalid: new String[] {
+            "[{'op':'test','path':'/c','value':'y'}]",
+            "[{'op':'remove','path':'/x'}]",
+            "[{'op':'replace','path':'/a/b/2','value':0}]",
+            "[{'op':'add','path':'/a/b/3','value':0}]",
+            "[{'op':'add','path':'/a/b/01','value':0}]",
+            "[{'op':'move','from':'/a','path':'/a/z'}]",
+            "[{'op':'add','path':'/x/y','value':0}]",
+            "[{'op':'frobnicate','path':'/a'}]",
+            "[{'path':'/a'}]"
+        }) {
+            try {
+                NodePatch.apply(json(invalid), document);
+                org.junit.Assert.fail("should not be able to apply "+invalid);
+            } catch (RuntimeException ex) {/* as expected */}
+        }
+        org.junit.Assert.assertEquals(json("{'a':{'b':[1,2]},'c':'x'}"), document);
+    }
+}
@@ -0,0 +1,91 @@
+package jl95.json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class NodeSerializerTest {
+
+    private static final String repr = "{\"aaa\":\"zzz\",\"000\":123,\"something\":{\"in the way\":[null,-42,4.25e-3,[]]," +
+                                       "\"she\":\"kn\\\"ows\\\\\\n\\u0001caf\\u00e9 \\ud83d\\ude00\",\"empty\":{}},\"true\":false}";
+
+    @org.junit.Test
+    public void testRoundTrip() {
+        Node node = NodeBuilder.build(repr);
+        org.junit.Assert.assertEquals(node, NodeBuilder.build(NodeSerializer.serialize(node)));
+        org.junit.Assert.assertEquals(node, NodeBuilder.build(NodeSerializer.serialize(node, true)));
+    }
+    @org.junit.Test
+    public void testRoundTripUtf8() {
+        Node node = NodeBuilder.build(repr);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        NodeSerializer.serialize(node, os, false);
+        org.junit.Assert.assertEquals(NodeSerializer.serialize(node), new String(os.toByteArray(), StandardCharsets.UTF_8));
+        ByteBuffer bb = ByteBuffer.allocate(1024);
+        StreamWriter w = StreamWriter.of(bb);
+        NodeSerializer.serialize(node, w);
+        w.flush();
+        bb.flip();
+        org.junit.Assert.assertEquals(node, NodeBuilder.build(bb));
+    }
+    @org.junit.Test
+    public void testCompact() {
+        org.junit.Assert.assertEquals("[\"a\\\"b\",1,true,null,{\"k\":[]}]",
+                                      NodeSerializer.serialize(NodeBuilder.build(" [ \"a\\\"b\" , 1 , true , null , { \"k\" : [ ] } ] ")));
+    }
+    @org.junit.Test
+    public void testPretty() {
+        org.junit.Assert.assertEquals("[\n  1,\n  {\n    \"l\": [\n      true,\n      {}\n    ]\n  }\n]",
+                                      NodeSerializer.serialize(NodeBuilder.build("[1,{\"l\":[true,{}]}]"), true));
+    }
+    @org.junit.Test
+    public void testLong() {
+        for (long x: new long[] {0, 7, -7, 10, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            org.junit.Assert.assertEquals(Long.toString(x), NodeSerializer.serialize(Node.Long(x)));
+        }
+    }
+    @org.junit.Test
+    public void testDouble() {
+        org.junit.Assert.assertEquals("42.0",   NodeSerializer.serialize(Node.Double(42.0)));
+        org.junit.Assert.assertEquals("-0.5",   NodeSerializer.serialize(Node.Double(-0.5)));
+        org.junit.Assert.assertEquals("0.005",  NodeSerializer.serialize(Node.Double(0.005)));
+        org.junit.Assert.assertEquals("-0.0",   NodeSerializer.serialize(Node.Double(-0.0)));
+        org.junit.Assert.assertEquals("0.1",    NodeSerializer.serialize(Node.Double(0.1)));
+        org.junit.Assert.assertEquals("123.456",NodeSerializer.serialize(Node.Double(123.456)));
+        Random r = new Random(42);
+        for (int k = 0; k < 10000; k++) {
+            double x = k % 2 == 0? r.nextInt(1000000) / 1000.0: (r.nextDouble() - 0.5) * Math.pow(10, r.nextInt(30) - 15);
+            String s = NodeSerializer.serialize(Node.Double(x));
+            org.junit.Assert.assertEquals(s, x, Double.parseDouble(s), 0);
+        }
+        try {
+            NodeSerializer.serialize(Node.Double(Double.NaN));
+            org.junit.Assert.fail("should not be able to serialize NaN");
+        } catch (Exception ex) {/* as expected */}
+    }
+    @org.junit.Test
+    public void testLongString() {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < 30000; k++) {
+            sb.append(k % 100 == 0? "😀": k % 7 == 0? "\"": "x");
+        }
+        Node node = Node.String(sb.toString());
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        NodeSerializer.serialize(node, os, false);
+        org.junit.Assert.assertEquals(node, NodeBuilder.build(os.toByteArray()));
+    }
+    @org.junit.Test
+    public void testWriterMisuse() {
+        StreamWriter w = StreamWriter.of(new StringBuilder(), false);
+        w.writeObjectStart();
+        try {
+            w.writeNumber(1);
+            org.junit.Assert.fail("should not be able to write a value where a key is expected");
+        } catch (Exception ex) {/* as expected */}
+        try {
+            w.writeArrayEnd();
+            org.junit.Assert.fail("should not be able to close an object as an array");
+        } catch (Exception ex) {/* as expected */}
+    }
+}
@@ -21,6 +21,15 @@ public class NodeTest {
     @org.junit.Test
     public void testNull() {
         Assert.assertEquals(Node.Null(), Node.Null());
+        // of boxed numbers and booleans, null
+        Assert.assertEquals(Node.Null(), Node.Long  ((Long)    null));
+        Assert.assertEquals(Node.Null(), Node.Long  ((Integer) null));
+        Assert.assertEquals(Node.Null(), Node.Long  ((Short)   null));
+        Assert.assertEquals(Node.Null(), Node.Long  ((Byte)    null));
+        Assert.assertEquals(Node.Null(), Node.Double((Double)  null));
+        Assert.assertEquals(Node.Null(), Node.Double((Float)   null));
+        Assert.assertEquals(Node.Null(), Node.Bool  ((Boolean) null));
+        Assert.assertNull  (Node.Bool((Boolean) null).asObject());
     }
     @org.junit.Test
     public void testBool() {
@@ -71,4 +80,55 @@ public class NodeTest {
         Assert.assertEquals   (Node.Map(),  Node.Map());
         Assert.assertNotEquals(Node.Map(),  makeMap(""));
     }
+    @org.junit.Test
+    public void testShared() {
+        Assert.assertSame     (Node.Null(), Node.Null());
+        Assert.assertSame     (Node.Bool(true), Node.Bool(Boolean.TRUE));
+        Assert.assertSame     (Node.Bool(false), NodeBuilder.build("false"));
+    }
+    @org.junit.Test
+    public void testUnboxed() {
+        Assert.assertEquals   (42L,  Node.Long(42).longValue());
+        Assert.assertEquals   (4.2,  Node.Double(4.2).doubleValue(), 0);
+        Assert.assertTrue     (Node.Bool(true).booleanValue());
+        Assert.assertNull     (Node.Long(42).asDouble());
+        Assert.assertNull     (Node.Double(4.2).asLong());
+        try {
+            Node.Long(42).doubleValue();
+            Assert.fail("should not be able to get a double out of a LONG node");
+        } catch (Exception ex) {/* as expected */}
+    }
+    @org.junit.Test
+    public void testBean() {
+        Node node = Node.Map(makeMap(""));
+        NodeBean bean = NodeBean.of(node);
+        Assert.assertEquals   (Node.Type.MAP, bean._type);
+        Assert.assertEquals   (Long.valueOf(42), bean._map.get("answer")._int);
+        Assert.assertEquals   (node, bean.toNode());
+    }
+    @org.junit.Test
+    public void testFreeze() {
+        Node node   = NodeBuilder.build("{\"a\":[1,2.5,\"x\",{\"b\":null}],\"c\":{\"d\":true}}");
+        Node frozen = node.freeze();
+        Assert.assertFalse    (node.isFrozen());
+        Assert.assertTrue     (frozen.isFrozen());
+        Assert.assertTrue     (frozen.getItem("a").get(3).isFrozen());
+        Assert.assertSame     (frozen, frozen.freeze());
+        Assert.assertEquals   (node, frozen);
+        Assert.assertEquals   (frozen, node);
+        Assert.assertEquals   (node.hashCode(), frozen.hashCode());
+        Assert.assertEquals   (node.digest(),   frozen.digest());
+        Assert.assertNotEquals(frozen, NodeBuilder.build("{\"a\":[1,2.5,\"x\",{\"b\":false}],\"c\":{\"d\":true}}").freeze());
+        Assert.assertNotEquals(NodeBuilder.build("{\"a\":1,\"b\":2}").digest(), NodeBuilder.build("{\"a\":2,\"b\":1}").digest());
+        Assert.assertEquals   (node, frozen.deepCopy());
+        Assert.assertFalse    (frozen.deepCopy().isFrozen());
+        try {
+            frozen.getItem("a").add(Node.Null());
+            Assert.fail("should not be able to modify a frozen node");
+        } catch (UnsupportedOperationException ex) {/* as expected */}
+        try {
+            frozen.setItem("e", Node.Null());
+            Assert.fail("should not be able to modify a frozen node");
+        } catch (UnsupportedOperationException ex) {/* as expected */}
+    }
 }
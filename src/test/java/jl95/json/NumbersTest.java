@@ -0,0 +1,80 @@
+package jl95.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+public class NumbersTest {
+
+    private static char[] chars(String s) {
+        return s.toCharArray();
+    }
+
+    @org.junit.Test
+    public void testLong() {
+        for (long x: new long[] {0, 7, -7, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1}) {
+            char[] s = chars(Long.toString(x));
+            org.junit.Assert.assertTrue  (Numbers.fitsLong (s, 0, s.length));
+            org.junit.Assert.assertEquals(x, Numbers.parseLong(s, 0, s.length));
+        }
+        for (String s: new String[] {"9223372036854775808", "-9223372036854775809", "99999999999999999999", "1.0", "1e3"}) {
+            org.junit.Assert.assertFalse(s, Numbers.fitsLong(chars(s), 0, s.length()));
+            try {
+                Numbers.parseLong(chars(s), 0, s.length());
+                org.junit.Assert.fail("should not be able to parse "+s+" as a long");
+            } catch (NumberFormatException ex) {/* as expected */}
+        }
+        char[] s = chars("[-42]");
+        org.junit.Assert.assertEquals(-42, Numbers.parseLong(s, 1, 3));
+    }
+    @org.junit.Test
+    public void testDouble() {
+        for (String s: new String[] {"0", "-0", "0.0", "1.5", "-2.25e-3", "1E22", "1e23", "123456789012345678901234567890",
+                                     "0.1", "3.141592653589793", "2.2250738585072014E-308", "1.7976931348623157e308", "1e400", "1e-400",
+                                     "0.30000000000000004", "9007199254740993", "100000000000000000000000.5"}) {
+            org.junit.Assert.assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(Numbers.parseDouble(chars(s), 0, s.length())));
+        }
+        Random r = new Random(42);
+        for (int k = 0; k < 100000; k++) {
+            String s = k % 3 == 0? Long.toString(r.nextLong() >> r.nextInt(64)):
+                       k % 3 == 1? (r.nextInt(2000000) - 1000000) / 1000.0 + "":
+                                   r.nextDouble() * Math.pow(10, r.nextInt(40) - 20) + "";
+            org.junit.Assert.assertEquals(s, Double.parseDouble(s), Numbers.parseDouble(chars(s), 0, s.length()), 0);
+        }
+    }
+    @org.junit.Test
+    public void testBig() {
+        String s = "123456789012345678901234567890";
+        org.junit.Assert.assertEquals(new BigInteger(s),            Numbers.parseBigInteger(chars(s), 0, s.length()));
+        org.junit.Assert.assertEquals(new BigDecimal("-1.50e-2"),   Numbers.parseBigDecimal(chars("-1.50e-2"), 0, 8));
+    }
+    @org.junit.Test
+    public void testValid() {
+        for (String s: new String[] {"0", "-0", "10", "1.5", "1e5", "1E+5", "-1.5e-05", "0.0"}) {
+            org.junit.Assert.assertEquals(s, -1, Numbers.invalidAt(chars(s), 0, s.length()));
+        }
+        for (String s: new String[] {"", "-", "00", "01", "1.", ".1", "1e", "1e+", "1.e5", "1-", "+1", "1.5.", "--1"}) {
+            org.junit.Assert.assertNotEquals(s, -1, Numbers.invalidAt(chars(s), 0, s.length()));
+        }
+    }
+    @org.junit.Test
+    public void testBuild() {
+        Builder.BuildMethods<Node> b = new Builder.BuildMethods<Node>() {
+            @Override public Node getNull    ()                        { return Node.Null(); }
+            @Override public Node getTrue    ()                        { return Node.Bool(true); }
+            @Override public Node getFalse   ()                        { return Node.Bool(false); }
+            @Override public Node getNumber  (String numberRepr)       { throw new AssertionError("should not need a string"); }
+            @Override public Node getLong    (long x)                  { return Node.Long(x); }
+            @Override public Node getDouble  (double x)                { return Node.Double(x); }
+            @Override public Node getBigInteger(BigInteger x)          { return Node.String(x.toString()); }
+            @Override public Node getString  (String s)                { return Node.String(s); }
+            @Override public Node getArray   ()                        { return Node.List(); }
+            @Override public Node getObject  ()                        { return Node.Map(); }
+            @Override public void addToArray (Node array, Node v)      { array.add(v); }
+            @Override public void addToObject(Node object, String k, Node v) { object.setItem(k, v); }
+        };
+        org.junit.Assert.assertEquals(Node.Long(-5),       Numbers.build(chars("-5"),   0, 2, b));
+        org.junit.Assert.assertEquals(Node.Double(5e-1),   Numbers.build(chars("5e-1"), 0, 4, b));
+        org.junit.Assert.assertEquals(Node.String("99999999999999999999"), Numbers.build(chars("99999999999999999999"), 0, 20, b));
+    }
+}
@@ -0,0 +1,95 @@
+package jl95.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OffsetIndexTest {
+
+    @org.junit.Rule
+    public org.junit.rules.TemporaryFolder folder = new org.junit.rules.TemporaryFolder();
+
+    private Path write(String json) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @org.junit.Test
+    public void testArray() throws IOException {
+        StringBuilder sb       = new StringBuilder("[\n");
+        List<Node>    expected = new ArrayList<>();
+        for (int k = 0; k < 1000; k++) {
+            String element = k % 4 == 0? "{\"id\": "+k+", \"name\": \"caf\u00e9 \ud83d\ude00 \\\"quoted\\\" ]}\"}":
+                             k % 4 == 1? "[1, [2, {\"x\": []}]]":
+                             k % 4 == 2? "\"string "+k+"\"":
+                                         Integer.toString(k);
+            sb.append(k == 0? "  ": " ,\t").append(element);
+            expected.add(NodeBuilder.build(element));
+        }
+        Path file  = write(sb.append("\n]\n").toString());
+        Path index = folder.newFile().toPath();
+        OffsetIndex.write(file, index);
+        try (OffsetIndex offsets = OffsetIndex.open(file, index)) {
+            org.junit.Assert.assertEquals(expected.size(), offsets.size());
+            for (int k = expected.size() - 1; k >= 0; k--) {
+                org.junit.Assert.assertEquals(expected.get(k), offsets.get(k));
+                org.junit.Assert.assertNull(offsets.key(k));
+            }
+        }
+        org.junit.Assert.assertEquals(OffsetIndex.HEADER_SIZE + OffsetIndex.ENTRY_SIZE * expected.size(), Files.size(index));
+    }
+    @org.junit.Test
+    public void testObject() throws IOException {
+        Path file  = write("{\"a\": {\"x\": 1}, \"\": [], \"b\\\\\" :\n\"\u00e9\", \"c\\\"\\u00e9\": null, \"a\": true}");
+        Path index = folder.newFile().toPath();
+        OffsetIndex.write(file, index);
+        try (OffsetIndex offsets = OffsetIndex.open(file, index)) {
+            org.junit.Assert.assertEquals(5, offsets.size());
+            org.junit.Assert.assertEquals("a",      offsets.key(0));
+            org.junit.Assert.assertEquals("",       offsets.key(1));
+            org.junit.Assert.assertEquals("b\\",    offsets.key(2));
+            org.junit.Assert.assertEquals("c\"\u00e9", offsets.key(3));
+            org.junit.Assert.assertEquals(NodeBuilder.build("{\"x\": 1}"), offsets.get(0));
+            org.junit.Assert.assertEquals(Node.Bool(true),       offsets.get("a"));
+            org.junit.Assert.assertEquals(Node.List(),           offsets.get(""));
+            org.junit.Assert.assertEquals(Node.String("\u00e9"), offsets.get("b\\"));
+            org.junit.Assert.assertEquals(Node.Null(),           offsets.get("c\"\u00e9"));
+            org.junit.Assert.assertNull(offsets.get("nothing"));
+        }
+    }
+    @org.junit.Test
+    public void testDepth() throws IOException {
+        Path file  = write("{\"a\": [1, {\"b\": 2}], \"skip\": 3, \"c\": {\"d\": \"e\"}, \"f\": []}");
+        Path index = folder.newFile().toPath();
+        OffsetIndex.write(file, 2, index);
+        try (OffsetIndex offsets = OffsetIndex.open(file, index)) {
+            org.junit.Assert.assertEquals(2, offsets.depth());
+            org.junit.Assert.assertEquals(3, offsets.size());
+            org.junit.Assert.assertEquals(Node.Long(1),                   offsets.get(0));
+            org.junit.Assert.assertEquals(NodeBuilder.build("{\"b\": 2}"), offsets.get(1));
+            org.junit.Assert.assertEquals(Node.String("e"),               offsets.get("d"));
+            org.junit.Assert.assertNull(offsets.key(1));
+        }
+    }
+    @org.junit.Test
+    public void testStale() throws IOException {
+        Path file  = write("[1, 2, 3]");
+        Path index = folder.newFile().toPath();
+        OffsetIndex.write(file, index);
+        Files.write(file, "[1, 2, 4]".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+        try {
+            OffsetIndex.open(file, index).close();
+            org.junit.Assert.fail("should not be able to open an index of a file modified since");
+        } catch (RuntimeException ex) {/* as expected */}
+        try {
+            OffsetIndex.open(file, file).close();
+            org.junit.Assert.fail("should not be able to open a file that is not an index");
+        } catch (RuntimeException ex) {/* as expected */}
+    }
+}
@@ -0,0 +1,90 @@
+package jl95.json;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+public class ParseLimitsTest {
+
+    /**
+     * a reader of a prefix, then of a character over and over, without end
+     */
+    private static class EndlessReader extends Reader {
+        private final Reader prefix;
+        private final char   c;
+        public EndlessReader(String prefix, char c) {this.prefix = new StringReader(prefix); this.c = c;}
+        @Override public int  read (char[] cbuf, int off, int len) throws java.io.IOException {
+            int n = prefix.read(cbuf, off, len);
+            if (n > 0) {
+                return n;
+            }
+            java.util.Arrays.fill(cbuf, off, off + len, c);
+            return len;
+        }
+        @Override public void close() {}
+    }
+
+    private static void assertExceeded(String serial, ParseLimits limits, long position) {
+        for (int k = 0; k < 3; k++) {
+            try {
+                if      (k == 0) NodeBuilder.build(serial, limits);
+                else if (k == 1) NodeBuilder.build(serial.getBytes(StandardCharsets.UTF_8), limits);
+                else             NodeBuilder.build(new StringReader(serial), limits);
+                org.junit.Assert.fail("should have exceeded "+limits+" with "+serial);
+            } catch (ParseLimits.ExceededException ex) {
+                org.junit.Assert.assertEquals(serial, position, ex.position());
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void testWithin() {
+        String      serial = "{\"key\":[\"value\",-1.5e3,[[true]],null]}";
+        ParseLimits limits = ParseLimits.NONE.maxDepth(4).maxKeyLength(3).maxStringLength(5).maxNumberLength(6)
+                                             .maxInputLength(serial.length()).maxEntries(4);
+        org.junit.Assert.assertEquals(NodeBuilder.build(serial), NodeBuilder.build(serial, limits));
+        org.junit.Assert.assertEquals(NodeBuilder.build(serial), NodeBuilder.build(new StringReader(serial), limits));
+    }
+    @org.junit.Test
+    public void testExceeded() {
+        assertExceeded("[[[1]]]",                 ParseLimits.NONE.maxDepth(2),         2);
+        assertExceeded("{\"a\":{\"b\":{}}}",      ParseLimits.NONE.maxDepth(2),         10);
+        assertExceeded("[\"abc\",\"abcdef\"]",    ParseLimits.NONE.maxStringLength(5),  13);
+        assertExceeded("{\"abcd\":\"abcdef\"}",   ParseLimits.NONE.maxKeyLength(3),     5);
+        assertExceeded("[1,-123456]",             ParseLimits.NONE.maxNumberLength(6),  9);
+        assertExceeded("[1,2,3]",                 ParseLimits.NONE.maxInputLength(6),   6);
+        assertExceeded("[1,[2,3,4],5]",           ParseLimits.NONE.maxEntries(2),       7);
+        assertExceeded("{\"a\":1,\"b\":2}",       ParseLimits.NONE.maxEntries(1),       6);
+    }
+    @org.junit.Test
+    public void testFailFast() {
+        String nested = String.join("", Collections.nCopies(100000, "["));
+        assertExceeded(nested, ParseLimits.NONE.maxDepth(100), 100);
+        // endless input - only a limit ends it
+        for (Reader reader: new Reader[] {new EndlessReader("[\"", 'x'), new EndlessReader("{\"", 'x'), new EndlessReader("[1", '1')}) {
+            try {
+                NodeBuilder.build(reader, ParseLimits.NONE.maxStringLength(1 << 20).maxKeyLength(100).maxNumberLength(100));
+                org.junit.Assert.fail("should have exceeded a limit");
+            } catch (ParseLimits.ExceededException ex) {/* as expected */}
+        }
+        try {
+            NodeBuilder.build(new EndlessReader("[", ' '), ParseLimits.NONE.maxInputLength(1 << 24));
+            org.junit.Assert.fail("should have exceeded the input length");
+        } catch (ParseLimits.ExceededException ex) {
+            org.junit.Assert.assertEquals(1 << 24, ex.position());
+        }
+        try {
+            NodeBuilder.build(new EndlessReader("[tru", 'e'));
+            org.junit.Assert.fail("should not be able to build an endless word");
+        } catch (StreamParser.ParseException ex) {/* as expected */}
+    }
+    @org.junit.Test
+    public void testReset() {
+        StreamParser parser = StreamParser.acquire().limits(ParseLimits.NONE.maxDepth(1));
+        parser.release();
+        for (int k = 0; k < 100; k++) /* as a parser with limits, once given back, is of none */ {
+            NodeBuilder.build("[[[]]]");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package jl95.json;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+
+public class ParseMetricsTest {
+
+    private static final String repr = "{\"a\":[1,2.5,true,false,null,[[{}]]],\"b\\n\":\"x\\\"y\\u00e9\",\"c\":\"plain\"}";
+
+    @org.junit.Test
+    public void testCounts() {
+        ParseMetrics metrics = new ParseMetrics();
+        ParseMetrics.install(metrics);
+        try {
+            NodeBuilder.build(repr);
+            new StreamParser().parse("[1, [2, 3], 4]", new StreamParser.SpanHandlers() {
+                @Override public void handleNull       () {}
+                @Override public void handleNumber     (char[] buf, int offset, int length) {}
+                @Override public void handleString     (char[] buf, int offset, int length) {}
+                @Override public void handleTrue       () {}
+                @Override public void handleFalse      () {}
+                @Override public void handleArrayStart () {}
+                @Override public void handleArrayEnd   () {}
+                @Override public void handleObjectStart() {}
+                @Override public void handleObjectEnd  () {}
+                @Override public void handleObjectKey  (char[] buf, int offset, int length) {}
+            });
+            try {
+                NodeBuilder.build("[1, 2");
+                org.junit.Assert.fail("should not be able to build an unclosed array");
+            } catch (StreamParser.ParseException ex) {/* as expected */}
+        }
+        finally {
+            ParseMetrics.install(null);
+        }
+        NodeBuilder.build(repr); // not counted
+        ParseMetrics.Snapshot s = metrics.snapshot();
+        org.junit.Assert.assertEquals(3, s.parses());
+        org.junit.Assert.assertEquals(1, s.failedParses());
+        org.junit.Assert.assertEquals(repr.length() + "[1, [2, 3], 4]".length() + "[1, 2".length(), s.charsScanned());
+        org.junit.Assert.assertEquals(1,         s.nulls());
+        org.junit.Assert.assertEquals(2,         s.booleans());
+        org.junit.Assert.assertEquals(2 + 4 + 1, s.numbers()); // of the unclosed array, the last number is not told of
+        org.junit.Assert.assertEquals(2,         s.strings());
+        org.junit.Assert.assertEquals(3,         s.keys());
+        org.junit.Assert.assertEquals(3 + 2 + 1, s.arrays());
+        org.junit.Assert.assertEquals(2,         s.objects());
+        org.junit.Assert.assertEquals(5,         s.maxDepth());
+        org.junit.Assert.assertEquals(3,         s.escapes());
+        org.junit.Assert.assertEquals(3 + 10,    s.escapedChars());
+        org.junit.Assert.assertEquals(3,         s.parseNanos().count());
+        org.junit.Assert.assertEquals(2,         s.buildNanos().count());
+        org.junit.Assert.assertTrue(s.parseNanos().percentile(50) <= s.parseNanos().max());
+        metrics.reset();
+        org.junit.Assert.assertEquals(0, metrics.snapshot().parses());
+    }
+    @org.junit.Test
+    public void testFeedParses() {
+        ParseMetrics metrics = new ParseMetrics();
+        ParseMetrics.install(metrics);
+        try {
+            FeedParser ended = FeedParser.of(new Recorder());
+            ended.feed("[1, [2,".toCharArray());
+            ended.feed(java.nio.ByteBuffer.wrap(" 3]]".getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+            ended.endOfInput();
+            FeedParser failed = FeedParser.of(new Recorder());
+            failed.feed("[true".toCharArray());
+            try {
+                failed.feed("}".toCharArray());
+                org.junit.Assert.fail("should not be able to close an array with a brace");
+            } catch (StreamParser.ParseException ex) {/* as expected */}
+            FeedParser.of(new Recorder()).feed("[null".toCharArray()); // never ended - so not counted
+        }
+        finally {
+            ParseMetrics.install(null);
+        }
+        ParseMetrics.Snapshot s = metrics.snapshot();
+        org.junit.Assert.assertEquals(2,                      s.parses());
+        org.junit.Assert.assertEquals(1,                      s.failedParses());
+        org.junit.Assert.assertEquals("[1, [2, 3]]".length(), s.charsScanned() - "[true".length());
+        org.junit.Assert.assertEquals(3,                      s.numbers());
+        org.junit.Assert.assertEquals(1,                      s.booleans());
+        org.junit.Assert.assertEquals(0,                      s.nulls());
+        org.junit.Assert.assertEquals(2 + 1,                  s.arrays());
+        org.junit.Assert.assertEquals(2,                      s.parseNanos().count());
+    }
+    @org.junit.Test
+    public void testHistogram() {
+        for (long x: new long[] {0, 1, 3, 4, 5, 7, 8, 100, 1000, 123456789, Long.MAX_VALUE}) {
+            int b = ParseMetrics.Histogram.bucket(x);
+            org.junit.Assert.assertTrue(x <= ParseMetrics.Histogram.upperBound(b));
+            org.junit.Assert.assertTrue(b == 0 || x > ParseMetrics.Histogram.upperBound(b - 1));
+            org.junit.Assert.assertTrue(ParseMetrics.Histogram.upperBound(b) - x <= x / 4);
+        }
+        ParseMetrics.Histogram h = new ParseMetrics.Histogram();
+        for (long x = 1; x <= 1000; x++) {
+            h.record(x);
+        }
+        ParseMetrics.Latencies l = h.snapshot();
+        org.junit.Assert.assertEquals(1000, l.count());
+        org.junit.Assert.assertEquals(500.5, l.mean(), 0);
+        org.junit.Assert.assertEquals(1000, l.max());
+        org.junit.Assert.assertEquals(500, l.percentile(50), 500 / 4);
+        org.junit.Assert.assertEquals(990, l.percentile(99), 990 / 4);
+    }
+    @org.junit.Test
+    public void testJmx() throws Exception {
+        ParseMetrics metrics = new ParseMetrics();
+        ObjectName   name    = metrics.register(ParseMetrics.OBJECT_NAME + ",name=test");
+        try {
+            ParseMetrics.install(metrics);
+            NodeBuilder.build(repr);
+            ParseMetrics.install(null);
+            org.junit.Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Parses"));
+            org.junit.Assert.assertEquals(3L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Keys"));
+        }
+        finally {
+            ParseMetrics.install(null);
+            ParseMetrics.unregister(name);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package jl95.json;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class PathExtractorTest {
+
+    private static final String repr = "{\"meta\":{\"id\":7,\"tags\":[\"x\",\"y\"],\"a/b\":{\"c~d\":true}}," +
+                                       "\"items\":[{\"price\":1.5,\"name\":\"a\"},{\"name\":\"b\\\"]}\"},{\"price\":3,\"skip\":[[{}],\"]\"]}]," +
+                                       "\"tail\":null}";
+
+    @org.junit.Test
+    public void testPaths() {
+        Map<String, List<Node>> found = PathExtractor.of("$.meta.id", "$.items[*].price", "/meta/tags/1", "/meta/a~1b/c~0d",
+                                                         "$['items'][1].name", "$.nothing", "$.meta.tags.*").extract(repr);
+        org.junit.Assert.assertEquals(Collections.singletonList(Node.Long(7)),                         found.get("$.meta.id"));
+        org.junit.Assert.assertEquals(Arrays.asList(Node.Double(1.5), Node.Long(3)),                   found.get("$.items[*].price"));
+        org.junit.Assert.assertEquals(Collections.singletonList(Node.String("y")),                     found.get("/meta/tags/1"));
+        org.junit.Assert.assertEquals(Collections.singletonList(Node.Bool(true)),                      found.get("/meta/a~1b/c~0d"));
+        org.junit.Assert.assertEquals(Collections.singletonList(Node.String("b\"]}")),                 found.get("$['items'][1].name"));
+        org.junit.Assert.assertEquals(Collections.emptyList(),                                         found.get("$.nothing"));
+        org.junit.Assert.assertEquals(Arrays.asList(Node.String("x"), Node.String("y")),               found.get("$.meta.tags.*"));
+    }
+    @org.junit.Test
+    public void testNested() {
+        Node node = NodeBuilder.build(repr);
+        Map<String, List<Node>> found = PathExtractor.of("$", "$.meta", "$.meta.tags[0]").extract(repr);
+        org.junit.Assert.assertEquals(Collections.singletonList(node),                     found.get("$"));
+        org.junit.Assert.assertEquals(Collections.singletonList(node.getItem("meta")),     found.get("$.meta"));
+        org.junit.Assert.assertEquals(Collections.singletonList(Node.String("x")),         found.get("$.meta.tags[0]"));
+    }
+    @org.junit.Test
+    public void testEarlyStop() {
+        // nothing after the meta object is read - so it need not even be valid
+        Map<String, List<Node>> found = PathExtractor.of("$.meta.id").extract("{\"meta\":{\"id\":7}, \"rest\": [ this is not JSON");
+        org.junit.Assert.assertEquals(Collections.singletonList(Node.Long(7)), found.get("$.meta.id"));
+        // nor are skipped values checked for being valid
+        found = PathExtractor.of("$[1]").extract("[[nul, 1 2], 42]");
+        org.junit.Assert.assertEquals(Collections.singletonList(Node.Long(42)), found.get("$[1]"));
+        // and, with no paths, nothing is read at all
+        org.junit.Assert.assertEquals(Collections.emptyMap(), PathExtractor.of().extract("[ this is not JSON"));
+        org.junit.Assert.assertEquals(Collections.emptyMap(), PathExtractor.of().extract(new java.io.StringReader("[")));
+    }
+    @org.junit.Test
+    public void testSkippingHandlers() {
+        // skipped values are not given to handlers
+        StringBuilder events = new StringBuilder();
+        StreamParser parser = new StreamParser();
+        parser.parse("{\"a\":[1,{\"b\":\"}\"}],\"c\":2}", new StreamParser.Handlers() {
+            @Override public void handleNull       () { events.append("null "); }
+            @Override public void handleNumber     (String nRepr) { events.append(nRepr).append(' '); }
+            @Override public void handleString     (String s) { events.append(s).append(' '); }
+            @Override public void handleTrue       () { events.append("true "); }
+            @Override public void handleFalse      () { events.append("false "); }
+            @Override public void handleArrayStart () { events.append("[ "); }
+            @Override public void handleArrayEnd   () { events.append("] "); }
+            @Override public void handleObjectStart() { events.append("{ "); }
+            @Override public void handleObjectEnd  () { events.append("} "); }
+            @Override public void handleSkipped    () { events.append("... "); }
+            @Override public void handleObjectKey  (String k) {
+                events.append(k).append(": ");
+                if (k.equals("a")) {
+                    parser.skipNextValue();
+                }
+            }
+        });
+        org.junit.Assert.assertEquals("{ a: ... c: 2 } ", events.toString());
+    }
+    @org.junit.Test
+    public void testInvalidPath() {
+        for (String invalid: new String[] {"meta.id", "$.", "$[x]", "$[0"}) {
+            try {
+                PathExtractor.of(invalid);
+                org.junit.Assert.fail("should not be able to compile "+invalid);
+            } catch (IllegalArgumentException ex) {/* as expected */}
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package jl95.json;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentNodesTest {
+
+    @org.junit.Test
+    public void testList() {
+        Random     r       = new Random(42);
+        List<Node> model   = new ArrayList<>();
+        Node       list    = Node.List().persistent();
+        List<Node> versions = new ArrayList<>();
+        List<List<Node>> models = new ArrayList<>();
+        for (int k = 0; k < 40000; k++) {
+            if (model.isEmpty() || r.nextInt(3) > 0) {
+                Node x = Node.Long(k);
+                model.add(x);
+                list = list.plus(x);
+            } else {
+                int  i = r.nextInt(model.size());
+                Node x = Node.String("s"+k);
+                model.set(i, x);
+                list = list.with(i, x);
+            }
+            if (k % 997 == 0) {
+                versions.add(list);
+                models  .add(new ArrayList<>(model));
+            }
+        }
+        org.junit.Assert.assertEquals(model, list.asList());
+        org.junit.Assert.assertEquals(Node.List(model), list);
+        org.junit.Assert.assertEquals(Node.List(model).hashCode(), list.hashCode());
+        for (int v = 0; v < versions.size(); v++) /* as they were */ {
+            org.junit.Assert.assertEquals(models.get(v), versions.get(v).asList());
+        }
+        try {
+            list.get(model.size());
+            org.junit.Assert.fail("should not be able to get past the end");
+        } catch (IndexOutOfBoundsException ex) {/* as expected */}
+    }
+    @org.junit.Test
+    public void testMap() {
+        Random            r     = new Random(42);
+        Map<String, Node> model = new HashMap<>();
+        Node              map   = Node.Map().persistent();
+        for (int k = 0; k < 40000; k++) {
+            String key = r.nextBoolean()? "k"+r.nextInt(5000): (r.nextBoolean()? "Aa": "BB") + r.nextInt(50); // "Aa" and "BB" are of the same hash
+            if (r.nextInt(4) == 0) {
+                model.remove(key);
+                map = map.withoutItem(key);
+            } else {
+                Node x = Node.Long(k);
+                model.put(key, x);
+                map = map.withItem(key, x);
+            }
+        }
+        org.junit.Assert.assertEquals(model.size(), map.asMap().size());
+        org.junit.Assert.assertEquals(model, map.asMap());
+        org.junit.Assert.assertEquals(map.asMap(), model);
+        org.junit.Assert.assertEquals(Node.Map(model).hashCode(), map.hashCode());
+        for (String key: model.keySet()) {
+            map = map.withoutItem(key);
+        }
+        org.junit.Assert.assertEquals(Node.Map(), map);
+        org.junit.Assert.assertSame  (map, map.withoutItem("nothing"));
+    }
+    @org.junit.Test
+    public void testShared() {
+        Node document = NodeBuilder.build("{\"a\":{\"b\":[1,2,{\"c\":3}]},\"d\":[true]}");
+        Node snapshot = document.persistent();
+        org.junit.Assert.assertTrue  (snapshot.isPersistent());
+        org.junit.Assert.assertTrue  (snapshot.isFrozen());
+        org.junit.Assert.assertSame  (snapshot, snapshot.persistent());
+        org.junit.Assert.assertSame  (snapshot, snapshot.freeze());
+        org.junit.Assert.assertEquals(document, snapshot);
+        Node updated = snapshot.withItem("a", snapshot.getItem("a").withItem("b", snapshot.getItem("a").getItem("b").plus(Node.Long(4))));
+        org.junit.Assert.assertEquals(NodeBuilder.build("{\"a\":{\"b\":[1,2,{\"c\":3},4]},\"d\":[true]}"), updated);
+        org.junit.Assert.assertEquals(document, snapshot);
+        org.junit.Assert.assertSame  (snapshot.getItem("d"), updated.getItem("d"));
+        org.junit.Assert.assertSame  (snapshot.getItem("a").getItem("b").get(2), updated.getItem("a").getItem("b").get(2));
+        org.junit.Assert.assertEquals(1, NodePatch.diff(snapshot, updated).asList().size());
+        try {
+            snapshot.getItem("d").add(Node.Null());
+            org.junit.Assert.fail("should not be able to modify a persistent node");
+        } catch (UnsupportedOperationException ex) {/* as expected */}
+        try {
+            document.withItem("e", Node.Null());
+            org.junit.Assert.fail("should not be able to update a non-persistent node into a version");
+        } catch (RuntimeException ex) {/* as expected */}
+    }
+}
@@ -0,0 +1,23 @@
+package jl95.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * handlers that record every event of a parse, as a string - for tests to compare
+ */
+class Recorder implements StreamParser.Handlers {
+    public final List<String> events = new ArrayList<>();
+    @Override public void handleNull       ()              { events.add("null"); }
+    @Override public void handleNumber     (String nRepr)  { events.add("number:"+nRepr); }
+    @Override public void handleString     (String s)      { events.add("string:"+s); }
+    @Override public void handleTrue       ()              { events.add("true"); }
+    @Override public void handleFalse      ()              { events.add("false"); }
+    @Override public void handleArrayStart ()              { events.add("["); }
+    @Override public void handleArrayEnd   ()              { events.add("]"); }
+    @Override public void handleObjectStart()              { events.add("{"); }
+    @Override public void handleObjectEnd  ()              { events.add("}"); }
+    @Override public void handleObjectKey  (String k)      { events.add("key:"+k); }
+    @Override public void handleDocumentEnd()              { events.add("end"); }
+    @Override public void handleSkipped    ()              { events.add("skipped"); }
+}
@@ -0,0 +1,85 @@
+package jl95.json;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ScanningTest {
+
+    private static String repeat(String s, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < n; k++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    @org.junit.Test
+    public void testVectors() {
+        // by vectors only as tested with the multi-release jar and the vector module - see the pom - and else not
+        org.junit.Assert.assertEquals(Boolean.getBoolean("jl95.json.vectors"), Scanning.vectors());
+    }
+    @org.junit.Test
+    public void testStringEnd() {
+        char[] buf = (repeat("abcdéfgh", 20)+"\"x\\").toCharArray();
+        org.junit.Assert.assertEquals(160, Scanning.stringEnd(buf, 0,   buf.length));
+        org.junit.Assert.assertEquals(162, Scanning.stringEnd(buf, 161, buf.length));
+        org.junit.Assert.assertEquals(150, Scanning.stringEnd(buf, 7,   150));
+        org.junit.Assert.assertEquals(5,   Scanning.stringEnd(buf, 5,   5));
+        for (int k = 0; k < 100; k++) /* a stop at every position - as to fall in and out of any width of vector, if by vectors */ {
+            char[] chars = repeat("a", 100).toCharArray();
+            chars[k] = k % 2 == 0? '"': '\\';
+            org.junit.Assert.assertEquals(k, Scanning.stringEnd(chars, 0, chars.length));
+        }
+    }
+    @org.junit.Test
+    public void testWhitespaceEnd() {
+        char[] buf = (repeat(" \t\r\n", 40)+"x ").toCharArray();
+        org.junit.Assert.assertEquals(160, Scanning.whitespaceEnd(buf, 0,   buf.length));
+        org.junit.Assert.assertEquals(160, Scanning.whitespaceEnd(buf, 160, buf.length));
+        org.junit.Assert.assertEquals(buf.length, Scanning.whitespaceEnd(buf, 161, buf.length));
+        org.junit.Assert.assertEquals(100, Scanning.whitespaceEnd(buf, 0,   100));
+        for (int k = 0; k < 100; k++) {
+            char[] chars = repeat(" ", 100).toCharArray();
+            chars[k] = k % 2 == 0? '\u00A0': ','; // no-break space is not whitespace to JSON
+            org.junit.Assert.assertEquals(k, Scanning.whitespaceEnd(chars, 0, chars.length));
+        }
+    }
+    @org.junit.Test
+    public void testLongTokens() {
+        // strings and runs of whitespace longer than the parser's buffer, escapes among them
+        String body   = repeat("lorem ipsum \\\"dolor\\\" sit amet \\\\ ", 1000);
+        String spaces = repeat(" \n\t", 5000);
+        String serial = "{"+spaces+"\"a\""+spaces+":"+spaces+"\""+body+"\""+spaces+","+spaces+"\"b\":[12345"+spaces+"]"+spaces+"}"+spaces;
+        Node expected = Node.Map(new java.util.HashMap<String, Node>() {{
+            put("a", Node.String(repeat("lorem ipsum \"dolor\" sit amet \\ ", 1000)));
+            put("b", Node.List(Arrays.asList(Node.Long(12345))));
+        }});
+        org.junit.Assert.assertEquals(expected, NodeBuilder.build(serial));
+        org.junit.Assert.assertEquals(expected, NodeBuilder.build(serial.getBytes(StandardCharsets.UTF_8)));
+        org.junit.Assert.assertEquals(expected, NodeBuilder.build(new StringReader(serial)));
+    }
+    @org.junit.Test
+    public void testSkipLongStrings() {
+        String        body    = repeat("x\\\"]},", 3000);
+        String        serial  = "[[\""+body+"\",\""+body+"\"],\""+body+"\",42]";
+        List<String>  events  = new ArrayList<>();
+        StreamParser  parser  = new StreamParser();
+        parser.parse(new StringReader(serial), new StreamParser.SpanHandlers() {
+            @Override public void handleNull       ()                         { events.add("null"); }
+            @Override public void handleTrue       ()                         { events.add("true"); }
+            @Override public void handleFalse      ()                         { events.add("false"); }
+            @Override public void handleNumber     (char[] buf, int off, int len) { events.add(new String(buf, off, len)); }
+            @Override public void handleString     (char[] buf, int off, int len) { events.add("string"); }
+            @Override public void handleObjectKey  (char[] buf, int off, int len) { events.add("key"); }
+            @Override public void handleArrayStart ()                         { events.add("["); parser.skipNextValue(); }
+            @Override public void handleArrayEnd   ()                         { events.add("]"); }
+            @Override public void handleObjectStart()                         { events.add("{"); }
+            @Override public void handleObjectEnd  ()                         { events.add("}"); }
+            @Override public void handleSkipped    ()                         { events.add("skipped"); }
+        });
+        org.junit.Assert.assertEquals(Arrays.asList("[", "skipped", "string", "42", "]"), events);
+    }
+}
@@ -0,0 +1,244 @@
+package jl95.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class StreamParserTest {
+
+    /**
+     * a reader that gives away at most one character per read, such that every token crosses a buffer boundary
+     */
+    private static class TrickleReader extends Reader {
+        private final Reader reader;
+        public TrickleReader(String s) {this.reader = new StringReader(s);}
+        @Override public int  read (char[] cbuf, int off, int len) throws IOException { return reader.read(cbuf, off, Math.min(len, 1)); }
+        @Override public void close() throws IOException { reader.close(); }
+    }
+    private static List<String> eventsOf(String serial) {
+        Recorder r = new Recorder();
+        new StreamParser().parse(serial, r);
+        return r.events;
+    }
+    private static List<String> eventsOf(byte[] serial) {
+        Recorder r = new Recorder();
+        new StreamParser().parse(serial, r);
+        return r.events;
+    }
+    private static List<String> eventsOf(Reader reader) {
+        Recorder r = new Recorder();
+        new StreamParser().parse(reader, r);
+        return r.events;
+    }
+
+    private static final String[] serials = new String[] {
+        "4242",
+        " 42.42 ",
+        "true",
+        "\"foo\\\\bar\\\"baz\"",
+        "[\"abc\", 123, [[null, 42],\"hello\\\\there\"] ,true]",
+        "{ \r\n\"aaa\":\"zzz\", \"000\":123, \n\"something\":{\"in the way\":\n\n\r\t[null, 42],\"she\":\"knows\"} ,\"true\":false}"
+    };
+
+    @org.junit.Test
+    public void testReader() {
+        for (String serial: serials) {
+            org.junit.Assert.assertEquals(eventsOf(serial), eventsOf(new StringReader (serial)));
+            org.junit.Assert.assertEquals(eventsOf(serial), eventsOf(new TrickleReader(serial)));
+        }
+    }
+    @org.junit.Test
+    public void testInputStream() {
+        String serial = "{\"café\":[\"naïve\", 1, 2.5]}";
+        Recorder r = new Recorder();
+        new StreamParser().parse(new ByteArrayInputStream(serial.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, r);
+        org.junit.Assert.assertEquals(eventsOf(serial), r.events);
+    }
+    @org.junit.Test
+    public void testReaderTokenLongerThanBuffer() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            sb.append((char)('a' + i % 26));
+        }
+        String serial = "[\""+sb+"\", "+sb.toString().replaceAll("[a-z]", "7")+"]";
+        org.junit.Assert.assertEquals(eventsOf(serial), eventsOf(new StringReader(serial)));
+    }
+    @org.junit.Test
+    public void testReaderInvalid() {
+        for (String serial: new String[] {
+            "[1, 2",
+            "[1, 2 ",
+            "\"foo",
+            "{\"foo\":tru}"
+        }) {
+            try {
+                eventsOf(new TrickleReader(serial));
+                org.junit.Assert.fail("parsing should have failed for: "+serial);
+            } catch (Exception ex) {/* as expected */}
+        }
+    }
+    @org.junit.Test
+    public void testSpanHandlers() {
+        final int[] found = new int[] {0};
+        final long[] sum = new long[] {0};
+        new StreamParser().parse("[{\"id\":1,\"name\":\"a\"},{\"name\":\"b\\\"\",\"id\":22}]", new StreamParser.SpanHandlers() {
+            private boolean inId = false;
+            @Override public void handleNull       () {}
+            @Override public void handleNumber     (char[] buf, int offset, int length) {
+                if (!inId) return;
+                long x = 0;
+                for (int k = offset; k < offset + length; k++) x = 10 * x + (buf[k] - '0');
+                sum[0] += x;
+            }
+            @Override public void handleString     (char[] buf, int offset, int length) {
+                if (length == 2 && buf[offset] == 'b' && buf[offset + 1] == '"') found[0]++;
+            }
+            @Override public void handleTrue       () {}
+            @Override public void handleFalse      () {}
+            @Override public void handleArrayStart () {}
+            @Override public void handleArrayEnd   () {}
+            @Override public void handleObjectStart() {}
+            @Override public void handleObjectEnd  () {}
+            @Override public void handleObjectKey  (char[] buf, int offset, int length) {
+                inId = length == 2 && buf[offset] == 'i' && buf[offset + 1] == 'd';
+            }
+        });
+        org.junit.Assert.assertEquals(1, found[0]);
+        org.junit.Assert.assertEquals(23, sum[0]);
+    }
+    private static String multiByteSerial() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i == 0? "": ",").append("{\"caf\u00e9\":\"\u20ac\ud83d\ude00").append(i).append("\"}");
+        }
+        return sb.append("]").toString();
+    }
+    @org.junit.Test
+    public void testBytes() {
+        for (String serial: serials) {
+            org.junit.Assert.assertEquals(eventsOf(serial), eventsOf(serial.getBytes(StandardCharsets.UTF_8)));
+        }
+        String serial = multiByteSerial();
+        org.junit.Assert.assertEquals(eventsOf(serial), eventsOf(serial.getBytes(StandardCharsets.UTF_8)));
+    }
+    @org.junit.Test
+    public void testDirectByteBuffer() {
+        String serial = multiByteSerial();
+        byte[] bytes = serial.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Recorder r = new Recorder();
+        new StreamParser().parse(direct, r);
+        org.junit.Assert.assertEquals(eventsOf(serial), r.events);
+        org.junit.Assert.assertEquals(0, direct.position());
+    }
+    @org.junit.Test
+    public void testFileChannel() throws IOException {
+        String serial = multiByteSerial();
+        Path file = Files.createTempFile("javason", ".json");
+        try {
+            Files.write(file, serial.getBytes(StandardCharsets.UTF_8));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                Recorder r = new Recorder();
+                new StreamParser().parse(channel, 0, channel.size(), r);
+                org.junit.Assert.assertEquals(eventsOf(serial), r.events);
+            }
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+    @org.junit.Test
+    public void testBytesMalformed() {
+        // at the position of the first character that is not well-formed - or of the end, if cut short
+        byte[] long_ = ("[\""+String.join("", Collections.nCopies(10000, "\u00e9"))+"\u0000\"]").getBytes(StandardCharsets.UTF_8);
+        long_[long_.length - 3] = (byte) 0xFF;
+        byte[][] serials   = {{'"', (byte) 0xC3, '"'},
+                              {'"', (byte) 0xC0, (byte) 0xAF, '"'},
+                              {'"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"'},
+                              {'"', 'a', '"', (byte) 0xE2, (byte) 0x82},
+                              {'[', ' ', '"', (byte) 0xFF, '"', ' ', ']'},
+                              long_};
+        long[]   positions = {1, 1, 1, 3, 3, 10002};
+        for (int k = 0; k < serials.length; k++) {
+            byte[]     serial = serials[k];
+            ByteBuffer direct = ByteBuffer.allocateDirect(serial.length);
+            direct.put(serial).flip();
+            for (Runnable parse: new Runnable[] {
+                () -> new StreamParser().parse(serial, new Recorder()),
+                () -> new StreamParser().parse(direct, new Recorder()),
+                () -> NodeBuilder.build(serial)
+            }) {
+                try {
+                    parse.run();
+                    org.junit.Assert.fail("parsing should have failed for: "+Arrays.toString(serial));
+                } catch (StreamParser.ParseException ex) { org.junit.Assert.assertEquals(positions[k], ex.position()); }
+            }
+        }
+    }
+    @org.junit.Test
+    public void testShared() throws InterruptedException {
+        StreamParser parser = new StreamParser();
+        List<Throwable> failures = java.util.Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int k = 0; k < 200; k++) {
+                        for (String serial: serials) {
+                            Recorder r = new Recorder();
+                            parser.parse(serial, r);
+                            org.junit.Assert.assertEquals(eventsOf(serial), r.events);
+                        }
+                        final int[] found = new int[] {0};
+                        parser.parse("[[1,[2]],3,{\"a\":4}]", StreamParser.spanHandlersOf(new Recorder() {
+                            @Override public void handleArrayStart() {
+                                if (found[0]++ == 1) parser.skipNextValue();
+                            }
+                            @Override public void handleNumber(String nRepr) {
+                                found[0] += 10 * Integer.parseInt(nRepr);
+                            }
+                        }));
+                        org.junit.Assert.assertEquals(3 + 20 + 30 + 40, found[0]); // 3 arrays, and the 1 skipped
+                    }
+                } catch (Throwable ex) { failures.add(ex); }
+            }));
+        }
+        for (Thread thread: threads) thread.start();
+        for (Thread thread: threads) thread.join();
+        org.junit.Assert.assertEquals(Collections.emptyList(), failures);
+    }
+    @org.junit.Test
+    public void testReentrant() {
+        StreamParser parser = new StreamParser();
+        List<String> inner = new ArrayList<>();
+        Recorder outer = new Recorder() {
+            @Override public void handleString(String s) {
+                super.handleString(s);
+                parser.parse(s, new Recorder() {
+                    @Override public void handleArrayStart() {
+                        parser.skipNextValue(); // of the inner parse
+                    }
+                    @Override public void handleNumber(String nRepr) {
+                        inner.add(nRepr);
+                    }
+                });
+                parser.skipNextValue(); // of the outer parse
+            }
+        };
+        parser.parse("[\"[1,2]\",3,4,\"[5]\",6]", outer);
+        org.junit.Assert.assertEquals(Arrays.asList("2"),                                   inner);
+        org.junit.Assert.assertEquals(Arrays.asList("[", "string:[1,2]", "skipped", "number:4", "string:[5]", "skipped", "]"), outer.events);
+    }
+}
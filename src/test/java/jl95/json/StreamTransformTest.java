@@ -0,0 +1,116 @@
+package jl95.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+public class StreamTransformTest {
+
+    private static final String SERIAL = "{\"id\":7,\"user\":{\"name\":\"Jane\",\"password\":\"s3cr\\u0065t\",\"roles\":[\"a\",\"b\"]}," +
+                                         "\"items\":[{\"id\":1,\"price\":1.50,\"note\":\"x\"},{\"id\":2,\"price\":2e3,\"note\":null}]," +
+                                         "\"token\":{\"value\":\"abc\",\"expires\":[1,2,3]}}";
+
+    private static void assertTransform(String expected, StreamTransform transform, String serial) {
+        org.junit.Assert.assertEquals(expected, transform.transform(serial));
+        StringBuilder sb = new StringBuilder();
+        StreamWriter  w  = StreamWriter.of(sb, false);
+        transform.transform(new StringReader(serial), w);
+        w.flush();
+        org.junit.Assert.assertEquals(expected, sb.toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transform.transform(new ByteArrayInputStream(serial.getBytes(StandardCharsets.UTF_8)), out);
+        org.junit.Assert.assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @org.junit.Test
+    public void testIdentity() {
+        // untouched tokens as they were - numbers as written, escapings unresolved
+        assertTransform(SERIAL, StreamTransform.of(), SERIAL);
+        assertTransform("[\"\\ud83d\\ude00 \\\"\\/\",-0.0E+1,true,false,null,{},[]]", StreamTransform.of(), " [ \"\\ud83d\\ude00 \\\"\\/\" , -0.0E+1 , true , false , null , { } , [ ] ] ");
+    }
+    @org.junit.Test
+    public void testDrop() {
+        assertTransform("{\"id\":7,\"user\":{\"name\":\"Jane\",\"roles\":[\"a\",\"b\"]}," +
+                        "\"items\":[{\"id\":1,\"note\":\"x\"},{\"id\":2,\"note\":null}]}",
+                        StreamTransform.of().drop("/user/password", "$.items[*].price", "$.token"), SERIAL);
+        assertTransform("[1,3,5]", StreamTransform.of().drop("$[1]", "$[3]"), "[1,2,3,4,5]");
+        assertTransform("",        StreamTransform.of().drop("$"), SERIAL);
+        assertTransform("[[]]",    StreamTransform.of().drop("$[0][*]"), "[[1,[2],{\"a\":3},\"4\"]]");
+    }
+    @org.junit.Test
+    public void testRename() {
+        assertTransform("{\"id\":7,\"person\":{\"username\":\"Jane\"}}",
+                        StreamTransform.of().rename("$.user", "person").rename("$.person.name", "username").drop("$.person.password", "$.person.roles", "$.items", "$.token"),
+                        SERIAL);
+        assertTransform("[{\"n\":1},{\"n\":2,\"m\":3}]", StreamTransform.of().rename("$[*].a", "n"), "[{\"a\":1},{\"a\":2,\"m\":3}]");
+        for (String invalid: new String[] {"$", "$.a[0]", ""}) {
+            try {
+                StreamTransform.of().rename(invalid, "x");
+                org.junit.Assert.fail("should not be able to rename at "+invalid);
+            } catch (IllegalArgumentException ex) {/* as expected */}
+        }
+    }
+    @org.junit.Test
+    public void testReplace() {
+        assertTransform("{\"id\":7,\"user\":{\"name\":\"Jane\",\"password\":\"***\",\"roles\":[\"a\",\"b\"]}," +
+                        "\"items\":[{\"id\":1,\"price\":0,\"note\":\"x\"},{\"id\":2,\"price\":0,\"note\":null}]," +
+                        "\"token\":null}",
+                        StreamTransform.of().replace("$.user.password", Node.String("***"))
+                                            .replace("$.items[*].price", Node.Long(0))
+                                            .replace("$.token", Node.Null()),
+                        SERIAL);
+        assertTransform("[1,[\"x\"],3]", StreamTransform.of().replace("$[1]", Node.List(java.util.Arrays.asList(Node.String("x")))), "[1,{\"a\":[2]},3]");
+        // a replacement is seen whole by the stages after - and, as one, may be dropped
+        assertTransform("[1,3]", StreamTransform.of().replace("$[1]", Node.Long(0)).drop("$[1]"), "[1,2,3]");
+        assertTransform("[1,3]", StreamTransform.of().drop("$[1]").replace("$[2]", Node.Long(0)), "[1,2,3]");
+        assertTransform("[0,0]", StreamTransform.of().replace("$[*]", Node.Long(0)).drop("$[2]"), "[1,2,3]");
+    }
+    @org.junit.Test
+    public void testProject() {
+        assertTransform("{\"user\":{\"name\":\"Jane\"},\"items\":[{\"id\":1},{\"id\":2}]}",
+                        StreamTransform.of().project("$.user.name", "$.items[*].id"), SERIAL);
+        assertTransform("{\"token\":{\"value\":\"abc\",\"expires\":[1,2,3]}}",
+                        StreamTransform.of().project("$.token"), SERIAL);
+        // of what is on the way to a path, only arrays and objects are kept - not what the path cannot go through
+        assertTransform("[{\"a\":{\"b\":1}},{}]", StreamTransform.of().project("$[*].a.b"), "[{\"a\":{\"b\":1,\"c\":2}},{\"a\":5},7]");
+        assertTransform("{\"b\":[true]}",   StreamTransform.of().drop("$.a").project("$.b"), "{\"a\":1,\"b\":[true],\"c\":2}");
+    }
+    @org.junit.Test
+    public void testPretty() {
+        StringBuilder sb = new StringBuilder();
+        StreamWriter  w  = StreamWriter.of(sb, true);
+        StreamTransform.of().drop("$.b").transform("{\"a\":[1,2],\"b\":3}", w);
+        w.flush();
+        org.junit.Assert.assertEquals("{\n  \"a\": [\n    1,\n    2\n  ]\n}", sb.toString());
+    }
+    @org.junit.Test
+    public void testLarge() {
+        // strings and containers over the parser's buffer, and many of them - through a reader, as a stream
+        StringBuilder sb = new StringBuilder("[");
+        StringBuilder expected = new StringBuilder("[");
+        String big = new String(new char[20000]).replace('\0', 'x');
+        for (int k = 0; k < 2000; k++) {
+            if (k > 0) { sb.append(','); expected.append(','); }
+            sb.append("{\"k\":").append(k).append(",\"secret\":\"").append(big).append("\",\"s\":\"\\t").append(k).append("\"}");
+            expected.append("{\"k\":").append(k).append(",\"s\":\"\\t").append(k).append("\"}");
+        }
+        sb.append(']'); expected.append(']');
+        StringBuilder out = new StringBuilder();
+        StreamWriter  w   = StreamWriter.of(out, false);
+        Reader        r   = new StringReader(sb.toString());
+        StreamTransform.of().drop("$[*].secret").transform(r, w);
+        w.flush();
+        org.junit.Assert.assertEquals(expected.toString(), out.toString());
+    }
+    @org.junit.Test
+    public void testInvalid() {
+        for (String invalid: new String[] {"[1,2", "{\"a\":}", "[1]]"}) {
+            try {
+                StreamTransform.of().drop("$[0]").transform(invalid);
+                org.junit.Assert.fail("should not be able to transform "+invalid);
+            } catch (StreamParser.ParseException ex) {/* as expected */}
+        }
+    }
+}
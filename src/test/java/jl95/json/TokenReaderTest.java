@@ -0,0 +1,89 @@
+package jl95.json;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TokenReaderTest {
+
+    private static final String repr = "{\"id\":42,\"name\":\"n\\\"x\",\"skip\":{\"a\":[1,\"]}\",{}]},\"list\":[1.5,true,null,[]]}";
+
+    private static List<String> tokens(TokenReader reader) {
+        List<String> tokens = new ArrayList<>();
+        for (TokenReader.Token t = reader.nextToken(); t != null; t = reader.nextToken()) {
+            switch (t) {
+                case KEY   : tokens.add(reader.currentString()+":"); break;
+                case STRING: tokens.add("'"+reader.currentString()+"'"); break;
+                case NUMBER: tokens.add(reader.currentString()); break;
+                default    : tokens.add(t.name());
+            }
+        }
+        return tokens;
+    }
+
+    @org.junit.Test
+    public void testTokens() {
+        String expected = "[OBJECT_START, id:, 42, name:, 'n\"x', skip:, OBJECT_START, a:, ARRAY_START, 1, ']}', OBJECT_START, OBJECT_END, ARRAY_END, OBJECT_END, " +
+                          "list:, ARRAY_START, 1.5, TRUE, NULL, ARRAY_START, ARRAY_END, ARRAY_END, OBJECT_END]";
+        org.junit.Assert.assertEquals(expected, tokens(TokenReader.of(repr)).toString());
+        org.junit.Assert.assertEquals(expected, tokens(TokenReader.of(new StringReader(repr))).toString());
+        org.junit.Assert.assertEquals(expected, tokens(TokenReader.of(repr.getBytes(StandardCharsets.UTF_8))).toString());
+        org.junit.Assert.assertEquals("[7]", tokens(TokenReader.of(" 7 ")).toString());
+    }
+    @org.junit.Test
+    public void testDecode() {
+        TokenReader reader = TokenReader.of(repr);
+        long    id   = 0;
+        String  name = null;
+        double  sum  = 0;
+        org.junit.Assert.assertEquals(TokenReader.Token.OBJECT_START, reader.nextToken());
+        while (reader.nextToken() == TokenReader.Token.KEY) {
+            if (reader.currentStringEquals("id")) {
+                reader.nextToken();
+                id = reader.currentLong();
+            }
+            else if (reader.currentStringEquals("name")) {
+                reader.nextToken();
+                name = reader.currentString();
+            }
+            else if (reader.currentStringEquals("list")) {
+                reader.nextToken();
+                reader.nextToken();
+                sum += reader.currentDouble();
+                break; // the rest is not needed
+            }
+            else {
+                reader.nextToken();
+                reader.skipChildren();
+                org.junit.Assert.assertEquals(TokenReader.Token.OBJECT_END, reader.currentToken());
+            }
+        }
+        org.junit.Assert.assertEquals(42,     id);
+        org.junit.Assert.assertEquals("n\"x", name);
+        org.junit.Assert.assertEquals(1.5,    sum, 0);
+    }
+    @org.junit.Test
+    public void testSkipChildren() {
+        TokenReader reader = TokenReader.of("[[], {}, [[\"[\"]], 7]");
+        reader.nextToken();
+        for (int k = 0; k < 3; k++) {
+            reader.nextToken();
+            reader.skipChildren();
+        }
+        org.junit.Assert.assertEquals(TokenReader.Token.NUMBER,    reader.nextToken());
+        org.junit.Assert.assertEquals(7,                           reader.currentLong());
+        org.junit.Assert.assertEquals(TokenReader.Token.ARRAY_END, reader.nextToken());
+        org.junit.Assert.assertNull(reader.nextToken());
+    }
+    @org.junit.Test
+    public void testInvalid() {
+        TokenReader reader = TokenReader.of("[1, tru]");
+        org.junit.Assert.assertEquals(TokenReader.Token.ARRAY_START, reader.nextToken());
+        org.junit.Assert.assertEquals(TokenReader.Token.NUMBER,      reader.nextToken());
+        try {
+            reader.nextToken();
+            org.junit.Assert.fail("should not be able to read an invalid token");
+        } catch (StreamParser.ParseException ex) {/* as expected */}
+    }
+}